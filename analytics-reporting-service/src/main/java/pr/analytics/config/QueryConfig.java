@@ -0,0 +1,20 @@
+package pr.analytics.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class QueryConfig {
+
+    /**
+     * Runs every analytics query on its own virtual thread, so a query blocked on storage holds no platform thread.
+     * How many run at once is limited by {@link pr.analytics.service.QueryScheduler}, not by this executor.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService analyticsQueryExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("analytics-query-", 0).factory());
+    }
+}
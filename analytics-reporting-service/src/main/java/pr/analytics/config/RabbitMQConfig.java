@@ -0,0 +1,44 @@
+package pr.analytics.config;
+
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+@Configuration
+public class RabbitMQConfig {
+
+    public static final String RESULTS_EXCHANGE_NAME = "results_exchange";
+    public static final String RESULTS_ROUTING_KEY = "results.check";
+
+    /**
+     * This instance's own copy of the results stream, next to the ingestion service's durable queue. It is deleted
+     * when the instance disconnects, and drops its oldest results rather than grow while the instance falls behind.
+     */
+    @Bean
+    Queue liveResultsQueue(@Value("${analytics.live.queue.max-length:10000}") int maxLength) {
+        return new AnonymousQueue(Map.of("x-max-length", maxLength, "x-overflow", "drop-head"));
+    }
+
+    @Bean
+    TopicExchange resultsExchange() {
+        return new TopicExchange(RESULTS_EXCHANGE_NAME);
+    }
+
+    @Bean
+    Binding liveResultsBinding(Queue liveResultsQueue, TopicExchange resultsExchange) {
+        return BindingBuilder.bind(liveResultsQueue).to(resultsExchange).with(RESULTS_ROUTING_KEY);
+    }
+
+    @Bean
+    public Jackson2JsonMessageConverter messageConverter() {
+        return new Jackson2JsonMessageConverter();
+    }
+}
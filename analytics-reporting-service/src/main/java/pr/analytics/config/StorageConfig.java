@@ -0,0 +1,32 @@
+package pr.analytics.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pr.pulsesynapse.storage.embedded.EmbeddedTimeSeriesStore;
+
+import java.nio.file.Path;
+
+/**
+ * Reads the segment files written by data-ingestion-service; both services must point at the same directory.
+ * Retention and compaction are left to the ingestion side.
+ */
+@Configuration
+@ConditionalOnProperty(name = "storage.type", havingValue = "embedded")
+public class StorageConfig {
+
+    @Value("${storage.embedded.path}")
+    private String path;
+
+    @Value("${storage.embedded.block.size:1024}")
+    private int blockSize;
+
+    @Value("${storage.embedded.retention.days:90}")
+    private int retentionDays;
+
+    @Bean(destroyMethod = "close")
+    public EmbeddedTimeSeriesStore embeddedTimeSeriesStore() {
+        return new EmbeddedTimeSeriesStore(Path.of(path), blockSize, retentionDays);
+    }
+}
@@ -0,0 +1,45 @@
+package pr.analytics.downsample;
+
+import pr.pulsesynapse.proto.LatencyAggregation;
+
+/**
+ * Streaming reducer from latency samples to at most a fixed number of chart points.
+ * <p>
+ * Samples must be added in timestamp order and fall within the range the downsampler was created for. Memory
+ * is bounded by the output size (or, for LTTB, by the samples of two windows), not by the number of samples.
+ */
+public interface LatencyDownsampler {
+
+    void add(long timestampMillis, long latencyMs);
+
+    /**
+     * Adds a pre-aggregated window of {@code count} samples, such as a rollup, stamped with the window start.
+     * The default treats it as a single sample at the window's mean.
+     */
+    default void addAggregate(long timestampMillis, long count, long sum, long maxLatencyMs) {
+        add(timestampMillis, Math.round((double) sum / count));
+    }
+
+    /**
+     * Emits whatever is still buffered. Must be called once after the last sample.
+     */
+    void finish();
+
+    /**
+     * @param maxPoints upper bound on the points passed to the sink; 0 or less passes every sample through
+     */
+    static LatencyDownsampler create(LatencyAggregation aggregation, int maxPoints, long startMillis, long endMillis,
+                                     LatencySink sink) {
+        if (maxPoints <= 0) {
+            return new PassThroughDownsampler(sink);
+        }
+        return switch (aggregation) {
+            case LATENCY_AGGREGATION_MAX -> new WindowedLatencyDownsampler(true, maxPoints, startMillis, endMillis, sink);
+            // LTTB always keeps the first and last sample, so it needs room for at least one more
+            case LATENCY_AGGREGATION_LTTB -> maxPoints >= 3
+                    ? new LttbLatencyDownsampler(maxPoints, startMillis, endMillis, sink)
+                    : new WindowedLatencyDownsampler(true, maxPoints, startMillis, endMillis, sink);
+            default -> new WindowedLatencyDownsampler(false, maxPoints, startMillis, endMillis, sink);
+        };
+    }
+}
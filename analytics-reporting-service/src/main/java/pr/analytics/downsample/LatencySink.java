@@ -0,0 +1,10 @@
+package pr.analytics.downsample;
+
+/**
+ * Receives the latency points produced by a {@link LatencyDownsampler}, in timestamp order.
+ */
+@FunctionalInterface
+public interface LatencySink {
+
+    void accept(long timestampMillis, long latencyMs);
+}
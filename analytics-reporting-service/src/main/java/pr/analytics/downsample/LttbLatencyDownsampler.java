@@ -0,0 +1,151 @@
+package pr.analytics.downsample;
+
+import java.util.Arrays;
+
+/**
+ * Largest-Triangle-Three-Buckets over time windows, in a single pass.
+ * <p>
+ * The first and last samples are always kept; the range is split into {@code maxPoints - 2} equal time windows
+ * and from each non-empty window the sample is kept that forms the largest triangle with the previously kept
+ * sample and the average of the next non-empty window. Only the samples of the window being decided and of the
+ * one after it are buffered.
+ */
+final class LttbLatencyDownsampler implements LatencyDownsampler {
+
+    private final long startMillis;
+    private final long windowMillis;
+    private final LatencySink sink;
+
+    private boolean started;
+    private long keptTimestamp;
+    private long keptLatency;
+
+    private Window current = new Window();
+    private Window next = new Window();
+
+    LttbLatencyDownsampler(int maxPoints, long startMillis, long endMillis, LatencySink sink) {
+        this.startMillis = startMillis;
+        this.windowMillis = Math.max(1L, Math.ceilDiv(endMillis - startMillis, (long) (maxPoints - 2)));
+        this.sink = sink;
+    }
+
+    @Override
+    public void add(long timestampMillis, long latencyMs) {
+        if (!started) {
+            started = true;
+            keep(timestampMillis, latencyMs);
+            return;
+        }
+        long window = (timestampMillis - startMillis) / windowMillis;
+        if (next.isEmpty() || next.index == window) {
+            if (current.isEmpty()) {
+                current.add(window, timestampMillis, latencyMs);
+            } else if (current.index == window) {
+                current.add(window, timestampMillis, latencyMs);
+            } else {
+                next.add(window, timestampMillis, latencyMs);
+            }
+            return;
+        }
+        // a third window starts, so the next window's average is final and the current one can be decided
+        select(current, next.averageTimestamp(), next.averageLatency());
+        Window decided = current;
+        current = next;
+        next = decided;
+        next.clear();
+        next.add(window, timestampMillis, latencyMs);
+    }
+
+    @Override
+    public void finish() {
+        if (!started) {
+            return;
+        }
+        // the final sample is always kept and anchors the last selection
+        Window last = !next.isEmpty() ? next : current;
+        if (last.isEmpty()) {
+            return;
+        }
+        long lastTimestamp = last.timestamps[last.size - 1];
+        long lastLatency = last.latencies[last.size - 1];
+        last.size--;
+
+        if (!current.isEmpty()) {
+            if (!next.isEmpty()) {
+                select(current, next.averageTimestamp(), next.averageLatency());
+            } else {
+                select(current, lastTimestamp, lastLatency);
+            }
+        }
+        if (!next.isEmpty()) {
+            select(next, lastTimestamp, lastLatency);
+        }
+        keep(lastTimestamp, lastLatency);
+    }
+
+    private void select(Window window, double nextTimestamp, double nextLatency) {
+        if (window.isEmpty()) {
+            return;
+        }
+        int best = 0;
+        double bestArea = -1;
+        for (int i = 0; i < window.size; i++) {
+            // twice the triangle area; only the comparison matters
+            double area = Math.abs((keptTimestamp - nextTimestamp) * (window.latencies[i] - keptLatency)
+                    - (keptTimestamp - window.timestamps[i]) * (nextLatency - keptLatency));
+            if (area > bestArea) {
+                bestArea = area;
+                best = i;
+            }
+        }
+        keep(window.timestamps[best], window.latencies[best]);
+    }
+
+    private void keep(long timestampMillis, long latencyMs) {
+        keptTimestamp = timestampMillis;
+        keptLatency = latencyMs;
+        sink.accept(timestampMillis, latencyMs);
+    }
+
+    private static final class Window {
+        long index;
+        long[] timestamps = new long[16];
+        long[] latencies = new long[16];
+        int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void add(long window, long timestampMillis, long latencyMs) {
+            if (size == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            index = window;
+            timestamps[size] = timestampMillis;
+            latencies[size] = latencyMs;
+            size++;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        double averageTimestamp() {
+            double sum = 0;
+            for (int i = 0; i < size; i++) {
+                sum += timestamps[i];
+            }
+            return sum / size;
+        }
+
+        double averageLatency() {
+            double sum = 0;
+            for (int i = 0; i < size; i++) {
+                sum += latencies[i];
+            }
+            return sum / size;
+        }
+    }
+}
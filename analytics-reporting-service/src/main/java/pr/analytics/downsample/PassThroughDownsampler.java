@@ -0,0 +1,19 @@
+package pr.analytics.downsample;
+
+final class PassThroughDownsampler implements LatencyDownsampler {
+
+    private final LatencySink sink;
+
+    PassThroughDownsampler(LatencySink sink) {
+        this.sink = sink;
+    }
+
+    @Override
+    public void add(long timestampMillis, long latencyMs) {
+        sink.accept(timestampMillis, latencyMs);
+    }
+
+    @Override
+    public void finish() {
+    }
+}
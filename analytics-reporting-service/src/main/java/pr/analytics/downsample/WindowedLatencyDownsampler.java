@@ -0,0 +1,65 @@
+package pr.analytics.downsample;
+
+/**
+ * Splits the range into {@code maxPoints} equal time windows and emits one point per non-empty window: either
+ * the mean, stamped with the window start, or the slowest sample with its own timestamp. Aggregates are weighted
+ * by their sample count, so the mean is exact whether it is fed raw samples or rollups.
+ */
+final class WindowedLatencyDownsampler implements LatencyDownsampler {
+
+    private final boolean max;
+    private final long startMillis;
+    private final long windowMillis;
+    private final LatencySink sink;
+
+    private long window = -1;
+    private long count;
+    private long sum;
+    private long maxLatency;
+    private long maxTimestamp;
+
+    WindowedLatencyDownsampler(boolean max, int maxPoints, long startMillis, long endMillis, LatencySink sink) {
+        this.max = max;
+        this.startMillis = startMillis;
+        this.windowMillis = Math.max(1L, Math.ceilDiv(endMillis - startMillis, (long) maxPoints));
+        this.sink = sink;
+    }
+
+    @Override
+    public void add(long timestampMillis, long latencyMs) {
+        addAggregate(timestampMillis, 1, latencyMs, latencyMs);
+    }
+
+    @Override
+    public void addAggregate(long timestampMillis, long count, long sum, long maxLatencyMs) {
+        long sampleWindow = (timestampMillis - startMillis) / windowMillis;
+        if (sampleWindow != window) {
+            emit();
+            window = sampleWindow;
+        }
+        if (this.count == 0 || maxLatencyMs > maxLatency) {
+            maxLatency = maxLatencyMs;
+            maxTimestamp = timestampMillis;
+        }
+        this.count += count;
+        this.sum += sum;
+    }
+
+    @Override
+    public void finish() {
+        emit();
+    }
+
+    private void emit() {
+        if (count == 0) {
+            return;
+        }
+        if (max) {
+            sink.accept(maxTimestamp, maxLatency);
+        } else {
+            sink.accept(startMillis + window * windowMillis, Math.round((double) sum / count));
+        }
+        count = 0;
+        sum = 0;
+    }
+}
@@ -0,0 +1,18 @@
+package pr.analytics.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@Builder
+public class CheckResult {
+    private String targetId;
+    private String checkId;
+    private Instant timestamp;
+    private boolean isUp;
+    private Integer statusCode;
+    private Long latencyMs;
+    private String errorMessage;
+}
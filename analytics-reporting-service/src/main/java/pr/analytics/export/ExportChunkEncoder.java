@@ -0,0 +1,159 @@
+package pr.analytics.export;
+
+import com.google.protobuf.ByteString;
+import pr.pulsesynapse.proto.ExportChunk;
+import pr.pulsesynapse.proto.ExportFormat;
+import pr.pulsesynapse.storage.TargetSampleVisitor;
+import pr.pulsesynapse.storage.TimeSeriesWriter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Encodes samples straight from a bulk scan into {@link ExportChunk}s of at most {@code chunkSize} samples of one
+ * target, handing each chunk to the sink as soon as it is full. Only the chunk being filled is held in memory,
+ * however large the export.
+ * <p>
+ * Columnar chunks append to the packed repeated fields of one reused builder. CSV rows are written as ASCII into a
+ * reused byte buffer, copied once into the chunk.
+ */
+public class ExportChunkEncoder implements TargetSampleVisitor {
+
+    private static final byte[] CSV_HEADER = "target_id,timestamp_ms,up,status_code,latency_ms\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final boolean csv;
+    private final int chunkSize;
+    private final Consumer<ExportChunk> sink;
+    private final BooleanSupplier keepGoing;
+    private final ExportChunk.Builder chunk = ExportChunk.newBuilder();
+
+    private byte[] buffer = new byte[8192];
+    private int length;
+    private boolean headerWritten;
+
+    private String targetId;
+    private byte[] targetField;
+    private int samples;
+    private long lastTimestamp;
+
+    public ExportChunkEncoder(ExportFormat format, int chunkSize, Consumer<ExportChunk> sink, BooleanSupplier keepGoing) {
+        this.csv = format == ExportFormat.EXPORT_FORMAT_CSV;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.sink = sink;
+        this.keepGoing = keepGoing;
+    }
+
+    @Override
+    public boolean visit(String targetId, long timestampMillis, boolean up, int statusCode, long latencyMs) {
+        if (!targetId.equals(this.targetId)) {
+            flush();
+            this.targetId = targetId;
+            this.targetField = csv ? csvField(targetId) : null;
+        } else if (samples >= chunkSize) {
+            flush();
+        }
+
+        if (csv) {
+            if (!headerWritten) {
+                write(CSV_HEADER);
+                headerWritten = true;
+            }
+            write(targetField);
+            write((byte) ',');
+            writeLong(timestampMillis);
+            write((byte) ',');
+            write(up ? (byte) '1' : (byte) '0');
+            write((byte) ',');
+            writeLong(statusCode);
+            write((byte) ',');
+            if (latencyMs != TimeSeriesWriter.NO_LATENCY) {
+                writeLong(latencyMs);
+            }
+            write((byte) '\n');
+        } else {
+            chunk.addTimestampDeltaMs(timestampMillis - lastTimestamp)
+                    .addUp(up)
+                    .addStatusCode(statusCode)
+                    .addLatencyMs(latencyMs);
+            lastTimestamp = timestampMillis;
+        }
+        samples++;
+        return keepGoing.getAsBoolean();
+    }
+
+    /**
+     * Sends the last, partly filled chunk.
+     */
+    public void finish() {
+        flush();
+    }
+
+    private void flush() {
+        if (samples == 0) {
+            return;
+        }
+        chunk.setTargetId(targetId);
+        if (csv) {
+            chunk.setCsv(ByteString.copyFrom(buffer, 0, length));
+            length = 0;
+        }
+        sink.accept(chunk.build());
+        chunk.clear();
+        samples = 0;
+        lastTimestamp = 0;
+    }
+
+    private void write(byte value) {
+        ensureCapacity(1);
+        buffer[length++] = value;
+    }
+
+    private void write(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void writeLong(long value) {
+        // at most 19 digits and a sign
+        ensureCapacity(20);
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                write(Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+            buffer[length++] = '-';
+            value = -value;
+        }
+        int end = length + digits(value);
+        for (int i = end - 1; i >= length; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        length = end;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    static byte[] csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+        return ('"' + value.replace("\"", "\"\"") + '"').getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,26 @@
+package pr.analytics.listener;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+import pr.analytics.dto.CheckResult;
+import pr.analytics.live.TargetStatusHub;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LiveResultListener {
+
+    private final TargetStatusHub targetStatusHub;
+
+    // a single consumer keeps the results of a target in order
+    @RabbitListener(queues = "#{liveResultsQueue.name}")
+    public void handleResult(CheckResult result) {
+        if (log.isDebugEnabled()) {
+            log.debug("Received live result for target ID: {}. Status: {}", result.getTargetId(), result.isUp() ? "UP" : "DOWN");
+        }
+
+        targetStatusHub.publish(result);
+    }
+}
@@ -0,0 +1,88 @@
+package pr.analytics.live;
+
+import io.grpc.stub.ServerCallStreamObserver;
+import pr.pulsesynapse.proto.TargetStatusUpdate;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One {@code SubscribeTargetStatus} call: updates wait here until the transport is ready for them.
+ * <p>
+ * At most one update per target is pending. A newer result replaces it, keeping its place in line, and is sent
+ * with {@code skipped} counting the results it replaced and {@code state_changed} set if any of them changed the
+ * state. The buffer is thereby bounded by the number of subscribed targets however far the client falls behind.
+ * <p>
+ * With {@code changesOnly}, results that did not change the state are never sent; they are counted in
+ * {@code skipped} of the target's next update all the same.
+ * <p>
+ * Updates are offered on the results listener thread and drained there or from gRPC's on-ready callback; the lock
+ * keeps the two from calling {@code onNext} at once.
+ */
+final class StatusSubscription {
+
+    private final ServerCallStreamObserver<TargetStatusUpdate> observer;
+    private final boolean changesOnly;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, TargetStatusUpdate> pending = new LinkedHashMap<>();
+    // results left out by changesOnly since the last update queued for the target
+    private final Map<String, Long> leftOut = new HashMap<>();
+
+    StatusSubscription(ServerCallStreamObserver<TargetStatusUpdate> observer, boolean changesOnly) {
+        this.observer = observer;
+        this.changesOnly = changesOnly;
+    }
+
+    void offer(TargetStatusUpdate update) {
+        String targetId = update.getTargetId();
+        lock.lock();
+        try {
+            if (changesOnly && !update.getStateChanged()) {
+                leftOut.merge(targetId, 1L, Long::sum);
+                return;
+            }
+            Long skipped = leftOut.remove(targetId);
+            if (skipped != null) {
+                update = update.toBuilder().setSkipped(skipped).build();
+            }
+            pending.merge(targetId, update, (queued, next) -> next.toBuilder()
+                    .setStateChanged(queued.getStateChanged() || next.getStateChanged())
+                    .setSkipped(queued.getSkipped() + 1 + next.getSkipped())
+                    .build());
+        } finally {
+            lock.unlock();
+        }
+        drain();
+    }
+
+    /**
+     * Queues the latest known result of a target at the start of the subscription, regardless of
+     * {@code changesOnly}.
+     */
+    void offerLatest(TargetStatusUpdate update) {
+        lock.lock();
+        try {
+            pending.putIfAbsent(update.getTargetId(), update.toBuilder().setStateChanged(false).build());
+        } finally {
+            lock.unlock();
+        }
+        drain();
+    }
+
+    void drain() {
+        lock.lock();
+        try {
+            Iterator<TargetStatusUpdate> iterator = pending.values().iterator();
+            while (iterator.hasNext() && observer.isReady() && !observer.isCancelled()) {
+                TargetStatusUpdate update = iterator.next();
+                iterator.remove();
+                observer.onNext(update);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package pr.analytics.live;
+
+import com.google.protobuf.Timestamp;
+import io.grpc.stub.ServerCallStreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import pr.analytics.dto.CheckResult;
+import pr.pulsesynapse.proto.TargetStatusUpdate;
+import pr.pulsesynapse.storage.TimeSeriesWriter;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fans the check results coming off the results exchange out to the {@code SubscribeTargetStatus} streams, so
+ * live dashboards are served from memory and never query storage.
+ * <p>
+ * The latest result of every target is kept, to start new subscriptions with and to tell state changes. Results
+ * not newer than it, e.g. redeliveries, are ignored. Each subscription buffers at most one pending update per
+ * target (see {@link StatusSubscription}), so a slow client never holds up the listener or the other clients.
+ */
+@Slf4j
+@Component
+public class TargetStatusHub {
+
+    private final Map<String, TargetStatusUpdate> latest = new HashMap<>();
+    private final Map<String, Set<StatusSubscription>> subscriptions = new HashMap<>();
+
+    public synchronized void publish(CheckResult result) {
+        String targetId = result.getTargetId();
+        if (targetId == null) {
+            return;
+        }
+        long timestamp = result.getTimestamp() != null ? result.getTimestamp().toEpochMilli() : System.currentTimeMillis();
+        TargetStatusUpdate previous = latest.get(targetId);
+        if (previous != null && toMillis(previous.getCheckTime()) >= timestamp) {
+            return;
+        }
+
+        TargetStatusUpdate update = TargetStatusUpdate.newBuilder()
+                .setTargetId(targetId)
+                .setCheckTime(toTimestamp(timestamp))
+                .setUp(result.isUp())
+                .setStatusCode(result.getStatusCode() != null ? result.getStatusCode() : 0)
+                .setLatencyMs(result.getLatencyMs() != null ? result.getLatencyMs() : TimeSeriesWriter.NO_LATENCY)
+                .setErrorMessage(result.getErrorMessage() != null ? result.getErrorMessage() : "")
+                .setStateChanged(previous != null && previous.getUp() != result.isUp())
+                .build();
+        latest.put(targetId, update);
+
+        Set<StatusSubscription> targetSubscriptions = subscriptions.get(targetId);
+        if (targetSubscriptions != null) {
+            for (StatusSubscription subscription : targetSubscriptions) {
+                subscription.offer(update);
+            }
+        }
+    }
+
+    /**
+     * Starts pushing the given targets to the call, beginning with the latest known result of each. The
+     * subscription ends when the client cancels the call.
+     */
+    public synchronized void subscribe(Collection<String> targetIds, boolean changesOnly,
+                                       ServerCallStreamObserver<TargetStatusUpdate> observer) {
+        StatusSubscription subscription = new StatusSubscription(observer, changesOnly);
+        observer.setOnCancelHandler(() -> unsubscribe(targetIds, subscription));
+        observer.setOnReadyHandler(subscription::drain);
+
+        for (String targetId : targetIds) {
+            subscriptions.computeIfAbsent(targetId, id -> new HashSet<>()).add(subscription);
+            TargetStatusUpdate update = latest.get(targetId);
+            if (update != null) {
+                subscription.offerLatest(update);
+            }
+        }
+        log.debug("Live subscription to {} targets started", targetIds.size());
+    }
+
+    private synchronized void unsubscribe(Collection<String> targetIds, StatusSubscription subscription) {
+        for (String targetId : targetIds) {
+            Set<StatusSubscription> targetSubscriptions = subscriptions.get(targetId);
+            if (targetSubscriptions != null && targetSubscriptions.remove(subscription) && targetSubscriptions.isEmpty()) {
+                subscriptions.remove(targetId);
+            }
+        }
+        log.debug("Live subscription to {} targets ended", targetIds.size());
+    }
+
+    private static long toMillis(Timestamp timestamp) {
+        return timestamp.getSeconds() * 1000L + timestamp.getNanos() / 1_000_000;
+    }
+
+    private static Timestamp toTimestamp(long timestampMillis) {
+        return Timestamp.newBuilder()
+                .setSeconds(Math.floorDiv(timestampMillis, 1000L))
+                .setNanos((int) Math.floorMod(timestampMillis, 1000L) * 1_000_000)
+                .build();
+    }
+}
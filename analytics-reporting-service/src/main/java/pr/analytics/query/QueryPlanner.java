@@ -0,0 +1,72 @@
+package pr.analytics.query;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pr.pulsesynapse.storage.rollup.RollupResolution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides which stored series answer a range query.
+ * <p>
+ * The aligned middle of the range is read from the coarsest rollup resolution whose window is no wider than the
+ * caller can use, and the partial windows left at either end are filled in from the next finer resolution, down to
+ * raw samples for the last partial minute. Rollup windows that ended less than {@code settle.ms} ago may not be
+ * written yet and are read from finer data as well. A plan therefore has at most seven segments and touches a
+ * number of rows proportional to the resolution asked for, not to the number of raw samples in the range.
+ */
+@Component
+public class QueryPlanner {
+
+    private static final RollupResolution[] COARSEST_FIRST = {RollupResolution.DAY, RollupResolution.HOUR, RollupResolution.MINUTE};
+
+    private final long settleMillis;
+    private final LongSupplier clock;
+
+    @Autowired
+    public QueryPlanner(@Value("${analytics.rollup.settle.ms:60000}") long settleMillis) {
+        this(settleMillis, System::currentTimeMillis);
+    }
+
+    public QueryPlanner(long settleMillis, LongSupplier clock) {
+        this.settleMillis = settleMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Splits the range into time-ordered segments that cover it exactly.
+     *
+     * @param maxWindowMillis widest rollup window the caller can use; 0 reads everything raw
+     */
+    public List<QuerySegment> plan(long startMillis, long endMillis, long maxWindowMillis) {
+        List<QuerySegment> segments = new ArrayList<>();
+        plan(startMillis, endMillis, 0, clock.getAsLong() - settleMillis, maxWindowMillis, segments);
+        return segments;
+    }
+
+    private static void plan(long startMillis, long endMillis, int level, long settledBefore, long maxWindowMillis,
+                             List<QuerySegment> segments) {
+        if (startMillis >= endMillis) {
+            return;
+        }
+        for (int i = level; i < COARSEST_FIRST.length; i++) {
+            RollupResolution resolution = COARSEST_FIRST[i];
+            long window = resolution.getWindowMillis();
+            if (window > maxWindowMillis) {
+                continue;
+            }
+            long from = Math.ceilDiv(startMillis, window) * window;
+            long to = Math.min(resolution.windowStart(endMillis), resolution.windowStart(settledBefore));
+            if (from < to) {
+                plan(startMillis, from, i + 1, settledBefore, maxWindowMillis, segments);
+                segments.add(new QuerySegment(resolution, from, to));
+                plan(to, endMillis, i + 1, settledBefore, maxWindowMillis, segments);
+                return;
+            }
+        }
+        segments.add(new QuerySegment(null, startMillis, endMillis));
+    }
+}
@@ -0,0 +1,14 @@
+package pr.analytics.query;
+
+import pr.pulsesynapse.storage.rollup.RollupResolution;
+
+/**
+ * One piece of a {@link QueryPlanner} plan: the half-open range {@code [startMillis, endMillis)}, read either from
+ * the rollups of {@code resolution} or, when it is {@code null}, from the raw samples.
+ */
+public record QuerySegment(RollupResolution resolution, long startMillis, long endMillis) {
+
+    public boolean isRaw() {
+        return resolution == null;
+    }
+}
@@ -1,61 +1,78 @@
 package pr.analytics.service;
 
 import com.google.protobuf.Timestamp;
-import com.influxdb.client.InfluxDBClient;
-import com.influxdb.client.QueryApi;
-import com.influxdb.query.FluxTable;
+import io.grpc.Context;
 import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.grpc.server.service.GrpcService;
+import pr.analytics.downsample.LatencyDownsampler;
+import pr.analytics.export.ExportChunkEncoder;
+import pr.analytics.live.TargetStatusHub;
+import pr.analytics.query.QueryPlanner;
+import pr.analytics.query.QuerySegment;
+import pr.analytics.service.QueryScheduler.QueryCost;
+import pr.analytics.sketch.LatencySketch;
+import pr.analytics.sketch.LatencySketchReader;
 import pr.pulsesynapse.proto.*;
+import pr.pulsesynapse.storage.SeriesSummary;
+import pr.pulsesynapse.storage.TimeSeriesReader;
+import pr.pulsesynapse.storage.TimeSeriesWriter;
 
 import java.time.Instant;
-import java.util.List;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
 
 @Slf4j
 @GrpcService
 @RequiredArgsConstructor
 public class AnalyticsService extends AnalyticsServiceGrpc.AnalyticsServiceImplBase {
 
-    private final InfluxDBClient influxDBClient;
+    private final TimeSeriesReader timeSeriesReader;
+    private final QueryScheduler queryScheduler;
+    private final LatencySketchReader latencySketchReader;
+    private final QueryPlanner queryPlanner;
+    private final TargetStatusHub targetStatusHub;
 
-    @Value("${influxdb.bucket}")
-    private String bucket;
+    @Value("${analytics.stream.chunk-size:1000}")
+    private int chunkSize;
 
-    @Value("${influxdb.org}")
-    private String organization;
+    @Value("${analytics.query.cheap.max-raw.ms:3600000}")
+    private long cheapMaxRawMillis;
+
+    @Value("${analytics.summary.max-targets:1000}")
+    private int maxSummaryTargets;
+
+    @Value("${analytics.percentiles.max-intervals:1000}")
+    private int maxPercentileIntervals;
+
+    @Value("${analytics.live.max-targets:1000}")
+    private int maxLiveTargets;
+
+    @Value("${analytics.export.max-targets:10000}")
+    private int maxExportTargets;
+
+    @Value("${analytics.export.chunk-size:10000}")
+    private int exportChunkSize;
 
     @Override
     public void getUptime(UptimeRequest request, StreamObserver<UptimeResponse> responseObserver) {
+        QueryCost cost = costOf(toMillis(request.getStartTime()), toMillis(request.getEndTime()), Long.MAX_VALUE);
+        queryScheduler.execute(cost, responseObserver, () -> queryUptime(request, responseObserver));
+    }
+
+    private void queryUptime(UptimeRequest request, StreamObserver<UptimeResponse> responseObserver) {
         Instant startTime = Instant.ofEpochSecond(request.getStartTime().getSeconds(), request.getStartTime().getNanos());
         Instant endTime = Instant.ofEpochSecond(request.getEndTime().getSeconds(), request.getEndTime().getNanos());
 
-        // Flux query to calculate uptime
-        String fluxQuery = String.format(
-                "from(bucket: \"%s\")\n" +
-                        "  |> range(start: %s, stop: %s)\n" +
-                        "  |> filter(fn: (r) => r._measurement == \"health_check\" and r.targetId == \"%s\" and r._field == \"is_up\")\n" +
-                        "  |> toFloat()\n" +
-                        "  |> mean()",
-                bucket, startTime, endTime, request.getTargetId()
-        );
-
-        log.info("Executing Uptime Flux Query: {}", fluxQuery);
-        QueryApi queryApi = influxDBClient.getQueryApi();
-
         try {
-            List<FluxTable> tables = queryApi.query(fluxQuery, organization);
-            double uptimePercentage = 0.0;
-
-            if (!tables.isEmpty() && !tables.get(0).getRecords().isEmpty()) {
-                Double mean = (Double) tables.get(0).getRecords().get(0).getValue();
-                if (mean != null) {
-                    uptimePercentage = mean * 100.0;
-                }
-            }
+            double uptime = readUptime(request.getTargetId(), startTime.toEpochMilli(), endTime.toEpochMilli());
+            double uptimePercentage = Double.isNaN(uptime) ? 0.0 : uptime * 100.0;
 
             UptimeResponse response = UptimeResponse.newBuilder()
                     .setTargetId(request.getTargetId())
@@ -66,48 +83,369 @@ public class AnalyticsService extends AnalyticsServiceGrpc.AnalyticsServiceImplB
             responseObserver.onCompleted();
 
         } catch (Exception e) {
-            log.error("Error querying InfluxDB for uptime: {}", e.getMessage());
-            responseObserver.onError(Status.INTERNAL.withDescription("Failed to query uptime data").asRuntimeException());
+            reportFailure(responseObserver, Status.INTERNAL.withDescription("Failed to query uptime data"),
+                    "Error querying uptime for target ID: {}. Error: {}", request.getTargetId(), e.getMessage());
         }
     }
 
     @Override
     public void getLatencyHistory(LatencyHistoryRequest request, StreamObserver<LatencyHistoryResponse> responseObserver) {
+        queryScheduler.execute(costOf(request), responseObserver, () -> queryLatencyHistory(request, responseObserver));
+    }
+
+    private void queryLatencyHistory(LatencyHistoryRequest request, StreamObserver<LatencyHistoryResponse> responseObserver) {
         Instant startTime = Instant.ofEpochSecond(request.getStartTime().getSeconds(), request.getStartTime().getNanos());
         Instant endTime = Instant.ofEpochSecond(request.getEndTime().getSeconds(), request.getEndTime().getNanos());
 
-        // Flux query to get historical latency data
-        String fluxQuery = String.format(
-                "from(bucket: \"%s\")\n" +
-                        "  |> range(start: %s, stop: %s)\n" +
-                        "  |> filter(fn: (r) => r._measurement == \"health_check\" and r.targetId == \"%s\" and r._field == \"latency_ms\")",
-                bucket, startTime, endTime, request.getTargetId()
-        );
+        try {
+            LatencyHistoryResponse.Builder responseBuilder = LatencyHistoryResponse.newBuilder().setTargetId(request.getTargetId());
+
+            LatencyDownsampler downsampler = LatencyDownsampler.create(request.getAggregation(), request.getMaxPoints(),
+                    startTime.toEpochMilli(), endTime.toEpochMilli(),
+                    (timestamp, latencyMs) -> responseBuilder.addHistory(toDataPoint(timestamp, latencyMs)));
 
-        log.info("Executing Latency Flux Query: {}", fluxQuery);
-        QueryApi queryApi = influxDBClient.getQueryApi();
+            readLatency(request.getTargetId(), startTime.toEpochMilli(), endTime.toEpochMilli(), request.getMaxPoints(),
+                    downsampler, () -> true);
+            downsampler.finish();
+
+            responseObserver.onNext(responseBuilder.build());
+            responseObserver.onCompleted();
+
+        } catch (Exception e) {
+            reportFailure(responseObserver, Status.INTERNAL.withDescription("Failed to query latency data"),
+                    "Error querying latency history for target ID: {}. Error: {}", request.getTargetId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void streamLatencyHistory(LatencyHistoryRequest request, StreamObserver<LatencyHistoryResponse> responseObserver) {
+        FlowControlledStream<LatencyHistoryResponse> stream =
+                new FlowControlledStream<>((ServerCallStreamObserver<LatencyHistoryResponse>) responseObserver);
+        // a stream holds its slot for as long as the client takes to read it
+        queryScheduler.execute(QueryCost.EXPENSIVE, responseObserver, () -> streamLatencyHistory(request, stream));
+    }
+
+    private void streamLatencyHistory(LatencyHistoryRequest request, FlowControlledStream<LatencyHistoryResponse> stream) {
+        Instant startTime = Instant.ofEpochSecond(request.getStartTime().getSeconds(), request.getStartTime().getNanos());
+        Instant endTime = Instant.ofEpochSecond(request.getEndTime().getSeconds(), request.getEndTime().getNanos());
+        LatencyHistoryResponse.Builder chunk = LatencyHistoryResponse.newBuilder().setTargetId(request.getTargetId());
 
         try {
-            LatencyHistoryResponse.Builder responseBuilder = LatencyHistoryResponse.newBuilder().setTargetId(request.getTargetId());
+            LatencyDownsampler downsampler = LatencyDownsampler.create(request.getAggregation(), request.getMaxPoints(),
+                    startTime.toEpochMilli(), endTime.toEpochMilli(),
+                    (timestamp, latencyMs) -> {
+                        chunk.addHistory(toDataPoint(timestamp, latencyMs));
+                        if (chunk.getHistoryCount() >= chunkSize) {
+                            sendChunk(stream, chunk);
+                        }
+                    });
+
+            // stopping the read also cancels the running storage query
+            readLatency(request.getTargetId(), startTime.toEpochMilli(), endTime.toEpochMilli(), request.getMaxPoints(),
+                    downsampler, () -> !stream.isCancelled());
+
+            if (stream.isCancelled()) {
+                log.info("Latency stream for target ID: {} cancelled by the client", request.getTargetId());
+                return;
+            }
+            downsampler.finish();
+            if (chunk.getHistoryCount() > 0) {
+                sendChunk(stream, chunk);
+            }
+            stream.complete();
+
+        } catch (Exception e) {
+            if (stream.isCancelled()) {
+                log.info("Latency stream for target ID: {} cancelled by the client", request.getTargetId());
+                return;
+            }
+            log.error("Error streaming latency history for target ID: {}. Error: {}", request.getTargetId(), e.getMessage());
+            stream.fail(Status.INTERNAL.withDescription("Failed to query latency data"));
+        }
+    }
+
+    @Override
+    public void getTargetsSummary(TargetsSummaryRequest request, StreamObserver<TargetsSummaryResponse> responseObserver) {
+        Set<String> targetIds = new LinkedHashSet<>(request.getTargetIdsList());
+        if (targetIds.size() > maxSummaryTargets) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("At most " + maxSummaryTargets + " targets per summary request")
+                    .asRuntimeException());
+            return;
+        }
+        // summaries are read raw, with one grouped query
+        QueryCost cost = costOf(toMillis(request.getStartTime()), toMillis(request.getEndTime()), 0L);
+        queryScheduler.execute(cost, responseObserver, () -> queryTargetsSummary(request, targetIds, responseObserver));
+    }
+
+    private void queryTargetsSummary(TargetsSummaryRequest request, Set<String> targetIds,
+                                     StreamObserver<TargetsSummaryResponse> responseObserver) {
+        Instant startTime = Instant.ofEpochSecond(request.getStartTime().getSeconds(), request.getStartTime().getNanos());
+        Instant endTime = Instant.ofEpochSecond(request.getEndTime().getSeconds(), request.getEndTime().getNanos());
+
+        try {
+            Map<String, SeriesSummary> summaries =
+                    timeSeriesReader.summarize(targetIds, startTime.toEpochMilli(), endTime.toEpochMilli());
+
+            TargetsSummaryResponse.Builder responseBuilder = TargetsSummaryResponse.newBuilder();
+            for (String targetId : targetIds) {
+                responseBuilder.addSummaries(toTargetSummary(targetId, summaries.get(targetId)));
+            }
+
+            responseObserver.onNext(responseBuilder.build());
+            responseObserver.onCompleted();
+
+        } catch (Exception e) {
+            reportFailure(responseObserver, Status.INTERNAL.withDescription("Failed to query target summaries"),
+                    "Error querying summary for {} targets. Error: {}", targetIds.size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void getLatencyPercentiles(LatencyPercentilesRequest request, StreamObserver<LatencyPercentilesResponse> responseObserver) {
+        long startMillis = toMillis(request.getStartTime());
+        long endMillis = toMillis(request.getEndTime());
+        long intervalMillis = Math.max(0L, request.getIntervalSeconds()) * 1000L;
+        long intervalCount = intervalMillis > 0 && endMillis > startMillis ? Math.ceilDiv(endMillis - startMillis, intervalMillis) : 0;
+        if (intervalCount > maxPercentileIntervals) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("At most " + maxPercentileIntervals + " intervals per percentile request")
+                    .asRuntimeException());
+            return;
+        }
+        // a rollup window counts towards the interval it starts in, so none may be wider than an interval
+        long maxWindowMillis = intervalCount == 0 ? Long.MAX_VALUE : intervalMillis;
+        queryScheduler.execute(costOf(startMillis, endMillis, maxWindowMillis), responseObserver,
+                () -> queryLatencyPercentiles(request, startMillis, endMillis, intervalMillis, (int) intervalCount,
+                        maxWindowMillis, responseObserver));
+    }
 
-            queryApi.query(fluxQuery, organization, (cancellable, record) -> {
-                Instant timestamp = record.getTime();
-                Long latency = (Long) record.getValue();
+    private void queryLatencyPercentiles(LatencyPercentilesRequest request, long startMillis, long endMillis,
+                                         long intervalMillis, int intervalCount, long maxWindowMillis,
+                                         StreamObserver<LatencyPercentilesResponse> responseObserver) {
+        try {
+            LatencySketch overall = new LatencySketch();
+            LatencySketch[] intervals = new LatencySketch[intervalCount];
+            for (int i = 0; i < intervals.length; i++) {
+                intervals[i] = new LatencySketch();
+            }
+            latencySketchReader.read(request.getTargetId(), startMillis, endMillis, maxWindowMillis, timestamp -> intervals.length == 0
+                    ? overall
+                    : intervals[(int) Math.min(intervals.length - 1, Math.max(0L, (timestamp - startMillis) / intervalMillis))]);
 
-                if (timestamp != null && latency != null) {
-                    responseBuilder.addHistory(LatencyDataPoint.newBuilder()
-                            .setTimestamp(Timestamp.newBuilder().setSeconds(timestamp.getEpochSecond()).setNanos(timestamp.getNano()).build())
-                            .setLatencyMs(latency)
-                            .build());
-                }
-            });
+            LatencyPercentilesResponse.Builder responseBuilder = LatencyPercentilesResponse.newBuilder().setTargetId(request.getTargetId());
+            for (int i = 0; i < intervals.length; i++) {
+                overall.merge(intervals[i]);
+                responseBuilder.addIntervals(toPercentiles(startMillis + i * intervalMillis, intervals[i]));
+            }
+            responseBuilder.setOverall(toPercentiles(startMillis, overall));
 
             responseObserver.onNext(responseBuilder.build());
             responseObserver.onCompleted();
 
         } catch (Exception e) {
-            log.error("Error querying InfluxDB for latency history: {}", e.getMessage());
-            responseObserver.onError(Status.INTERNAL.withDescription("Failed to query latency data").asRuntimeException());
+            reportFailure(responseObserver, Status.INTERNAL.withDescription("Failed to query latency percentiles"),
+                    "Error querying latency percentiles for target ID: {}. Error: {}", request.getTargetId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void subscribeTargetStatus(TargetStatusRequest request, StreamObserver<TargetStatusUpdate> responseObserver) {
+        Set<String> targetIds = new LinkedHashSet<>(request.getTargetIdsList());
+        if (targetIds.isEmpty() || targetIds.size() > maxLiveTargets) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Between 1 and " + maxLiveTargets + " targets per subscription")
+                    .asRuntimeException());
+            return;
+        }
+        // served from the in-memory feed, so it takes no query slot
+        targetStatusHub.subscribe(targetIds, request.getChangesOnly(),
+                (ServerCallStreamObserver<TargetStatusUpdate>) responseObserver);
+    }
+
+    @Override
+    public void exportHistory(ExportHistoryRequest request, StreamObserver<ExportChunk> responseObserver) {
+        Set<String> targetIds = new LinkedHashSet<>(request.getTargetIdsList());
+        if (targetIds.isEmpty() || targetIds.size() > maxExportTargets) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Between 1 and " + maxExportTargets + " targets per export")
+                    .asRuntimeException());
+            return;
+        }
+        FlowControlledStream<ExportChunk> stream =
+                new FlowControlledStream<>((ServerCallStreamObserver<ExportChunk>) responseObserver);
+        queryScheduler.execute(QueryCost.EXPENSIVE, responseObserver, () -> exportHistory(request, targetIds, stream));
+    }
+
+    private void exportHistory(ExportHistoryRequest request, Set<String> targetIds, FlowControlledStream<ExportChunk> stream) {
+        try {
+            // chunks go out while the scan is running; a slow client pauses the scan instead of piling up chunks
+            ExportChunkEncoder encoder = new ExportChunkEncoder(request.getFormat(), exportChunkSize,
+                    chunk -> send(stream, chunk), () -> !stream.isCancelled());
+            timeSeriesReader.scanAll(targetIds, toMillis(request.getStartTime()), toMillis(request.getEndTime()), encoder);
+
+            if (stream.isCancelled()) {
+                log.info("Export of {} targets cancelled by the client", targetIds.size());
+                return;
+            }
+            encoder.finish();
+            stream.complete();
+
+        } catch (Exception e) {
+            if (stream.isCancelled()) {
+                log.info("Export of {} targets cancelled by the client", targetIds.size());
+                return;
+            }
+            log.error("Error exporting history of {} targets. Error: {}", targetIds.size(), e.getMessage());
+            stream.fail(Status.INTERNAL.withDescription("Failed to export history"));
         }
     }
-}
\ No newline at end of file
+
+    private static LatencyPercentiles toPercentiles(long startMillis, LatencySketch sketch) {
+        return LatencyPercentiles.newBuilder()
+                .setStartTime(toTimestamp(startMillis))
+                .setCount(sketch.getCount())
+                .setP50Ms(sketch.valueAtQuantile(0.50))
+                .setP90Ms(sketch.valueAtQuantile(0.90))
+                .setP95Ms(sketch.valueAtQuantile(0.95))
+                .setP99Ms(sketch.valueAtQuantile(0.99))
+                .setMaxMs(sketch.getMax())
+                .build();
+    }
+
+    private static TargetSummary toTargetSummary(String targetId, SeriesSummary summary) {
+        TargetSummary.Builder builder = TargetSummary.newBuilder().setTargetId(targetId);
+        if (summary == null) {
+            return builder.setLastLatencyMs(TimeSeriesWriter.NO_LATENCY).build();
+        }
+        double uptime = summary.uptime();
+        builder.setUptimePercentage(Double.isNaN(uptime) ? 0.0 : uptime * 100.0)
+                .setCheckCount(summary.getCount())
+                .setLastLatencyMs(summary.getLastLatencyMs());
+        if (summary.hasLast()) {
+            builder.setLastCheckTime(toTimestamp(summary.getLastTimestamp()))
+                    .setLastUp(summary.isLastUp())
+                    .setLastStatusCode(summary.getLastStatusCode());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Uptime from the rollup counts where the planner finds them, and raw samples for the rest.
+     */
+    private double readUptime(String targetId, long startMillis, long endMillis) {
+        SeriesSummary summary = new SeriesSummary();
+        for (QuerySegment segment : queryPlanner.plan(startMillis, endMillis, Long.MAX_VALUE)) {
+            if (segment.isRaw()) {
+                timeSeriesReader.scan(targetId, segment.startMillis(), segment.endMillis(), summary);
+            } else {
+                timeSeriesReader.scanRollups(targetId, segment.resolution(), segment.startMillis(), segment.endMillis(), rollup -> {
+                    summary.addCounts(rollup.getCount(), rollup.getUpCount());
+                    return true;
+                });
+            }
+        }
+        return summary.uptime();
+    }
+
+    /**
+     * Feeds the range to the downsampler, reading rollup windows no wider than one output point where the
+     * planner finds them. Stops as soon as {@code keepGoing} turns false.
+     */
+    private void readLatency(String targetId, long startMillis, long endMillis, int maxPoints,
+                             LatencyDownsampler downsampler, BooleanSupplier keepGoing) {
+        for (QuerySegment segment : queryPlanner.plan(startMillis, endMillis, latencyWindowMillis(startMillis, endMillis, maxPoints))) {
+            if (!keepGoing.getAsBoolean()) {
+                return;
+            }
+            if (segment.isRaw()) {
+                timeSeriesReader.scan(targetId, segment.startMillis(), segment.endMillis(), (timestamp, up, statusCode, latencyMs) -> {
+                    if (latencyMs != TimeSeriesWriter.NO_LATENCY) {
+                        downsampler.add(timestamp, latencyMs);
+                    }
+                    return keepGoing.getAsBoolean();
+                });
+            } else {
+                timeSeriesReader.scanRollups(targetId, segment.resolution(), segment.startMillis(), segment.endMillis(), rollup -> {
+                    if (rollup.getLatencyCount() > 0) {
+                        downsampler.addAggregate(rollup.getWindowStart(), rollup.getLatencyCount(),
+                                rollup.getLatencySum(), rollup.getLatencyMax());
+                    }
+                    return keepGoing.getAsBoolean();
+                });
+            }
+        }
+    }
+
+    /**
+     * Widest rollup window that still fits within one output point of a latency history.
+     */
+    private static long latencyWindowMillis(long startMillis, long endMillis, int maxPoints) {
+        return maxPoints > 0 ? (endMillis - startMillis) / maxPoints : 0L;
+    }
+
+    private QueryCost costOf(LatencyHistoryRequest request) {
+        long startMillis = toMillis(request.getStartTime());
+        long endMillis = toMillis(request.getEndTime());
+        return costOf(startMillis, endMillis, latencyWindowMillis(startMillis, endMillis, request.getMaxPoints()));
+    }
+
+    /**
+     * Rollup reads are bounded by the number of windows, so a query counts as expensive by how much of its range
+     * the planner has to read raw.
+     */
+    private QueryCost costOf(long startMillis, long endMillis, long maxWindowMillis) {
+        long rawMillis = 0;
+        for (QuerySegment segment : queryPlanner.plan(startMillis, endMillis, maxWindowMillis)) {
+            if (segment.isRaw()) {
+                rawMillis += segment.endMillis() - segment.startMillis();
+            }
+        }
+        return rawMillis > cheapMaxRawMillis ? QueryCost.EXPENSIVE : QueryCost.CHEAP;
+    }
+
+    /**
+     * Logs and reports a failed query, unless the call was cancelled or ran past its deadline: that is what
+     * interrupted the query, and there is nobody left to answer.
+     */
+    private static void reportFailure(StreamObserver<?> responseObserver, Status status, String message, Object... args) {
+        if (Context.current().isCancelled()) {
+            log.debug("Query abandoned: {}", Context.current().cancellationCause());
+            return;
+        }
+        log.error(message, args);
+        responseObserver.onError(status.asRuntimeException());
+    }
+
+    private static long toMillis(Timestamp timestamp) {
+        return Instant.ofEpochSecond(timestamp.getSeconds(), timestamp.getNanos()).toEpochMilli();
+    }
+
+    private static void sendChunk(FlowControlledStream<LatencyHistoryResponse> stream, LatencyHistoryResponse.Builder chunk) {
+        send(stream, chunk.build());
+        chunk.clearHistory();
+    }
+
+    private static <T> void send(FlowControlledStream<T> stream, T message) {
+        try {
+            stream.send(message);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the client", e);
+        }
+    }
+
+    private static LatencyDataPoint toDataPoint(long timestampMillis, long latencyMs) {
+        return LatencyDataPoint.newBuilder()
+                .setTimestamp(toTimestamp(timestampMillis))
+                .setLatencyMs(latencyMs)
+                .build();
+    }
+
+    private static Timestamp toTimestamp(long timestampMillis) {
+        return Timestamp.newBuilder()
+                .setSeconds(Math.floorDiv(timestampMillis, 1000L))
+                .setNanos((int) Math.floorMod(timestampMillis, 1000L) * 1_000_000)
+                .build();
+    }
+}
@@ -0,0 +1,75 @@
+package pr.analytics.service;
+
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lets a worker thread push messages to a server stream without outrunning the client.
+ * <p>
+ * {@link #send(Object)} blocks while the transport is not ready and resumes from gRPC's on-ready callback.
+ * Because that callback runs on the call's own executor, sending must happen on a different thread than the
+ * one that invoked the service method. Cancellation by the client, or its deadline expiring, is reported through
+ * {@link #isCancelled()} so the producer can stop its query. Waiting uses a {@link ReentrantLock} rather than a
+ * monitor so a producer on a virtual thread does not pin its carrier while the client is slow.
+ */
+final class FlowControlledStream<T> {
+
+    private final ServerCallStreamObserver<T> observer;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition ready = lock.newCondition();
+    private volatile boolean cancelled;
+
+    FlowControlledStream(ServerCallStreamObserver<T> observer) {
+        this.observer = observer;
+        observer.setOnReadyHandler(this::wakeUp);
+        observer.setOnCancelHandler(() -> {
+            cancelled = true;
+            wakeUp();
+        });
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Sends the message once the client can take it; drops it if the call was cancelled meanwhile.
+     */
+    void send(T message) throws InterruptedException {
+        lock.lock();
+        try {
+            while (!cancelled && !observer.isReady()) {
+                ready.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (!cancelled) {
+            observer.onNext(message);
+        }
+    }
+
+    void complete() {
+        if (!cancelled) {
+            observer.onCompleted();
+        }
+    }
+
+    void fail(Status status) {
+        if (!cancelled) {
+            observer.onError(status.asRuntimeException());
+        }
+    }
+
+    private void wakeUp() {
+        lock.lock();
+        try {
+            ready.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package pr.analytics.service;
+
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Moves analytics queries off the gRPC executor onto virtual threads, with admission control per cost class.
+ * <p>
+ * Cheap and expensive queries have separate lanes. Each lane runs a fixed number of queries at once and lets a
+ * bounded number wait for a slot; requests beyond that are refused with {@code RESOURCE_EXHAUSTED} straight away,
+ * so a burst of expensive queries queues among itself and never takes the slots that keep cheap ones fast.
+ * <p>
+ * A query runs in its call's gRPC context. It waits for a slot at most until the call's deadline, and once the
+ * client cancels or the deadline passes, its thread is interrupted. The storage read does not rely on that
+ * interrupt: the Influx reader watches the same context and closes its HTTP response, which cancels the query on
+ * the server as well.
+ */
+@Slf4j
+@Component
+public class QueryScheduler {
+
+    public enum QueryCost {
+        CHEAP,
+        EXPENSIVE
+    }
+
+    private final ExecutorService executor;
+    private final Lane[] lanes;
+
+    @Autowired
+    public QueryScheduler(ExecutorService analyticsQueryExecutor,
+                          @Value("${analytics.query.cheap.concurrency:32}") int cheapConcurrency,
+                          @Value("${analytics.query.cheap.queue:256}") int cheapQueue,
+                          @Value("${analytics.query.expensive.concurrency:8}") int expensiveConcurrency,
+                          @Value("${analytics.query.expensive.queue:32}") int expensiveQueue) {
+        this.executor = analyticsQueryExecutor;
+        this.lanes = new Lane[]{new Lane(cheapConcurrency, cheapQueue), new Lane(expensiveConcurrency, expensiveQueue)};
+    }
+
+    /**
+     * Runs the query in the background, or answers the call with {@code RESOURCE_EXHAUSTED} if its lane is full.
+     * The query is responsible for completing the call.
+     */
+    public void execute(QueryCost cost, StreamObserver<?> responseObserver, Runnable query) {
+        Lane lane = lanes[cost.ordinal()];
+        if (!lane.enter()) {
+            log.warn("Rejecting {} query; {} are already running or waiting", cost, lane.maxInFlight);
+            responseObserver.onError(Status.RESOURCE_EXHAUSTED.withDescription("Too many concurrent queries").asRuntimeException());
+            return;
+        }
+        Context context = Context.current();
+        try {
+            executor.execute(context.wrap(() -> run(cost, lane, context, responseObserver, query)));
+        } catch (RejectedExecutionException e) {
+            lane.leave();
+            responseObserver.onError(Status.UNAVAILABLE.withDescription("Shutting down").asRuntimeException());
+        }
+    }
+
+    private void run(QueryCost cost, Lane lane, Context context, StreamObserver<?> responseObserver, Runnable query) {
+        Thread worker = Thread.currentThread();
+        // also fires right away if the call was cancelled before the query got here
+        Context.CancellationListener interrupt = cancelled -> worker.interrupt();
+        context.addListener(interrupt, Runnable::run);
+        try {
+            if (!lane.acquire(context.getDeadline())) {
+                log.warn("{} query timed out waiting for a slot", cost);
+                responseObserver.onError(Status.DEADLINE_EXCEEDED.withDescription("Timed out waiting for a query slot").asRuntimeException());
+                return;
+            }
+            try {
+                query.run();
+            } finally {
+                lane.release();
+            }
+        } catch (InterruptedException e) {
+            log.debug("{} query cancelled before it started", cost);
+        } finally {
+            context.removeListener(interrupt);
+            lane.leave();
+        }
+    }
+
+    private static final class Lane {
+        final Semaphore slots;
+        final int maxInFlight;
+        final AtomicInteger inFlight = new AtomicInteger();
+
+        Lane(int concurrency, int queueSize) {
+            this.slots = new Semaphore(concurrency, true);
+            this.maxInFlight = concurrency + queueSize;
+        }
+
+        boolean enter() {
+            if (inFlight.incrementAndGet() > maxInFlight) {
+                inFlight.decrementAndGet();
+                return false;
+            }
+            return true;
+        }
+
+        boolean acquire(Deadline deadline) throws InterruptedException {
+            if (deadline == null) {
+                slots.acquire();
+                return true;
+            }
+            return slots.tryAcquire(deadline.timeRemaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        }
+
+        void release() {
+            slots.release();
+        }
+
+        void leave() {
+            inFlight.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package pr.analytics.sketch;
+
+import pr.pulsesynapse.storage.rollup.LatencyHistogram;
+import pr.pulsesynapse.storage.rollup.Rollup;
+
+/**
+ * Latency distribution of one target over some stretch of time, built from raw samples and rollup windows alike.
+ * Quantiles carry the {@link LatencyHistogram#RELATIVE_ACCURACY relative error} of the histogram; the maximum is
+ * exact.
+ */
+public class LatencySketch {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private long max;
+
+    public void record(long latencyMs) {
+        histogram.record(latencyMs);
+        max = Math.max(max, latencyMs);
+    }
+
+    public void merge(Rollup rollup) {
+        if (rollup.getLatencyCount() == 0 || rollup.getHistogram() == null) {
+            return;
+        }
+        histogram.merge(rollup.getHistogram());
+        max = Math.max(max, rollup.getLatencyMax());
+    }
+
+    public void merge(LatencySketch other) {
+        histogram.merge(other.histogram);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return histogram.getTotalCount();
+    }
+
+    /**
+     * Returns the latency at the given quantile, or {@code 0} when nothing was recorded.
+     */
+    public long valueAtQuantile(double quantile) {
+        return histogram.valueAtQuantile(quantile);
+    }
+
+    public long getMax() {
+        return max;
+    }
+}
@@ -0,0 +1,47 @@
+package pr.analytics.sketch;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import pr.analytics.query.QueryPlanner;
+import pr.analytics.query.QuerySegment;
+import pr.pulsesynapse.storage.TimeSeriesReader;
+import pr.pulsesynapse.storage.TimeSeriesWriter;
+
+import java.util.function.LongFunction;
+
+/**
+ * Builds latency sketches for a range by merging the histograms of the rollup windows chosen by the
+ * {@link QueryPlanner}, plus the raw samples it leaves at the edges.
+ */
+@Component
+@RequiredArgsConstructor
+public class LatencySketchReader {
+
+    private final TimeSeriesReader timeSeriesReader;
+    private final QueryPlanner queryPlanner;
+
+    /**
+     * Records the latencies of the range into the sketches returned by {@code sketchAt}, which is called with the
+     * timestamp of each raw sample and the start of each rollup window.
+     *
+     * @param maxWindowMillis widest rollup window whose histogram may be attributed to a single sketch
+     */
+    public void read(String targetId, long startMillis, long endMillis, long maxWindowMillis,
+                     LongFunction<LatencySketch> sketchAt) {
+        for (QuerySegment segment : queryPlanner.plan(startMillis, endMillis, maxWindowMillis)) {
+            if (segment.isRaw()) {
+                timeSeriesReader.scan(targetId, segment.startMillis(), segment.endMillis(), (timestamp, up, statusCode, latencyMs) -> {
+                    if (latencyMs != TimeSeriesWriter.NO_LATENCY) {
+                        sketchAt.apply(timestamp).record(latencyMs);
+                    }
+                    return true;
+                });
+            } else {
+                timeSeriesReader.scanRollups(targetId, segment.resolution(), segment.startMillis(), segment.endMillis(), rollup -> {
+                    sketchAt.apply(rollup.getWindowStart()).merge(rollup);
+                    return true;
+                });
+            }
+        }
+    }
+}
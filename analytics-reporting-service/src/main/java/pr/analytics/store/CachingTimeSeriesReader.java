@@ -0,0 +1,232 @@
+package pr.analytics.store;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import pr.pulsesynapse.storage.RollupVisitor;
+import pr.pulsesynapse.storage.SampleVisitor;
+import pr.pulsesynapse.storage.SeriesSummary;
+import pr.pulsesynapse.storage.TargetSampleVisitor;
+import pr.pulsesynapse.storage.TimeSeriesReader;
+import pr.pulsesynapse.storage.rollup.RollupResolution;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches the samples of closed time buckets in front of the configured storage backend.
+ * <p>
+ * Ranges are split into buckets aligned to {@code bucket.ms}. A bucket counts as closed once it ended at least
+ * {@code settle.ms} ago, after which late writes are no longer expected; closed buckets are loaded once, with
+ * neighbouring misses fetched in a single backend query, and then served from memory. Only the open head of a
+ * range is read live. The cache is bounded by the total number of samples and evicts with Caffeine's
+ * frequency-aware policy, so one wide ad-hoc query does not flush the buckets of frequently polled dashboards.
+ * <p>
+ * Batch summaries never load buckets one target at a time: targets whose closed range is fully cached are
+ * summarized from memory plus one grouped query for their open heads, all others with one grouped query.
+ * Rollup scans go straight to the backend: they are already small. So do bulk scans, which read each bucket once
+ * and would only push the dashboards' buckets out.
+ */
+@Primary
+@Component
+public class CachingTimeSeriesReader implements TimeSeriesReader {
+
+    private static final int MAX_BUCKETS_PER_LOAD = 24;
+
+    private final TimeSeriesReader delegate;
+    private final long bucketMillis;
+    private final long settleMillis;
+    private final LongSupplier clock;
+    private final Cache<BucketKey, SampleBlock> cache;
+
+    @Autowired
+    public CachingTimeSeriesReader(TimeSeriesReader delegate,
+                                   @Value("${analytics.cache.bucket.ms:3600000}") long bucketMillis,
+                                   @Value("${analytics.cache.settle.ms:300000}") long settleMillis,
+                                   @Value("${analytics.cache.max-samples:5000000}") long maxSamples) {
+        this(delegate, bucketMillis, settleMillis, maxSamples, System::currentTimeMillis);
+    }
+
+    CachingTimeSeriesReader(TimeSeriesReader delegate, long bucketMillis, long settleMillis, long maxSamples,
+                            LongSupplier clock) {
+        this.delegate = delegate;
+        this.bucketMillis = bucketMillis;
+        this.settleMillis = settleMillis;
+        this.clock = clock;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSamples)
+                .weigher((BucketKey key, SampleBlock block) -> Math.max(1, block.size()))
+                .build();
+    }
+
+    @Override
+    public void scan(String targetId, long startMillis, long endMillis, SampleVisitor visitor) {
+        if (startMillis >= endMillis) {
+            return;
+        }
+        long closedEnd = Math.min(endMillis, closedBefore());
+        if (startMillis < closedEnd
+                && !forEachClosedBucket(targetId, startMillis, closedEnd, (block, from, to) -> block.visit(from, to, visitor))) {
+            return;
+        }
+        long liveStart = Math.max(startMillis, closedEnd);
+        if (liveStart < endMillis) {
+            delegate.scan(targetId, liveStart, endMillis, visitor);
+        }
+    }
+
+    @Override
+    public void scanAll(Collection<String> targetIds, long startMillis, long endMillis, TargetSampleVisitor visitor) {
+        delegate.scanAll(targetIds, startMillis, endMillis, visitor);
+    }
+
+    @Override
+    public void scanRollups(String targetId, RollupResolution resolution, long startMillis, long endMillis,
+                            RollupVisitor visitor) {
+        delegate.scanRollups(targetId, resolution, startMillis, endMillis, visitor);
+    }
+
+    @Override
+    public double uptime(String targetId, long startMillis, long endMillis) {
+        if (startMillis >= endMillis) {
+            return Double.NaN;
+        }
+        long[] counts = new long[2];
+        long closedEnd = Math.min(endMillis, closedBefore());
+        if (startMillis < closedEnd) {
+            forEachClosedBucket(targetId, startMillis, closedEnd, (block, from, to) -> {
+                block.countUp(from, to, counts);
+                return true;
+            });
+        }
+        long liveStart = Math.max(startMillis, closedEnd);
+        if (liveStart < endMillis) {
+            delegate.scan(targetId, liveStart, endMillis, (timestamp, up, statusCode, latencyMs) -> {
+                counts[0]++;
+                if (up) {
+                    counts[1]++;
+                }
+                return true;
+            });
+        }
+        return counts[0] == 0 ? Double.NaN : (double) counts[1] / counts[0];
+    }
+
+    @Override
+    public Map<String, SeriesSummary> summarize(Collection<String> targetIds, long startMillis, long endMillis) {
+        Map<String, SeriesSummary> summaries = new LinkedHashMap<>();
+        for (String targetId : targetIds) {
+            summaries.putIfAbsent(targetId, new SeriesSummary());
+        }
+        if (startMillis >= endMillis) {
+            return summaries;
+        }
+
+        long closedEnd = Math.min(endMillis, closedBefore());
+        List<String> cached = new ArrayList<>();
+        List<String> uncached = new ArrayList<>();
+        for (String targetId : summaries.keySet()) {
+            (startMillis < closedEnd && isCached(targetId, startMillis, closedEnd) ? cached : uncached).add(targetId);
+        }
+
+        for (String targetId : cached) {
+            SeriesSummary summary = summaries.get(targetId);
+            forEachClosedBucket(targetId, startMillis, closedEnd, (block, from, to) -> block.visit(from, to, summary));
+        }
+        long liveStart = Math.max(startMillis, closedEnd);
+        if (!cached.isEmpty() && liveStart < endMillis) {
+            delegate.summarize(cached, liveStart, endMillis).forEach((targetId, live) -> summaries.get(targetId).merge(live));
+        }
+        if (!uncached.isEmpty()) {
+            delegate.summarize(uncached, startMillis, endMillis).forEach((targetId, summary) -> summaries.get(targetId).merge(summary));
+        }
+        return summaries;
+    }
+
+    private boolean isCached(String targetId, long startMillis, long endMillis) {
+        for (long bucket = Math.floorDiv(startMillis, bucketMillis) * bucketMillis; bucket < endMillis; bucket += bucketMillis) {
+            if (cache.getIfPresent(new BucketKey(targetId, bucket)) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Start of the earliest bucket that is not closed yet.
+     */
+    private long closedBefore() {
+        return Math.floorDiv(clock.getAsLong() - settleMillis, bucketMillis) * bucketMillis;
+    }
+
+    private boolean forEachClosedBucket(String targetId, long startMillis, long endMillis, BlockVisitor visitor) {
+        long bucket = Math.floorDiv(startMillis, bucketMillis) * bucketMillis;
+        while (bucket < endMillis) {
+            SampleBlock block = cache.getIfPresent(new BucketKey(targetId, bucket));
+            if (block != null) {
+                if (!visitor.visit(block, Math.max(startMillis, bucket), Math.min(endMillis, bucket + bucketMillis))) {
+                    return false;
+                }
+                bucket += bucketMillis;
+                continue;
+            }
+
+            // fetch the run of missing buckets with one backend query
+            int buckets = 1;
+            while (buckets < MAX_BUCKETS_PER_LOAD && bucket + buckets * bucketMillis < endMillis
+                    && cache.getIfPresent(new BucketKey(targetId, bucket + buckets * bucketMillis)) == null) {
+                buckets++;
+            }
+            SampleBlock[] loaded = load(targetId, bucket, buckets);
+            for (int i = 0; i < buckets; i++) {
+                long bucketStart = bucket + i * bucketMillis;
+                if (!visitor.visit(loaded[i], Math.max(startMillis, bucketStart), Math.min(endMillis, bucketStart + bucketMillis))) {
+                    return false;
+                }
+            }
+            bucket += buckets * bucketMillis;
+        }
+        return true;
+    }
+
+    /**
+     * Reads the given buckets from the backend and caches them. A bucket is cached only once the backend scan has
+     * returned normally: a scan that fails partway caches nothing, and a sample delivered after the scan returned
+     * is rejected rather than added to a block that may already be served to other queries.
+     */
+    private SampleBlock[] load(String targetId, long firstBucket, int buckets) {
+        SampleBlock[] blocks = new SampleBlock[buckets];
+        for (int i = 0; i < buckets; i++) {
+            blocks[i] = new SampleBlock(16);
+        }
+        boolean[] returned = new boolean[1];
+        delegate.scan(targetId, firstBucket, firstBucket + buckets * bucketMillis, (timestamp, up, statusCode, latencyMs) -> {
+            if (returned[0]) {
+                throw new IllegalStateException("Storage backend delivered a sample after its scan returned");
+            }
+            blocks[(int) ((timestamp - firstBucket) / bucketMillis)].add(timestamp, up, statusCode, latencyMs);
+            return true;
+        });
+        returned[0] = true;
+        for (int i = 0; i < buckets; i++) {
+            blocks[i] = blocks[i].trim();
+            cache.put(new BucketKey(targetId, firstBucket + i * bucketMillis), blocks[i]);
+        }
+        return blocks;
+    }
+
+    private record BucketKey(String targetId, long bucketStart) {
+    }
+
+    @FunctionalInterface
+    private interface BlockVisitor {
+        boolean visit(SampleBlock block, long fromMillis, long toMillis);
+    }
+}
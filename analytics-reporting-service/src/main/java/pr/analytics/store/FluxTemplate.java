@@ -0,0 +1,58 @@
+package pr.analytics.store;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * A fixed Flux query that reads its inputs from a {@code params} record, the way InfluxDB's parameterized queries
+ * do. {@link #render(Map)} prepends the record with every value encoded as a Flux literal, so values never end up
+ * spliced into the query text and the query itself stays the same for every call.
+ */
+final class FluxTemplate {
+
+    private static final Pattern PARAM_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    private final String query;
+
+    private FluxTemplate(String query) {
+        this.query = query;
+    }
+
+    static FluxTemplate of(String query) {
+        return new FluxTemplate(query);
+    }
+
+    String render(Map<String, ?> params) {
+        StringJoiner record = new StringJoiner(", ", "params = {", "}\n");
+        new TreeMap<>(params).forEach((name, value) -> {
+            if (!PARAM_NAME.matcher(name).matches()) {
+                throw new IllegalArgumentException("Invalid Flux parameter name: " + name);
+            }
+            record.add(name + ": " + literal(value));
+        });
+        return record + query;
+    }
+
+    static String literal(Object value) {
+        if (value instanceof String string) {
+            // only '${' starts an interpolation; a lone '$' is an ordinary character and has no escape
+            return "\"" + string.replace("\\", "\\\\").replace("\"", "\\\"").replace("${", "\\${") + "\"";
+        }
+        if (value instanceof Instant instant) {
+            return instant.toString();
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Boolean) {
+            return value.toString();
+        }
+        if (value instanceof Collection<?> values) {
+            StringJoiner array = new StringJoiner(", ", "[", "]");
+            values.forEach(element -> array.add(literal(element)));
+            return array.toString();
+        }
+        throw new IllegalArgumentException("Unsupported Flux parameter type: " + value);
+    }
+}
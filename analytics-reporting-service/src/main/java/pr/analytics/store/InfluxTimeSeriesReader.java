@@ -0,0 +1,308 @@
+package pr.analytics.store;
+
+import com.influxdb.client.InfluxDBClient;
+import com.influxdb.query.FluxRecord;
+import com.influxdb.query.FluxTable;
+import io.grpc.Context;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import pr.pulsesynapse.storage.RollupVisitor;
+import pr.pulsesynapse.storage.SampleVisitor;
+import pr.pulsesynapse.storage.SeriesSummary;
+import pr.pulsesynapse.storage.TargetSampleVisitor;
+import pr.pulsesynapse.storage.TimeSeriesReader;
+import pr.pulsesynapse.storage.TimeSeriesWriter;
+import pr.pulsesynapse.storage.rollup.LatencyHistogram;
+import pr.pulsesynapse.storage.rollup.Rollup;
+import pr.pulsesynapse.storage.rollup.RollupAccumulator;
+import pr.pulsesynapse.storage.rollup.RollupResolution;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * InfluxDB-backed {@link TimeSeriesReader} over the {@code health_check} measurement and the rollup measurements.
+ * Every query is a constant {@link FluxTemplate}; only the parameters change between calls.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "storage.type", havingValue = "influx", matchIfMissing = true)
+public class InfluxTimeSeriesReader implements TimeSeriesReader {
+
+    // one row per sample, or per window of a rollup measurement, with the fields as columns
+    static final FluxTemplate SCAN = FluxTemplate.of("""
+            from(bucket: params.bucket)
+              |> range(start: params.start, stop: params.stop)
+              |> filter(fn: (r) => r._measurement == params.measurement and r.targetId == params.targetId)
+              |> pivot(rowKey: ["_time"], columnKey: ["_field"], valueColumn: "_value")
+              |> sort(columns: ["_time"])""");
+
+    // like SCAN over a rollup measurement, with the partial points of all writers in one table so that the points
+    // of a window arrive next to each other
+    private static final FluxTemplate SCAN_ROLLUPS = FluxTemplate.of("""
+            from(bucket: params.bucket)
+              |> range(start: params.start, stop: params.stop)
+              |> filter(fn: (r) => r._measurement == params.measurement and r.targetId == params.targetId)
+              |> pivot(rowKey: ["_time"], columnKey: ["_field"], valueColumn: "_value")
+              |> group()
+              |> sort(columns: ["_time"])""");
+
+    // like SCAN for a batch of targets; every target is its own table, so its rows arrive together
+    private static final FluxTemplate SCAN_ALL = FluxTemplate.of("""
+            from(bucket: params.bucket)
+              |> range(start: params.start, stop: params.stop)
+              |> filter(fn: (r) => r._measurement == "health_check" and contains(value: r.targetId, set: params.targetIds))
+              |> pivot(rowKey: ["_time"], columnKey: ["_field"], valueColumn: "_value")
+              |> sort(columns: ["_time"])""");
+
+    // keeps the rendered query and the per-query server state of a bulk scan small
+    private static final int SCAN_ALL_BATCH_SIZE = 500;
+
+    // aggregate server-side instead of streaming every sample
+    private static final FluxTemplate UPTIME = FluxTemplate.of("""
+            from(bucket: params.bucket)
+              |> range(start: params.start, stop: params.stop)
+              |> filter(fn: (r) => r._measurement == "health_check" and r.targetId == params.targetId and r._field == "isUp")
+              |> toFloat()
+              |> mean()""");
+
+    // a single pass over the range, grouped by target: counts from the isUp field, plus the newest row
+    static final FluxTemplate SUMMARY = FluxTemplate.of("""
+            data = from(bucket: params.bucket)
+              |> range(start: params.start, stop: params.stop)
+              |> filter(fn: (r) => r._measurement == "health_check" and contains(value: r.targetId, set: params.targetIds))
+            data
+              |> filter(fn: (r) => r._field == "isUp")
+              |> group(columns: ["targetId"])
+              |> reduce(identity: {count: 0, upCount: 0}, fn: (r, accumulator) => ({count: accumulator.count + 1, upCount: accumulator.upCount + r._value}))
+              |> yield(name: "counts")
+            data
+              |> pivot(rowKey: ["_time"], columnKey: ["_field"], valueColumn: "_value")
+              |> group(columns: ["targetId"])
+              |> top(n: 1, columns: ["_time"])
+              |> yield(name: "last")""");
+
+    private final InfluxDBClient influxDBClient;
+
+    @Value("${influxdb.bucket}")
+    private String bucket;
+
+    @Value("${influxdb.org}")
+    private String organization;
+
+    @Override
+    public void scan(String targetId, long startMillis, long endMillis, SampleVisitor visitor) {
+        String fluxQuery = SCAN.render(Map.of(
+                "bucket", bucket,
+                "start", Instant.ofEpochMilli(startMillis),
+                "stop", Instant.ofEpochMilli(endMillis),
+                "measurement", "health_check",
+                "targetId", targetId));
+
+        log.info("Executing Scan Flux Query: {}", fluxQuery);
+        stream(fluxQuery, record -> {
+            Instant timestamp = record.getTime();
+            if (timestamp == null) {
+                return true;
+            }
+            boolean up = toLong(record.getValueByKey("isUp"), 0L) != 0L;
+            int statusCode = (int) toLong(record.getValueByKey("status_code"), 0L);
+            long latency = toLong(record.getValueByKey("latency_ms"), TimeSeriesWriter.NO_LATENCY);
+            return visitor.visit(timestamp.toEpochMilli(), up, statusCode, latency);
+        });
+    }
+
+    @Override
+    public void scanAll(Collection<String> targetIds, long startMillis, long endMillis, TargetSampleVisitor visitor) {
+        if (startMillis >= endMillis) {
+            return;
+        }
+        List<String> ids = new ArrayList<>(targetIds);
+        boolean[] stopped = new boolean[1];
+        for (int from = 0; from < ids.size() && !stopped[0]; from += SCAN_ALL_BATCH_SIZE) {
+            List<String> batch = ids.subList(from, Math.min(ids.size(), from + SCAN_ALL_BATCH_SIZE));
+            String fluxQuery = SCAN_ALL.render(Map.of(
+                    "bucket", bucket,
+                    "start", Instant.ofEpochMilli(startMillis),
+                    "stop", Instant.ofEpochMilli(endMillis),
+                    "targetIds", batch));
+
+            log.info("Executing Bulk Scan Flux Query for {} targets", batch.size());
+            stream(fluxQuery, record -> {
+                Instant timestamp = record.getTime();
+                if (timestamp == null) {
+                    return true;
+                }
+                boolean up = toLong(record.getValueByKey("isUp"), 0L) != 0L;
+                int statusCode = (int) toLong(record.getValueByKey("status_code"), 0L);
+                long latency = toLong(record.getValueByKey("latency_ms"), TimeSeriesWriter.NO_LATENCY);
+                stopped[0] = !visitor.visit(String.valueOf(record.getValueByKey("targetId")), timestamp.toEpochMilli(),
+                        up, statusCode, latency);
+                return !stopped[0];
+            });
+        }
+    }
+
+    @Override
+    public void scanRollups(String targetId, RollupResolution resolution, long startMillis, long endMillis,
+                            RollupVisitor visitor) {
+        // rollups are written by data-ingestion-service into one measurement per resolution, one point per writer
+        String fluxQuery = SCAN_ROLLUPS.render(Map.of(
+                "bucket", bucket,
+                "start", Instant.ofEpochMilli(startMillis),
+                "stop", Instant.ofEpochMilli(endMillis),
+                "measurement", resolution.getMeasurement(),
+                "targetId", targetId));
+
+        log.info("Executing Rollup Flux Query: {}", fluxQuery);
+        RollupAccumulator[] window = {null};
+        long[] windowStart = new long[1];
+        boolean[] stopped = new boolean[1];
+        stream(fluxQuery, record -> {
+            Instant time = record.getTime();
+            if (time == null) {
+                return true;
+            }
+            if (window[0] != null && windowStart[0] != time.toEpochMilli()) {
+                if (!visitor.visit(window[0].toRollup(targetId, resolution, windowStart[0]))) {
+                    stopped[0] = true;
+                    return false;
+                }
+                window[0] = null;
+            }
+            if (window[0] == null) {
+                window[0] = new RollupAccumulator();
+                windowStart[0] = time.toEpochMilli();
+            }
+            Object histogram = record.getValueByKey("latency_histogram");
+            window[0].merge(Rollup.builder()
+                    .count(toLong(record.getValueByKey("count"), 0L))
+                    .upCount(toLong(record.getValueByKey("up_count"), 0L))
+                    .latencyCount(toLong(record.getValueByKey("latency_count"), 0L))
+                    .latencySum(toLong(record.getValueByKey("latency_sum"), 0L))
+                    .latencyMin(toLong(record.getValueByKey("latency_min"), 0L))
+                    .latencyMax(toLong(record.getValueByKey("latency_max"), 0L))
+                    .histogram(histogram instanceof String encoded ? LatencyHistogram.decode(encoded) : null)
+                    .build());
+            return true;
+        });
+        if (window[0] != null && !stopped[0]) {
+            visitor.visit(window[0].toRollup(targetId, resolution, windowStart[0]));
+        }
+    }
+
+    @Override
+    public double uptime(String targetId, long startMillis, long endMillis) {
+        String fluxQuery = UPTIME.render(Map.of(
+                "bucket", bucket,
+                "start", Instant.ofEpochMilli(startMillis),
+                "stop", Instant.ofEpochMilli(endMillis),
+                "targetId", targetId));
+
+        log.info("Executing Uptime Flux Query: {}", fluxQuery);
+        List<FluxTable> tables = influxDBClient.getQueryApi().query(fluxQuery, organization);
+        if (tables.isEmpty() || tables.get(0).getRecords().isEmpty()) {
+            return Double.NaN;
+        }
+        FluxRecord record = tables.get(0).getRecords().get(0);
+        Object mean = record.getValue();
+        return mean instanceof Number number ? number.doubleValue() : Double.NaN;
+    }
+
+    @Override
+    public Map<String, SeriesSummary> summarize(Collection<String> targetIds, long startMillis, long endMillis) {
+        Map<String, SeriesSummary> summaries = new LinkedHashMap<>();
+        for (String targetId : targetIds) {
+            summaries.putIfAbsent(targetId, new SeriesSummary());
+        }
+        if (summaries.isEmpty() || startMillis >= endMillis) {
+            return summaries;
+        }
+
+        String fluxQuery = SUMMARY.render(Map.of(
+                "bucket", bucket,
+                "start", Instant.ofEpochMilli(startMillis),
+                "stop", Instant.ofEpochMilli(endMillis),
+                "targetIds", summaries.keySet()));
+
+        log.info("Executing Summary Flux Query for {} targets", summaries.size());
+        for (FluxTable table : influxDBClient.getQueryApi().query(fluxQuery, organization)) {
+            for (FluxRecord record : table.getRecords()) {
+                SeriesSummary summary = summaries.get(String.valueOf(record.getValueByKey("targetId")));
+                if (summary == null) {
+                    continue;
+                }
+                if ("counts".equals(record.getValueByKey("result"))) {
+                    summary.addCounts(toLong(record.getValueByKey("count"), 0L), toLong(record.getValueByKey("upCount"), 0L));
+                } else if (record.getTime() != null) {
+                    summary.updateLast(record.getTime().toEpochMilli(),
+                            toLong(record.getValueByKey("isUp"), 0L) != 0L,
+                            (int) toLong(record.getValueByKey("status_code"), 0L),
+                            toLong(record.getValueByKey("latency_ms"), TimeSeriesWriter.NO_LATENCY));
+                }
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * Runs the query and hands its records to the consumer on the calling thread as they are parsed, returning once
+     * the consumer has seen every record or returned {@code false}. A failed query throws. Leaving early closes the
+     * response, which cancels the rest of the query. So does cancelling the caller's gRPC context: the response is
+     * closed from the cancelling thread, and the scan throws {@code CANCELLED} rather than returning a partial result.
+     */
+    private void stream(String fluxQuery, Predicate<FluxRecord> consumer) {
+        Context context = Context.current();
+        try (Stream<FluxRecord> records = influxDBClient.getQueryApi().queryStream(fluxQuery, organization)) {
+            Context.CancellationListener cancel = cancelled -> records.close();
+            // also fires right away if the call was cancelled before the query got here
+            context.addListener(cancel, Runnable::run);
+            try {
+                Iterator<FluxRecord> iterator = records.iterator();
+                while (iterator.hasNext()) {
+                    if (!consumer.test(iterator.next())) {
+                        return;
+                    }
+                }
+            } catch (RuntimeException e) {
+                if (context.isCancelled()) {
+                    throw cancelled(context, e);
+                }
+                throw e;
+            } finally {
+                context.removeListener(cancel);
+            }
+            if (context.isCancelled()) {
+                throw cancelled(context, null);
+            }
+        }
+    }
+
+    private static StatusRuntimeException cancelled(Context context, Throwable failure) {
+        Throwable cause = context.cancellationCause() != null ? context.cancellationCause() : failure;
+        return Status.CANCELLED.withDescription("Query cancelled").withCause(cause).asRuntimeException();
+    }
+
+    private static long toLong(Object value, long defaultValue) {
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        if (value instanceof Boolean bool) {
+            return bool ? 1L : 0L;
+        }
+        return defaultValue;
+    }
+}
@@ -0,0 +1,102 @@
+package pr.analytics.store;
+
+import pr.pulsesynapse.storage.SampleVisitor;
+
+import java.util.Arrays;
+
+/**
+ * Immutable-once-cached run of samples in timestamp order, stored column-wise.
+ */
+final class SampleBlock {
+
+    static final SampleBlock EMPTY = new SampleBlock(0);
+
+    private long[] timestamps;
+    private long[] latencies;
+    private int[] statusCodes;
+    private boolean[] ups;
+    private int size;
+
+    SampleBlock(int capacity) {
+        timestamps = new long[capacity];
+        latencies = new long[capacity];
+        statusCodes = new int[capacity];
+        ups = new boolean[capacity];
+    }
+
+    void add(long timestamp, boolean up, int statusCode, long latencyMs) {
+        if (size == timestamps.length) {
+            int capacity = Math.max(16, size * 2);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            latencies = Arrays.copyOf(latencies, capacity);
+            statusCodes = Arrays.copyOf(statusCodes, capacity);
+            ups = Arrays.copyOf(ups, capacity);
+        }
+        timestamps[size] = timestamp;
+        ups[size] = up;
+        statusCodes[size] = statusCode;
+        latencies[size] = latencyMs;
+        size++;
+    }
+
+    /**
+     * Drops the spare capacity before the block goes into the cache.
+     */
+    SampleBlock trim() {
+        if (size == 0) {
+            return EMPTY;
+        }
+        if (size < timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, size);
+            latencies = Arrays.copyOf(latencies, size);
+            statusCodes = Arrays.copyOf(statusCodes, size);
+            ups = Arrays.copyOf(ups, size);
+        }
+        return this;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Visits the samples within {@code [startMillis, endMillis)}.
+     *
+     * @return {@code false} if the visitor stopped the scan
+     */
+    boolean visit(long startMillis, long endMillis, SampleVisitor visitor) {
+        int from = lowerBound(startMillis);
+        for (int i = from; i < size && timestamps[i] < endMillis; i++) {
+            if (!visitor.visit(timestamps[i], ups[i], statusCodes[i], latencies[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the sample and UP counts within {@code [startMillis, endMillis)} to {@code counts[0]} and {@code counts[1]}.
+     */
+    void countUp(long startMillis, long endMillis, long[] counts) {
+        for (int i = lowerBound(startMillis); i < size && timestamps[i] < endMillis; i++) {
+            counts[0]++;
+            if (ups[i]) {
+                counts[1]++;
+            }
+        }
+    }
+
+    private int lowerBound(long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,89 @@
+package pr.analytics.downsample;
+
+import org.junit.jupiter.api.Test;
+import pr.pulsesynapse.proto.LatencyAggregation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyDownsamplerTest {
+
+    private final List<long[]> points = new ArrayList<>();
+
+    @Test
+    void meanEmitsOnePointPerWindow() {
+        LatencyDownsampler downsampler = create(LatencyAggregation.LATENCY_AGGREGATION_MEAN, 10, 0, 1_000);
+        for (long t = 0; t < 1_000; t++) {
+            downsampler.add(t, t < 100 ? 10 : 20);
+        }
+        downsampler.finish();
+
+        assertEquals(10, points.size());
+        assertEquals(0, points.get(0)[0]);
+        assertEquals(10, points.get(0)[1]);
+        assertEquals(900, points.get(9)[0]);
+        assertEquals(20, points.get(9)[1]);
+    }
+
+    @Test
+    void maxKeepsTheSpikeWithItsTimestamp() {
+        LatencyDownsampler downsampler = create(LatencyAggregation.LATENCY_AGGREGATION_MAX, 4, 0, 1_000);
+        for (long t = 0; t < 1_000; t++) {
+            downsampler.add(t, t == 612 ? 5_000 : 30);
+        }
+        downsampler.finish();
+
+        assertEquals(4, points.size());
+        assertEquals(612, points.get(2)[0]);
+        assertEquals(5_000, points.get(2)[1]);
+    }
+
+    @Test
+    void meanWeighsAggregatesBySampleCount() {
+        LatencyDownsampler downsampler = create(LatencyAggregation.LATENCY_AGGREGATION_MEAN, 2, 0, 1_000);
+        downsampler.addAggregate(0, 90, 90 * 10, 15);
+        downsampler.add(250, 110);
+        downsampler.addAggregate(500, 3, 300, 400);
+        downsampler.finish();
+
+        assertEquals(2, points.size());
+        assertEquals(11, points.get(0)[1]);
+        assertEquals(100, points.get(1)[1]);
+    }
+
+    @Test
+    void lttbKeepsEndpointsAndSpikesWithinBudget() {
+        LatencyDownsampler downsampler = create(LatencyAggregation.LATENCY_AGGREGATION_LTTB, 52, 0, 100_000);
+        for (long t = 0; t < 100_000; t += 10) {
+            downsampler.add(t, t == 45_670 ? 9_000 : 40 + (t / 10) % 7);
+        }
+        downsampler.finish();
+
+        assertTrue(points.size() <= 52, "got " + points.size());
+        assertEquals(0, points.get(0)[0]);
+        assertEquals(99_990, points.get(points.size() - 1)[0]);
+        assertTrue(points.stream().anyMatch(point -> point[0] == 45_670 && point[1] == 9_000));
+        for (int i = 1; i < points.size(); i++) {
+            assertTrue(points.get(i)[0] > points.get(i - 1)[0]);
+        }
+    }
+
+    @Test
+    void passesEverySampleThroughWithoutLimit() {
+        LatencyDownsampler downsampler = create(LatencyAggregation.LATENCY_AGGREGATION_LTTB, 0, 0, 1_000);
+        for (long t = 0; t < 100; t++) {
+            downsampler.add(t, t);
+        }
+        downsampler.finish();
+
+        assertEquals(100, points.size());
+    }
+
+    private LatencyDownsampler create(LatencyAggregation aggregation, int maxPoints, long start, long end) {
+        return LatencyDownsampler.create(aggregation, maxPoints, start, end,
+                (timestamp, latencyMs) -> points.add(new long[]{timestamp, latencyMs}));
+    }
+}
@@ -0,0 +1,64 @@
+package pr.analytics.export;
+
+import org.junit.jupiter.api.Test;
+import pr.pulsesynapse.proto.ExportChunk;
+import pr.pulsesynapse.proto.ExportFormat;
+import pr.pulsesynapse.storage.TimeSeriesWriter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class ExportChunkEncoderTest {
+
+    private final List<ExportChunk> chunks = new ArrayList<>();
+
+    @Test
+    void splitsColumnarChunksByTargetAndSizeWithDeltaTimestamps() {
+        ExportChunkEncoder encoder = new ExportChunkEncoder(ExportFormat.EXPORT_FORMAT_COLUMNAR, 2, chunks::add, () -> true);
+        encoder.visit("target-1", 1_000, true, 200, 12);
+        encoder.visit("target-1", 61_000, false, 503, TimeSeriesWriter.NO_LATENCY);
+        encoder.visit("target-1", 121_000, true, 200, 15);
+        encoder.visit("target-2", 5_000, true, 204, 7);
+        encoder.finish();
+
+        assertEquals(3, chunks.size());
+        assertEquals("target-1", chunks.get(0).getTargetId());
+        assertEquals(List.of(1_000L, 60_000L), chunks.get(0).getTimestampDeltaMsList());
+        assertEquals(List.of(true, false), chunks.get(0).getUpList());
+        assertEquals(List.of(200, 503), chunks.get(0).getStatusCodeList());
+        assertEquals(List.of(12L, -1L), chunks.get(0).getLatencyMsList());
+        // every chunk restarts its deltas from the epoch
+        assertEquals(List.of(121_000L), chunks.get(1).getTimestampDeltaMsList());
+        assertEquals("target-2", chunks.get(2).getTargetId());
+        assertEquals(List.of(5_000L), chunks.get(2).getTimestampDeltaMsList());
+    }
+
+    @Test
+    void writesCsvThatConcatenatesIntoOneFile() {
+        ExportChunkEncoder encoder = new ExportChunkEncoder(ExportFormat.EXPORT_FORMAT_CSV, 2, chunks::add, () -> true);
+        encoder.visit("target-1", 1_000, true, 200, 12);
+        encoder.visit("target-1", 61_000, false, 503, TimeSeriesWriter.NO_LATENCY);
+        encoder.visit("a,\"b\"", 5_000, true, 204, 7);
+        encoder.finish();
+
+        StringBuilder file = new StringBuilder();
+        chunks.forEach(chunk -> file.append(chunk.getCsv().toStringUtf8()));
+        assertEquals("""
+                target_id,timestamp_ms,up,status_code,latency_ms
+                target-1,1000,1,200,12
+                target-1,61000,0,503,
+                "a,""b\""",5000,1,204,7
+                """, file.toString());
+        assertEquals(2, chunks.size());
+    }
+
+    @Test
+    void stopsTheScanWhenTheClientIsGone() {
+        ExportChunkEncoder encoder = new ExportChunkEncoder(ExportFormat.EXPORT_FORMAT_COLUMNAR, 10, chunks::add, () -> false);
+
+        assertFalse(encoder.visit("target-1", 1_000, true, 200, 12));
+    }
+}
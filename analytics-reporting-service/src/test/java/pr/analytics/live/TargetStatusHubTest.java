@@ -0,0 +1,174 @@
+package pr.analytics.live;
+
+import io.grpc.stub.ServerCallStreamObserver;
+import org.junit.jupiter.api.Test;
+import pr.analytics.dto.CheckResult;
+import pr.pulsesynapse.proto.TargetStatusUpdate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TargetStatusHubTest {
+
+    private final TargetStatusHub hub = new TargetStatusHub();
+
+    @Test
+    void conflatesResultsPerTargetWhileTheClientIsNotReading() {
+        RecordingObserver client = new RecordingObserver();
+        hub.subscribe(List.of("target-1", "target-2"), false, client);
+        client.ready = false;
+
+        hub.publish(result("target-1", 1, true));
+        hub.publish(result("target-2", 2, true));
+        hub.publish(result("target-1", 3, false));
+        hub.publish(result("target-1", 4, true));
+        client.becomeReady();
+
+        assertEquals(2, client.updates.size());
+        TargetStatusUpdate first = client.updates.get(0);
+        assertEquals("target-1", first.getTargetId());
+        assertEquals(4_000L, first.getCheckTime().getSeconds());
+        assertTrue(first.getUp());
+        assertTrue(first.getStateChanged());
+        assertEquals(2, first.getSkipped());
+        assertEquals("target-2", client.updates.get(1).getTargetId());
+        assertEquals(0, client.updates.get(1).getSkipped());
+    }
+
+    @Test
+    void startsWithTheLatestResultAndThenPushesOnlyChangesWhenAsked() {
+        hub.publish(result("target-1", 1, true));
+        RecordingObserver client = new RecordingObserver();
+        hub.subscribe(List.of("target-1"), true, client);
+
+        hub.publish(result("target-1", 2, true));
+        hub.publish(result("target-1", 3, false));
+        // a redelivery of an older result
+        hub.publish(result("target-1", 2, true));
+
+        assertEquals(2, client.updates.size());
+        assertTrue(client.updates.get(0).getUp());
+        assertFalse(client.updates.get(0).getStateChanged());
+        assertFalse(client.updates.get(1).getUp());
+        assertTrue(client.updates.get(1).getStateChanged());
+        assertEquals(1, client.updates.get(1).getSkipped());
+    }
+
+    @Test
+    void countsResultsWithoutAChangeInTheNextUpdateWhenOnlyChangesAreAsked() {
+        RecordingObserver client = new RecordingObserver();
+        hub.subscribe(List.of("target-1"), true, client);
+        hub.publish(result("target-1", 1, true));
+        hub.publish(result("target-1", 2, false));
+        client.ready = false;
+
+        hub.publish(result("target-1", 3, false));
+        hub.publish(result("target-1", 4, true));
+        hub.publish(result("target-1", 5, true));
+        hub.publish(result("target-1", 6, false));
+        client.becomeReady();
+
+        assertEquals(2, client.updates.size());
+        assertEquals(1, client.updates.get(0).getSkipped());
+        // 3 and 5 left out for not changing the state, 4 replaced while the client was not reading
+        TargetStatusUpdate second = client.updates.get(1);
+        assertFalse(second.getUp());
+        assertEquals(6_000L, second.getCheckTime().getSeconds());
+        assertTrue(second.getStateChanged());
+        assertEquals(3, second.getSkipped());
+    }
+
+    @Test
+    void stopsPushingOnceTheClientCancels() {
+        RecordingObserver client = new RecordingObserver();
+        hub.subscribe(List.of("target-1"), false, client);
+        hub.publish(result("target-1", 1, true));
+
+        client.cancel();
+        hub.publish(result("target-1", 2, true));
+
+        assertEquals(1, client.updates.size());
+    }
+
+    private static CheckResult result(String targetId, long second, boolean up) {
+        return CheckResult.builder()
+                .targetId(targetId)
+                .timestamp(Instant.ofEpochSecond(second * 1000L))
+                .isUp(up)
+                .statusCode(up ? 200 : 503)
+                .latencyMs(up ? 42L : null)
+                .build();
+    }
+
+    private static final class RecordingObserver extends ServerCallStreamObserver<TargetStatusUpdate> {
+        final List<TargetStatusUpdate> updates = new ArrayList<>();
+        boolean ready = true;
+        boolean cancelled;
+        Runnable onReady;
+        Runnable onCancel;
+
+        void becomeReady() {
+            ready = true;
+            onReady.run();
+        }
+
+        void cancel() {
+            cancelled = true;
+            onCancel.run();
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void setOnCancelHandler(Runnable onCancelHandler) {
+            onCancel = onCancelHandler;
+        }
+
+        @Override
+        public void setCompression(String compression) {
+        }
+
+        @Override
+        public boolean isReady() {
+            return ready;
+        }
+
+        @Override
+        public void setOnReadyHandler(Runnable onReadyHandler) {
+            onReady = onReadyHandler;
+        }
+
+        @Override
+        public void disableAutoInboundFlowControl() {
+        }
+
+        @Override
+        public void request(int count) {
+        }
+
+        @Override
+        public void setMessageCompression(boolean enable) {
+        }
+
+        @Override
+        public void onNext(TargetStatusUpdate value) {
+            updates.add(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    }
+}
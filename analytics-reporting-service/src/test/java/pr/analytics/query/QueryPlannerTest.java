@@ -0,0 +1,48 @@
+package pr.analytics.query;
+
+import org.junit.jupiter.api.Test;
+import pr.pulsesynapse.storage.rollup.RollupResolution;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QueryPlannerTest {
+
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+    private static final long NOW = 10 * DAY + 5 * HOUR + 30 * MINUTE + 20_000L;
+
+    private final QueryPlanner planner = new QueryPlanner(MINUTE, () -> NOW);
+
+    @Test
+    void stitchesCoarseMiddleWithFinerEdges() {
+        long start = 2 * DAY - 3 * HOUR - 2 * MINUTE - 5_000L;
+        long end = 5 * DAY + 2 * HOUR + 4 * MINUTE + 7_000L;
+
+        assertEquals(List.of(
+                new QuerySegment(null, start, 2 * DAY - 3 * HOUR - 2 * MINUTE),
+                new QuerySegment(RollupResolution.MINUTE, 2 * DAY - 3 * HOUR - 2 * MINUTE, 2 * DAY - 3 * HOUR),
+                new QuerySegment(RollupResolution.HOUR, 2 * DAY - 3 * HOUR, 2 * DAY),
+                new QuerySegment(RollupResolution.DAY, 2 * DAY, 5 * DAY),
+                new QuerySegment(RollupResolution.HOUR, 5 * DAY, 5 * DAY + 2 * HOUR),
+                new QuerySegment(RollupResolution.MINUTE, 5 * DAY + 2 * HOUR, 5 * DAY + 2 * HOUR + 4 * MINUTE),
+                new QuerySegment(null, 5 * DAY + 2 * HOUR + 4 * MINUTE, end)), planner.plan(start, end, Long.MAX_VALUE));
+    }
+
+    @Test
+    void neverUsesWindowsWiderThanAllowed() {
+        assertEquals(List.of(new QuerySegment(RollupResolution.HOUR, 2 * DAY, 5 * DAY)), planner.plan(2 * DAY, 5 * DAY, 90 * MINUTE));
+        assertEquals(List.of(new QuerySegment(null, 2 * DAY, 5 * DAY)), planner.plan(2 * DAY, 5 * DAY, 0));
+    }
+
+    @Test
+    void readsWindowsThatHaveNotSettledFromFinerData() {
+        assertEquals(List.of(
+                new QuerySegment(RollupResolution.DAY, 9 * DAY, 10 * DAY),
+                new QuerySegment(RollupResolution.HOUR, 10 * DAY, 10 * DAY + 5 * HOUR),
+                new QuerySegment(RollupResolution.MINUTE, 10 * DAY + 5 * HOUR, 10 * DAY + 5 * HOUR + 29 * MINUTE),
+                new QuerySegment(null, 10 * DAY + 5 * HOUR + 29 * MINUTE, NOW)), planner.plan(9 * DAY, NOW, Long.MAX_VALUE));
+    }
+}
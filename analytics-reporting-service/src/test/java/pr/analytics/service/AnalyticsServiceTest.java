@@ -0,0 +1,179 @@
+package pr.analytics.service;
+
+import com.google.protobuf.Timestamp;
+import io.grpc.stub.ServerCallStreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import pr.analytics.query.QueryPlanner;
+import pr.pulsesynapse.proto.ExportChunk;
+import pr.pulsesynapse.proto.ExportFormat;
+import pr.pulsesynapse.proto.ExportHistoryRequest;
+import pr.pulsesynapse.proto.LatencyDataPoint;
+import pr.pulsesynapse.proto.LatencyHistoryRequest;
+import pr.pulsesynapse.proto.LatencyHistoryResponse;
+import pr.pulsesynapse.storage.SampleVisitor;
+import pr.pulsesynapse.storage.TargetSampleVisitor;
+import pr.pulsesynapse.storage.TimeSeriesReader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AnalyticsServiceTest {
+
+    private static final long MINUTE = 60_000L;
+    private static final long START = 1_700_000_000_000L;
+    private static final long END = START + 10 * MINUTE;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final FakeReader reader = new FakeReader();
+    private final AnalyticsService service = new AnalyticsService(reader, new QueryScheduler(executor, 2, 2, 2, 2),
+            null, new QueryPlanner(0L, () -> END), null);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void streamsEveryScannedSampleBeforeCompleting() throws InterruptedException {
+        ReflectionTestUtils.setField(service, "chunkSize", 3);
+        RecordingObserver<LatencyHistoryResponse> observer = new RecordingObserver<>();
+
+        service.streamLatencyHistory(LatencyHistoryRequest.newBuilder()
+                .setTargetId("target-1")
+                .setStartTime(toTimestamp(START))
+                .setEndTime(toTimestamp(END))
+                .build(), observer.mock);
+
+        assertTrue(observer.done.await(5, TimeUnit.SECONDS));
+        assertEquals("completed", observer.events.get(observer.events.size() - 1));
+        List<Long> streamed = new ArrayList<>();
+        for (LatencyHistoryResponse chunk : observer.messages) {
+            assertEquals("target-1", chunk.getTargetId());
+            for (LatencyDataPoint point : chunk.getHistoryList()) {
+                streamed.add(point.getTimestamp().getSeconds() * 1000L);
+            }
+        }
+        List<Long> expected = new ArrayList<>();
+        for (long t = START; t < END; t += MINUTE) {
+            expected.add(t);
+        }
+        assertEquals(expected, streamed);
+        assertEquals(List.of(3, 3, 3, 1), observer.messages.stream().map(LatencyHistoryResponse::getHistoryCount).toList());
+    }
+
+    @Test
+    void exportsEveryScannedSampleBeforeCompleting() throws InterruptedException {
+        ReflectionTestUtils.setField(service, "maxExportTargets", 10);
+        ReflectionTestUtils.setField(service, "exportChunkSize", 4);
+        RecordingObserver<ExportChunk> observer = new RecordingObserver<>();
+
+        service.exportHistory(ExportHistoryRequest.newBuilder()
+                .addTargetIds("target-1")
+                .addTargetIds("target-2")
+                .setStartTime(toTimestamp(START))
+                .setEndTime(toTimestamp(END))
+                .setFormat(ExportFormat.EXPORT_FORMAT_CSV)
+                .build(), observer.mock);
+
+        assertTrue(observer.done.await(5, TimeUnit.SECONDS));
+        assertEquals("completed", observer.events.get(observer.events.size() - 1));
+        StringBuilder file = new StringBuilder();
+        observer.messages.forEach(chunk -> file.append(chunk.getCsv().toStringUtf8()));
+        StringBuilder expected = new StringBuilder("target_id,timestamp_ms,up,status_code,latency_ms\n");
+        for (String targetId : List.of("target-1", "target-2")) {
+            for (long t = START; t < END; t += MINUTE) {
+                expected.append(targetId).append(',').append(t).append(",1,200,").append(40 + (t - START) / MINUTE).append('\n');
+            }
+        }
+        assertEquals(expected.toString(), file.toString());
+    }
+
+    private static Timestamp toTimestamp(long millis) {
+        return Timestamp.newBuilder().setSeconds(millis / 1000).setNanos((int) (millis % 1000) * 1_000_000).build();
+    }
+
+    /**
+     * One sample per minute, delivered in order on the calling thread with a pause before each one, so a caller
+     * that completed its call before the scan returned would miss samples.
+     */
+    private static final class FakeReader implements TimeSeriesReader {
+
+        @Override
+        public void scanAll(Collection<String> targetIds, long startMillis, long endMillis, TargetSampleVisitor visitor) {
+            for (String targetId : targetIds) {
+                boolean[] stopped = new boolean[1];
+                scan(targetId, startMillis, endMillis, (timestamp, up, statusCode, latencyMs) -> {
+                    stopped[0] = !visitor.visit(targetId, timestamp, up, statusCode, latencyMs);
+                    return !stopped[0];
+                });
+                if (stopped[0]) {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void scan(String targetId, long startMillis, long endMillis, SampleVisitor visitor) {
+            for (long t = Math.ceilDiv(startMillis, MINUTE) * MINUTE; t < endMillis; t += MINUTE) {
+                pause();
+                if (!visitor.visit(t, true, 200, 40 + (t - startMillis) / MINUTE)) {
+                    return;
+                }
+            }
+        }
+
+        private static void pause() {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * A ready server stream that records what the service sends, in order.
+     */
+    @SuppressWarnings("unchecked")
+    private static final class RecordingObserver<T> {
+        final ServerCallStreamObserver<T> mock = mock(ServerCallStreamObserver.class);
+        final List<T> messages = Collections.synchronizedList(new ArrayList<>());
+        final List<String> events = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch done = new CountDownLatch(1);
+
+        RecordingObserver() {
+            when(mock.isReady()).thenReturn(true);
+            doAnswer(invocation -> {
+                messages.add(invocation.getArgument(0));
+                events.add("message");
+                return null;
+            }).when(mock).onNext(any());
+            doAnswer(invocation -> {
+                events.add("completed");
+                done.countDown();
+                return null;
+            }).when(mock).onCompleted();
+            doAnswer(invocation -> {
+                events.add("error " + invocation.getArgument(0));
+                done.countDown();
+                return null;
+            }).when(mock).onError(any());
+        }
+    }
+}
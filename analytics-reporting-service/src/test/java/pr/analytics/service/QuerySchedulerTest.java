@@ -0,0 +1,126 @@
+package pr.analytics.service;
+
+import io.grpc.Context;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import pr.analytics.service.QueryScheduler.QueryCost;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuerySchedulerTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final QueryScheduler scheduler = new QueryScheduler(executor, 2, 0, 1, 1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void refusesExpensiveQueriesBeyondTheQueueWithoutBlockingCheapOnes() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        scheduler.execute(QueryCost.EXPENSIVE, new RecordingObserver(), () -> {
+            started.countDown();
+            awaitRelease();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        scheduler.execute(QueryCost.EXPENSIVE, new RecordingObserver(), this::awaitRelease);
+
+        RecordingObserver refused = new RecordingObserver();
+        scheduler.execute(QueryCost.EXPENSIVE, refused, () -> {
+        });
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, refused.error.getCode());
+
+        CountDownLatch cheapRan = new CountDownLatch(1);
+        scheduler.execute(QueryCost.CHEAP, new RecordingObserver(), cheapRan::countDown);
+        assertTrue(cheapRan.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void interruptsTheQueryWhenTheCallIsCancelled() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Context.CancellableContext call = Context.current().withCancellation();
+        call.run(() -> scheduler.execute(QueryCost.CHEAP, new RecordingObserver(), () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        }));
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        call.cancel(null);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void forgetsQueriesCancelledWhileWaitingForASlot() throws InterruptedException {
+        QueryScheduler single = new QueryScheduler(executor, 1, 1, 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        single.execute(QueryCost.CHEAP, new RecordingObserver(), () -> {
+            started.countDown();
+            awaitRelease();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Context.CancellableContext call = Context.current().withCancellation();
+        RecordingObserver cancelled = new RecordingObserver();
+        call.run(() -> single.execute(QueryCost.CHEAP, cancelled, () -> {
+        }));
+        call.cancel(null);
+
+        // with the cancelled query gone, one query may run and one more wait again
+        RecordingObserver waiting = new RecordingObserver();
+        for (int attempt = 0; attempt < 100; attempt++) {
+            waiting = new RecordingObserver();
+            single.execute(QueryCost.CHEAP, waiting, () -> {
+            });
+            if (waiting.error == null) {
+                break;
+            }
+            Thread.sleep(10);
+        }
+        assertNull(waiting.error);
+        assertNull(cancelled.error);
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class RecordingObserver implements StreamObserver<Object> {
+        volatile Status error;
+
+        @Override
+        public void onNext(Object value) {
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = ((StatusRuntimeException) t).getStatus();
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    }
+}
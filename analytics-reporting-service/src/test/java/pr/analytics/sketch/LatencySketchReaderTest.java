@@ -0,0 +1,91 @@
+package pr.analytics.sketch;
+
+import org.junit.jupiter.api.Test;
+import pr.analytics.query.QueryPlanner;
+import pr.pulsesynapse.storage.RollupVisitor;
+import pr.pulsesynapse.storage.SampleVisitor;
+import pr.pulsesynapse.storage.TimeSeriesReader;
+import pr.pulsesynapse.storage.rollup.RollupResolution;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LatencySketchReaderTest {
+
+    private static final long HOUR = 3_600_000L;
+    private static final long NOW = 100 * HOUR + 30 * 60_000L;
+
+    private final FakeReader backend = new FakeReader();
+    private final LatencySketchReader reader = new LatencySketchReader(backend, new QueryPlanner(60_000L, () -> NOW));
+
+    @Test
+    void mergesRollupHistogramsIntoTheSameSketchAsRawSamples() {
+        LatencySketch sketch = new LatencySketch();
+        reader.read("target-1", 10 * HOUR + 90_000L, 60 * HOUR + 120_000L, Long.MAX_VALUE, timestamp -> sketch);
+
+        assertEquals(List.of("raw", "MINUTE", "HOUR", "DAY", "HOUR", "MINUTE"), backend.sources);
+        assertExact(sketch, rawSketch(10 * HOUR + 90_000L, 60 * HOUR + 120_000L));
+    }
+
+    @Test
+    void routesRollupsAndSamplesByTimestamp() {
+        LatencySketch[] days = {new LatencySketch(), new LatencySketch()};
+        reader.read("target-1", 24 * HOUR, 72 * HOUR, 24 * HOUR, timestamp -> days[(int) ((timestamp - 24 * HOUR) / (24 * HOUR))]);
+
+        assertEquals(24 * 60, days[0].getCount());
+        assertEquals(24 * 60, days[1].getCount());
+        assertExact(days[1], rawSketch(48 * HOUR, 72 * HOUR));
+    }
+
+    private static LatencySketch rawSketch(long start, long end) {
+        LatencySketch sketch = new LatencySketch();
+        new FakeReader().scan("target-1", start, end, (timestamp, up, statusCode, latencyMs) -> {
+            sketch.record(latencyMs);
+            return true;
+        });
+        return sketch;
+    }
+
+    private static void assertExact(LatencySketch expected, LatencySketch actual) {
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getMax(), actual.getMax());
+        for (double quantile : new double[]{0.5, 0.9, 0.95, 0.99}) {
+            assertEquals(expected.valueAtQuantile(quantile), actual.valueAtQuantile(quantile));
+        }
+    }
+
+    /**
+     * One sample per minute with a latency cycling through 10..1009 ms; records which series it is read from.
+     */
+    private static final class FakeReader implements TimeSeriesReader {
+        final List<String> sources = new ArrayList<>();
+
+        @Override
+        public void scan(String targetId, long startMillis, long endMillis, SampleVisitor visitor) {
+            sources.add("raw");
+            generate(startMillis, endMillis, visitor);
+        }
+
+        @Override
+        public void scanRollups(String targetId, RollupResolution resolution, long startMillis, long endMillis,
+                                RollupVisitor visitor) {
+            sources.add(resolution.name());
+            TimeSeriesReader raw = FakeReader::generate;
+            raw.scanRollups(targetId, resolution, startMillis, endMillis, visitor);
+        }
+
+        private static void generate(String targetId, long startMillis, long endMillis, SampleVisitor visitor) {
+            generate(startMillis, endMillis, visitor);
+        }
+
+        private static void generate(long startMillis, long endMillis, SampleVisitor visitor) {
+            for (long t = Math.ceilDiv(startMillis, 60_000L) * 60_000L; t < endMillis; t += 60_000L) {
+                if (!visitor.visit(t, true, 200, 10 + (t / 60_000L * 37) % 1000)) {
+                    return;
+                }
+            }
+        }
+    }
+}
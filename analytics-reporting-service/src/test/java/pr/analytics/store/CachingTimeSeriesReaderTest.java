@@ -0,0 +1,149 @@
+package pr.analytics.store;
+
+import org.junit.jupiter.api.Test;
+import pr.pulsesynapse.storage.SampleVisitor;
+import pr.pulsesynapse.storage.SeriesSummary;
+import pr.pulsesynapse.storage.TimeSeriesReader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CachingTimeSeriesReaderTest {
+
+    private static final long HOUR = 3_600_000L;
+    private static final long NOW = 100 * HOUR + 30 * 60_000L;
+    private static final long START = 90 * HOUR + 1_000;
+
+    private final FakeReader backend = new FakeReader();
+    private final CachingTimeSeriesReader reader = new CachingTimeSeriesReader(backend, HOUR, 5 * 60_000L, 1_000_000, () -> NOW);
+
+    @Test
+    void servesClosedBucketsFromCacheAndQueriesOnlyTheHead() {
+        List<Long> expected = timestamps(new FakeReader(), START, NOW);
+
+        assertEquals(expected, timestamps(reader, START, NOW));
+        assertEquals(expected, timestamps(reader, START, NOW));
+        // one query for the ten closed hours, then only the open hour on every call
+        assertEquals(List.of(90 * HOUR + "-" + 100 * HOUR, 100 * HOUR + "-" + NOW, 100 * HOUR + "-" + NOW), backend.queries);
+    }
+
+    @Test
+    void fetchesOnlyMissingBucketsWhenTheRangeGrows() {
+        timestamps(reader, 95 * HOUR, 97 * HOUR);
+        backend.queries.clear();
+
+        assertEquals(timestamps(new FakeReader(), 93 * HOUR, 99 * HOUR), timestamps(reader, 93 * HOUR, 99 * HOUR));
+        assertEquals(List.of(93 * HOUR + "-" + 95 * HOUR, 97 * HOUR + "-" + 99 * HOUR), backend.queries);
+    }
+
+    @Test
+    void computesUptimeAcrossCachedAndLiveParts() {
+        double expected = new FakeReader().uptime("target-1", 95 * HOUR + 123, NOW);
+
+        assertEquals(expected, reader.uptime("target-1", 95 * HOUR + 123, NOW), 1e-12);
+        assertEquals(expected, reader.uptime("target-1", 95 * HOUR + 123, NOW), 1e-12);
+    }
+
+    @Test
+    void summarizesCachedTargetsFromMemoryAndTheRestInOneQuery() {
+        timestamps(reader, START, NOW);
+        backend.queries.clear();
+
+        Map<String, SeriesSummary> summaries = reader.summarize(List.of("target-1", "target-2"), START, NOW);
+
+        assertEquals(List.of("summary [target-1] " + 100 * HOUR + "-" + NOW, "summary [target-2] " + START + "-" + NOW), backend.queries);
+        Map<String, SeriesSummary> expected = new FakeReader().summarize(List.of("target-1", "target-2"), START, NOW);
+        for (String targetId : List.of("target-1", "target-2")) {
+            assertEquals(expected.get(targetId).getCount(), summaries.get(targetId).getCount());
+            assertEquals(expected.get(targetId).getUpCount(), summaries.get(targetId).getUpCount());
+            assertEquals(expected.get(targetId).getLastTimestamp(), summaries.get(targetId).getLastTimestamp());
+        }
+    }
+
+    @Test
+    void cachesNothingWhenTheBackendFailsPartway() {
+        FakeReader failing = new FakeReader() {
+            @Override
+            public void scan(String targetId, long startMillis, long endMillis, SampleVisitor visitor) {
+                super.scan(targetId, startMillis, endMillis, (timestamp, up, statusCode, latencyMs) -> {
+                    if (timestamp >= 91 * HOUR) {
+                        throw new IllegalStateException("connection reset");
+                    }
+                    return visitor.visit(timestamp, up, statusCode, latencyMs);
+                });
+            }
+        };
+        CachingTimeSeriesReader caching = new CachingTimeSeriesReader(failing, HOUR, 5 * 60_000L, 1_000_000, () -> NOW);
+
+        assertThrows(IllegalStateException.class, () -> timestamps(caching, 90 * HOUR, 92 * HOUR + 1));
+        failing.queries.clear();
+
+        // the hours read before the failure were not cached either
+        assertThrows(IllegalStateException.class, () -> timestamps(caching, 90 * HOUR, 99 * HOUR));
+        assertEquals(List.of(90 * HOUR + "-" + 99 * HOUR), failing.queries);
+    }
+
+    @Test
+    void rejectsSamplesDeliveredAfterTheBackendScanReturned() {
+        List<SampleVisitor> leaked = new ArrayList<>();
+        FakeReader late = new FakeReader() {
+            @Override
+            public void scan(String targetId, long startMillis, long endMillis, SampleVisitor visitor) {
+                queries.add(startMillis + "-" + endMillis);
+                leaked.add(visitor);
+            }
+        };
+        CachingTimeSeriesReader caching = new CachingTimeSeriesReader(late, HOUR, 5 * 60_000L, 1_000_000, () -> NOW);
+
+        assertEquals(List.of(), timestamps(caching, 90 * HOUR, 92 * HOUR));
+        assertThrows(IllegalStateException.class, () -> leaked.get(0).visit(90 * HOUR, true, 200, 50));
+        // the cached buckets were not touched by the late sample
+        assertEquals(List.of(), timestamps(caching, 90 * HOUR, 92 * HOUR));
+        assertEquals(1, late.queries.size());
+    }
+
+    private static List<Long> timestamps(TimeSeriesReader reader, long start, long end) {
+        List<Long> timestamps = new ArrayList<>();
+        reader.scan("target-1", start, end, (timestamp, up, statusCode, latencyMs) -> timestamps.add(timestamp));
+        return timestamps;
+    }
+
+    /**
+     * One sample per minute, DOWN every seventh minute; records the ranges it is queried for.
+     */
+    private static class FakeReader implements TimeSeriesReader {
+        final List<String> queries = new ArrayList<>();
+
+        @Override
+        public void scan(String targetId, long startMillis, long endMillis, SampleVisitor visitor) {
+            queries.add(startMillis + "-" + endMillis);
+            generate(startMillis, endMillis, visitor);
+        }
+
+        @Override
+        public Map<String, SeriesSummary> summarize(Collection<String> targetIds, long startMillis, long endMillis) {
+            queries.add("summary " + targetIds + " " + startMillis + "-" + endMillis);
+            Map<String, SeriesSummary> summaries = new LinkedHashMap<>();
+            for (String targetId : targetIds) {
+                SeriesSummary summary = new SeriesSummary();
+                generate(startMillis, endMillis, summary);
+                summaries.put(targetId, summary);
+            }
+            return summaries;
+        }
+
+        private static void generate(long startMillis, long endMillis, SampleVisitor visitor) {
+            for (long t = Math.ceilDiv(startMillis, 60_000L) * 60_000L; t < endMillis; t += 60_000L) {
+                if (!visitor.visit(t, (t / 60_000L) % 7 != 0, 200, 50)) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package pr.analytics.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FluxTemplateTest {
+
+    @Test
+    void escapesOnlyWhatWouldEndOrInterpolateAString() {
+        assertEquals("\"a\\\\b\\\"c\"", FluxTemplate.literal("a\\b\"c"));
+        assertEquals("\"price-$5\"", FluxTemplate.literal("price-$5"));
+        assertEquals("\"$\\${x}$\"", FluxTemplate.literal("$${x}$"));
+    }
+
+    @Test
+    void rendersTheParamsRecordBeforeTheQuery() {
+        FluxTemplate template = FluxTemplate.of("from(bucket: params.bucket)");
+
+        String rendered = template.render(Map.of(
+                "targetId", "target-$1",
+                "start", Instant.ofEpochMilli(0),
+                "targetIds", List.of("a", "b")));
+
+        assertEquals("params = {start: 1970-01-01T00:00:00Z, targetId: \"target-$1\", targetIds: [\"a\", \"b\"]}\n"
+                + "from(bucket: params.bucket)", rendered);
+    }
+
+    @Test
+    void rejectsParameterNamesThatAreNotIdentifiers() {
+        FluxTemplate template = FluxTemplate.of("from(bucket: params.bucket)");
+
+        assertThrows(IllegalArgumentException.class, () -> template.render(Map.of("bad name", "x")));
+    }
+}
@@ -0,0 +1,175 @@
+package pr.analytics.store;
+
+import com.influxdb.client.InfluxDBClient;
+import com.influxdb.client.InfluxDBClientFactory;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.grpc.Context;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InfluxTimeSeriesReaderTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    static final String HEADER = """
+            #datatype,string,long,dateTime:RFC3339,dateTime:RFC3339,dateTime:RFC3339,string,string,long,long,long
+            #group,false,false,true,true,false,true,true,false,false,false
+            #default,_result,,,,,,,,,
+            ,result,table,_start,_stop,_time,_measurement,targetId,isUp,latency_ms,status_code
+            """;
+
+    private final AtomicReference<Handler> handler = new AtomicReference<>();
+    private HttpServer server;
+    private InfluxDBClient client;
+    private InfluxTimeSeriesReader reader;
+
+    @FunctionalInterface
+    interface Handler {
+        void handle(HttpExchange exchange) throws Exception;
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/v2/query", exchange -> {
+            try {
+                exchange.getRequestBody().readAllBytes();
+                handler.get().handle(exchange);
+            } catch (Exception e) {
+                // the client went away
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        client = InfluxDBClientFactory.create("http://127.0.0.1:" + server.getAddress().getPort(),
+                "token".toCharArray(), "org", "bucket");
+        reader = new InfluxTimeSeriesReader(client);
+        ReflectionTestUtils.setField(reader, "bucket", "bucket");
+        ReflectionTestUtils.setField(reader, "organization", "org");
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    void scanReturnsOnlyOnceEveryRecordWasVisitedOnTheCallingThread() {
+        handler.set(exchange -> {
+            OutputStream body = startCsv(exchange);
+            body.write(HEADER.getBytes(StandardCharsets.UTF_8));
+            body.write(row(0, true, 40).getBytes(StandardCharsets.UTF_8));
+            body.flush();
+            // the rest arrives well after the first record
+            Thread.sleep(300);
+            body.write((row(1, false, -1) + row(2, true, 44)).getBytes(StandardCharsets.UTF_8));
+        });
+        Thread caller = Thread.currentThread();
+        List<Long> timestamps = new ArrayList<>();
+
+        reader.scan("target-1", START, START + 3_600_000L, (timestamp, up, statusCode, latencyMs) -> {
+            assertEquals(caller, Thread.currentThread());
+            timestamps.add(timestamp);
+            return true;
+        });
+
+        assertEquals(List.of(START, START + 60_000L, START + 120_000L), timestamps);
+    }
+
+    @Test
+    void scanStopsWhenTheVisitorDoes() {
+        handler.set(exchange -> startCsv(exchange).write((HEADER + row(0, true, 40) + row(1, true, 41))
+                .getBytes(StandardCharsets.UTF_8)));
+        List<Long> timestamps = new ArrayList<>();
+
+        reader.scan("target-1", START, START + 3_600_000L, (timestamp, up, statusCode, latencyMs) -> {
+            timestamps.add(timestamp);
+            return false;
+        });
+
+        assertEquals(List.of(START), timestamps);
+    }
+
+    @Test
+    void cancellingTheCallClosesTheRunningQuery() throws Exception {
+        CountDownLatch disconnected = new CountDownLatch(1);
+        handler.set(exchange -> {
+            OutputStream body = startCsv(exchange);
+            body.write(HEADER.getBytes(StandardCharsets.UTF_8));
+            // a slow query: one row every 50 ms until the client hangs up
+            try {
+                for (int minute = 0; minute < 100; minute++) {
+                    body.write(row(minute, true, 40).getBytes(StandardCharsets.UTF_8));
+                    body.flush();
+                    Thread.sleep(50);
+                }
+            } catch (IOException e) {
+                disconnected.countDown();
+            }
+        });
+        Context.CancellableContext call = Context.current().withCancellation();
+        CountDownLatch firstRecord = new CountDownLatch(1);
+
+        CompletableFuture<Void> scan = CompletableFuture.runAsync(() -> call.run(() -> reader.scan("target-1", START,
+                START + 3_600_000L, (timestamp, up, statusCode, latencyMs) -> {
+                    firstRecord.countDown();
+                    return true;
+                })));
+        assertTrue(firstRecord.await(5, TimeUnit.SECONDS));
+        call.cancel(null);
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> scan.get(2, TimeUnit.SECONDS));
+        assertEquals(Status.Code.CANCELLED, assertInstanceOf(StatusRuntimeException.class, failure.getCause()).getStatus().getCode());
+        assertTrue(disconnected.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void failedQueryThrows() {
+        handler.set(exchange -> {
+            byte[] error = "{\"code\":\"internal error\",\"message\":\"boom\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(500, error.length);
+            exchange.getResponseBody().write(error);
+        });
+
+        assertThrows(RuntimeException.class, () -> reader.scan("target-1", START, START + 3_600_000L,
+                (timestamp, up, statusCode, latencyMs) -> true));
+    }
+
+    static OutputStream startCsv(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "text/csv; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        return exchange.getResponseBody();
+    }
+
+    static String row(int minute, boolean up, long latencyMs) {
+        return ",,0,2023-11-14T00:00:00Z,2023-11-15T00:00:00Z,"
+                + Instant.ofEpochMilli(START + minute * 60_000L)
+                + ",health_check,target-1," + (up ? 1 : 0) + "," + latencyMs + "," + (up ? 200 : 503) + "\n";
+    }
+}
@@ -0,0 +1,45 @@
+package pr.pulsesynapse.auth;
+
+import io.grpc.BindableService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.grpc.server.GlobalServerInterceptor;
+
+import java.util.Arrays;
+
+/**
+ * Registers {@link JwtAuthInterceptor} for every gRPC service of the application. Expects {@code jwt.secret}
+ * (Base64 HMAC key); {@code auth.public-methods} lists the full names of methods callable without a token, and
+ * {@code jwt.cache.max-size} bounds the verified-token cache.
+ */
+@AutoConfiguration
+public class AuthAutoConfiguration {
+
+    @Bean
+    public JwtVerifier jwtVerifier(@Value("${jwt.secret}") String secret) {
+        return new JwtVerifier(secret);
+    }
+
+    @Bean
+    public VerifiedTokenCache verifiedTokenCache(JwtVerifier jwtVerifier,
+                                                 @Value("${jwt.cache.max-size:10000}") long maxSize) {
+        return new VerifiedTokenCache(jwtVerifier, maxSize);
+    }
+
+    @Bean
+    public MethodAuthPolicies methodAuthPolicies(ObjectProvider<BindableService> services,
+                                                 @Value("${auth.public-methods:}") String[] publicMethods) {
+        return new MethodAuthPolicies(
+                services.orderedStream().map(BindableService::bindService).toList(),
+                Arrays.stream(publicMethods).map(String::trim).filter(method -> !method.isEmpty()).toList());
+    }
+
+    @Bean
+    @GlobalServerInterceptor
+    public JwtAuthInterceptor jwtAuthInterceptor(MethodAuthPolicies methodAuthPolicies,
+                                                 VerifiedTokenCache verifiedTokenCache) {
+        return new JwtAuthInterceptor(methodAuthPolicies, verifiedTokenCache);
+    }
+}
@@ -0,0 +1,29 @@
+package pr.pulsesynapse.auth;
+
+import io.grpc.Context;
+
+/**
+ * Identity of the caller of the current authenticated gRPC call, as set by {@link JwtAuthInterceptor}.
+ */
+public final class AuthContext {
+
+    static final Context.Key<String> USER_ID_KEY = Context.key("userId");
+    static final Context.Key<String> USERNAME_KEY = Context.key("username");
+
+    private AuthContext() {
+    }
+
+    /**
+     * Returns the {@code userId} claim of the caller's token, or {@code null} outside an authenticated call.
+     */
+    public static String currentUserId() {
+        return USER_ID_KEY.get();
+    }
+
+    /**
+     * Returns the subject of the caller's token, or {@code null} outside an authenticated call.
+     */
+    public static String currentUsername() {
+        return USERNAME_KEY.get();
+    }
+}
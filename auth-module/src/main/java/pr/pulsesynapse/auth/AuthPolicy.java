@@ -0,0 +1,15 @@
+package pr.pulsesynapse.auth;
+
+/**
+ * How calls to a gRPC method are authenticated; see {@link MethodAuthPolicies}.
+ */
+public enum AuthPolicy {
+    /**
+     * Callable without a token.
+     */
+    PUBLIC,
+    /**
+     * Needs a valid bearer token; the caller's identity is available through {@link AuthContext}.
+     */
+    AUTHENTICATED
+}
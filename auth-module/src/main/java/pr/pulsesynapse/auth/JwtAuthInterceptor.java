@@ -0,0 +1,60 @@
+package pr.pulsesynapse.auth;
+
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Authenticates gRPC calls by their {@code Authorization: Bearer <jwt>} header and exposes the caller through
+ * {@link AuthContext}. Public methods pass through untouched.
+ * <p>
+ * Runs on every call, so the hot path only does a policy lookup, a cache lookup for the token and the context
+ * switch: statuses are prebuilt and nothing is logged unless a call is rejected and debug logging is on.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class JwtAuthInterceptor implements ServerInterceptor {
+
+    private static final Metadata.Key<String> AUTHORIZATION_KEY =
+            Metadata.Key.of("authorization", Metadata.ASCII_STRING_MARSHALLER);
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private static final Status MISSING_TOKEN = Status.UNAUTHENTICATED.withDescription("JWT Token is missing or invalid");
+    private static final Status INVALID_TOKEN = Status.UNAUTHENTICATED.withDescription("JWT Token is invalid");
+
+    private final MethodAuthPolicies methodAuthPolicies;
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        if (methodAuthPolicies.policyOf(call.getMethodDescriptor()) == AuthPolicy.PUBLIC) {
+            return next.startCall(call, headers);
+        }
+
+        String authHeader = headers.get(AUTHORIZATION_KEY);
+        if (authHeader == null || !authHeader.startsWith(BEARER_PREFIX)) {
+            return reject(call, MISSING_TOKEN);
+        }
+        VerifiedToken token = verifiedTokenCache.verify(authHeader.substring(BEARER_PREFIX.length()));
+        if (token == null) {
+            return reject(call, INVALID_TOKEN);
+        }
+
+        Context context = Context.current()
+                .withValues(AuthContext.USER_ID_KEY, token.userId(), AuthContext.USERNAME_KEY, token.username());
+        return Contexts.interceptCall(context, call, headers, next);
+    }
+
+    private static <ReqT, RespT> ServerCall.Listener<ReqT> reject(ServerCall<ReqT, RespT> call, Status status) {
+        log.debug("Rejecting call to {}: {}", call.getMethodDescriptor().getFullMethodName(), status.getDescription());
+        call.close(status, new Metadata());
+        return new ServerCall.Listener<>() {};
+    }
+}
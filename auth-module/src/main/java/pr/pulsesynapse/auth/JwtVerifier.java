@@ -0,0 +1,32 @@
+package pr.pulsesynapse.auth;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Checks the signature and expiry of HMAC-signed tokens. The parser is immutable and thread-safe, so it is built
+ * once and shared by all calls.
+ */
+public class JwtVerifier {
+
+    private final JwtParser parser;
+
+    public JwtVerifier(String base64Secret) {
+        this.parser = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret)))
+                .build();
+    }
+
+    /**
+     * Returns the claims of the token.
+     *
+     * @throws JwtException if the token is malformed, its signature does not verify or it has expired
+     */
+    public Claims verify(String jwt) {
+        return parser.parseSignedClaims(jwt).getPayload();
+    }
+}
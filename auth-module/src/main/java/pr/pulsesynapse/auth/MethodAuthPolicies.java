@@ -0,0 +1,63 @@
+package pr.pulsesynapse.auth;
+
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Auth policy of every method the server exposes, resolved once at startup so a call costs one map lookup.
+ * <p>
+ * The reflection and health services and the methods listed as public (full names such as
+ * {@code TargetService/GetDueTargets}) are {@link AuthPolicy#PUBLIC}; every other method needs a token. Methods
+ * of services registered after startup are resolved on their first call.
+ */
+@Slf4j
+public class MethodAuthPolicies {
+
+    private static final List<String> PUBLIC_SERVICE_PREFIXES = List.of("grpc.reflection.", "grpc.health.");
+
+    private final Set<String> publicMethods;
+    private final Map<String, AuthPolicy> policies = new ConcurrentHashMap<>();
+
+    public MethodAuthPolicies(Collection<ServerServiceDefinition> services, Collection<String> publicMethods) {
+        this.publicMethods = Set.copyOf(publicMethods);
+        for (ServerServiceDefinition service : services) {
+            for (ServerMethodDefinition<?, ?> method : service.getMethods()) {
+                String name = method.getMethodDescriptor().getFullMethodName();
+                policies.put(name, resolve(name));
+            }
+        }
+
+        Set<String> unknown = new HashSet<>(this.publicMethods);
+        unknown.removeAll(policies.keySet());
+        if (!unknown.isEmpty()) {
+            log.warn("Public methods {} are not served by any registered gRPC service", unknown);
+        }
+        log.info("Resolved auth policies for {} gRPC methods", policies.size());
+    }
+
+    public AuthPolicy policyOf(MethodDescriptor<?, ?> method) {
+        AuthPolicy policy = policies.get(method.getFullMethodName());
+        return policy != null ? policy : policies.computeIfAbsent(method.getFullMethodName(), this::resolve);
+    }
+
+    private AuthPolicy resolve(String fullMethodName) {
+        if (publicMethods.contains(fullMethodName)) {
+            return AuthPolicy.PUBLIC;
+        }
+        for (String prefix : PUBLIC_SERVICE_PREFIXES) {
+            if (fullMethodName.startsWith(prefix)) {
+                return AuthPolicy.PUBLIC;
+            }
+        }
+        return AuthPolicy.AUTHENTICATED;
+    }
+}
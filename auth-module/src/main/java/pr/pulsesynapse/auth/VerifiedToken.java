@@ -0,0 +1,7 @@
+package pr.pulsesynapse.auth;
+
+/**
+ * Identity carried by a token that passed verification.
+ */
+public record VerifiedToken(String userId, String username, long expiresAtMillis) {
+}
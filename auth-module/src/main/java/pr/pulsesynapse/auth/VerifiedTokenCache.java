@@ -0,0 +1,97 @@
+package pr.pulsesynapse.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers the identity of tokens that passed verification, so repeat callers skip the HMAC check and JSON
+ * parse and pay a SHA-256 plus a cache lookup instead.
+ * <p>
+ * Entries are keyed by the token's digest rather than the token itself and expire at the token's {@code exp}
+ * claim at the latest. Tokens that fail verification are never cached.
+ */
+public class VerifiedTokenCache {
+
+    private final JwtVerifier jwtVerifier;
+    private final LongSupplier clock;
+    private final Cache<ByteBuffer, VerifiedToken> cache;
+
+    public VerifiedTokenCache(JwtVerifier jwtVerifier, long maxSize) {
+        this(jwtVerifier, maxSize, System::currentTimeMillis);
+    }
+
+    VerifiedTokenCache(JwtVerifier jwtVerifier, long maxSize, LongSupplier clock) {
+        this.jwtVerifier = jwtVerifier;
+        this.clock = clock;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<ByteBuffer, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(ByteBuffer key, VerifiedToken token, long currentTime) {
+                        return untilExpiry(token);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ByteBuffer key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return untilExpiry(token);
+                    }
+
+                    @Override
+                    public long expireAfterRead(ByteBuffer key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Returns the identity carried by the token, or {@code null} when its signature does not verify, it is
+     * malformed, or it has expired.
+     */
+    public VerifiedToken verify(String jwt) {
+        ByteBuffer digest = digest(jwt);
+        VerifiedToken token = cache.getIfPresent(digest);
+        if (token != null && token.expiresAtMillis() > clock.getAsLong()) {
+            return token;
+        }
+
+        Claims claims;
+        try {
+            claims = jwtVerifier.verify(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        Date expiration = claims.getExpiration();
+        if (expiration == null || expiration.getTime() <= clock.getAsLong()) {
+            return null;
+        }
+
+        token = new VerifiedToken(claims.get("userId", String.class), claims.getSubject(), expiration.getTime());
+        cache.put(digest, token);
+        return token;
+    }
+
+    private long untilExpiry(VerifiedToken token) {
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0L, token.expiresAtMillis() - clock.getAsLong()));
+    }
+
+    private static ByteBuffer digest(String jwt) {
+        try {
+            // wrapped only for its content-based equals and hashCode; never read through
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(jwt.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
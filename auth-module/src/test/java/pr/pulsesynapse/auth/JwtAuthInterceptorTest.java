@@ -0,0 +1,145 @@
+package pr.pulsesynapse.auth;
+
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Encoders;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class JwtAuthInterceptorTest {
+
+    private static final MethodDescriptor<Void, Void> GET_DUE_TARGETS = method("TargetService/GetDueTargets");
+    private static final MethodDescriptor<Void, Void> LIST_MY_TARGETS = method("TargetService/ListMyTargets");
+    private static final MethodDescriptor<Void, Void> HEALTH_CHECK = method("grpc.health.v1.Health/Check");
+
+    private final SecretKey key = Jwts.SIG.HS256.key().build();
+    private final List<String> started = new ArrayList<>();
+    private final ServerCallHandler<Void, Void> handler = (call, headers) -> {
+        started.add(call.getMethodDescriptor().getFullMethodName() + " as " + AuthContext.currentUsername()
+                + "/" + AuthContext.currentUserId());
+        return new ServerCall.Listener<>() {};
+    };
+    private final JwtAuthInterceptor interceptor = new JwtAuthInterceptor(
+            new MethodAuthPolicies(List.of(ServerServiceDefinition.builder("TargetService")
+                    .addMethod(GET_DUE_TARGETS, handler)
+                    .addMethod(LIST_MY_TARGETS, handler)
+                    .build()), List.of("TargetService/GetDueTargets")),
+            new VerifiedTokenCache(new JwtVerifier(Encoders.BASE64.encode(key.getEncoded())), 100));
+
+    @Test
+    void publicMethodsPassWithoutAToken() {
+        RecordingCall dueTargets = new RecordingCall(GET_DUE_TARGETS);
+        RecordingCall health = new RecordingCall(HEALTH_CHECK);
+        interceptor.interceptCall(dueTargets, new Metadata(), handler);
+        interceptor.interceptCall(health, new Metadata(), handler);
+
+        assertNull(dueTargets.status);
+        assertNull(health.status);
+        assertEquals(List.of("TargetService/GetDueTargets as null/null", "grpc.health.v1.Health/Check as null/null"), started);
+    }
+
+    @Test
+    void rejectsMissingAndInvalidTokens() {
+        RecordingCall missing = new RecordingCall(LIST_MY_TARGETS);
+        RecordingCall forged = new RecordingCall(LIST_MY_TARGETS);
+        interceptor.interceptCall(missing, new Metadata(), handler);
+        interceptor.interceptCall(forged, bearer(token(Jwts.SIG.HS256.key().build())), handler);
+
+        assertEquals(Status.Code.UNAUTHENTICATED, missing.status.getCode());
+        assertEquals(Status.Code.UNAUTHENTICATED, forged.status.getCode());
+        assertEquals(List.of(), started);
+    }
+
+    @Test
+    void exposesTheCallerToTheService() {
+        RecordingCall call = new RecordingCall(LIST_MY_TARGETS);
+        interceptor.interceptCall(call, bearer(token(key)), handler);
+
+        assertNull(call.status);
+        assertEquals(List.of("TargetService/ListMyTargets as alice/user-1"), started);
+        assertNull(AuthContext.currentUserId());
+    }
+
+    private static String token(SecretKey key) {
+        return Jwts.builder()
+                .subject("alice")
+                .claim("userId", "user-1")
+                .expiration(new Date(System.currentTimeMillis() + 3_600_000L))
+                .signWith(key)
+                .compact();
+    }
+
+    private static Metadata bearer(String jwt) {
+        Metadata headers = new Metadata();
+        headers.put(Metadata.Key.of("authorization", Metadata.ASCII_STRING_MARSHALLER), "Bearer " + jwt);
+        return headers;
+    }
+
+    private static MethodDescriptor<Void, Void> method(String fullMethodName) {
+        MethodDescriptor.Marshaller<Void> marshaller = new MethodDescriptor.Marshaller<>() {
+            @Override
+            public InputStream stream(Void value) {
+                return new ByteArrayInputStream(new byte[0]);
+            }
+
+            @Override
+            public Void parse(InputStream stream) {
+                return null;
+            }
+        };
+        return MethodDescriptor.<Void, Void>newBuilder(marshaller, marshaller)
+                .setType(MethodDescriptor.MethodType.UNARY)
+                .setFullMethodName(fullMethodName)
+                .build();
+    }
+
+    private static final class RecordingCall extends ServerCall<Void, Void> {
+        private final MethodDescriptor<Void, Void> method;
+        Status status;
+
+        RecordingCall(MethodDescriptor<Void, Void> method) {
+            this.method = method;
+        }
+
+        @Override
+        public void request(int numMessages) {
+        }
+
+        @Override
+        public void sendHeaders(Metadata headers) {
+        }
+
+        @Override
+        public void sendMessage(Void message) {
+        }
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+            this.status = status;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public MethodDescriptor<Void, Void> getMethodDescriptor() {
+            return method;
+        }
+    }
+}
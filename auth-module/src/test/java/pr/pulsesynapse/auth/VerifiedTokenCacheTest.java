@@ -0,0 +1,78 @@
+package pr.pulsesynapse.auth;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Encoders;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class VerifiedTokenCacheTest {
+
+    private static final long NOW = System.currentTimeMillis();
+    private static final long HOUR = 3_600_000L;
+
+    private final SecretKey key = Jwts.SIG.HS256.key().build();
+    private final CountingJwtVerifier jwtVerifier = new CountingJwtVerifier(key);
+    private long clock = NOW;
+    private final VerifiedTokenCache cache = new VerifiedTokenCache(jwtVerifier, 100, () -> clock);
+
+    @Test
+    void verifiesEachTokenOnceUntilItExpires() {
+        String jwt = token(key, NOW + HOUR);
+
+        VerifiedToken first = cache.verify(jwt);
+        assertNotNull(first);
+        assertEquals("user-1", first.userId());
+        assertEquals("alice", first.username());
+        assertSame(first, cache.verify(jwt));
+        assertEquals(1, jwtVerifier.parses);
+
+        clock = NOW + HOUR;
+        assertNull(cache.verify(jwt));
+    }
+
+    @Test
+    void rejectsForgedTokensWithoutCachingThem() {
+        String forged = token(Jwts.SIG.HS256.key().build(), NOW + HOUR);
+
+        assertNull(cache.verify(forged));
+        assertNull(cache.verify(forged));
+        assertEquals(2, jwtVerifier.parses);
+    }
+
+    @Test
+    void rejectsExpiredAndMalformedTokens() {
+        assertNull(cache.verify(token(key, NOW - 1000)));
+        assertNull(cache.verify("not-a-jwt"));
+    }
+
+    private static String token(SecretKey key, long expiresAtMillis) {
+        return Jwts.builder()
+                .subject("alice")
+                .claim("userId", "user-1")
+                .expiration(new Date(expiresAtMillis))
+                .signWith(key)
+                .compact();
+    }
+
+    private static final class CountingJwtVerifier extends JwtVerifier {
+        int parses;
+
+        CountingJwtVerifier(SecretKey key) {
+            super(Encoders.BASE64.encode(key.getEncoded()));
+        }
+
+        @Override
+        public Claims verify(String jwt) {
+            parses++;
+            return super.verify(jwt);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package pr.analytics.store;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering the Flux queries of {@link InfluxTimeSeriesReader}: a single-target scan, as behind every history
+ * and percentile query, and a summary over 500 targets, as behind the dashboard overview. Run with
+ * {@code java -jar benchmarks/target/benchmarks.jar FluxQuery}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FluxQueryBenchmark {
+
+    private static final int SUMMARY_TARGETS = 500;
+    private static final long END_MILLIS = 1_700_000_000_000L;
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    private List<String> targetIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        targetIds = new ArrayList<>(SUMMARY_TARGETS);
+        for (int i = 0; i < SUMMARY_TARGETS; i++) {
+            targetIds.add("3f2c8a10-7d4e-4b8a-9c61-" + String.format("%012d", i));
+        }
+    }
+
+    @Benchmark
+    public String scan() {
+        return InfluxTimeSeriesReader.SCAN.render(Map.of(
+                "bucket", "health",
+                "start", Instant.ofEpochMilli(END_MILLIS - DAY_MILLIS),
+                "stop", Instant.ofEpochMilli(END_MILLIS),
+                "measurement", "health_check",
+                "targetId", targetIds.get(0)));
+    }
+
+    @Benchmark
+    public String summary() {
+        return InfluxTimeSeriesReader.SUMMARY.render(Map.of(
+                "bucket", "health",
+                "start", Instant.ofEpochMilli(END_MILLIS - DAY_MILLIS),
+                "stop", Instant.ofEpochMilli(END_MILLIS),
+                "targetIds", targetIds));
+    }
+}
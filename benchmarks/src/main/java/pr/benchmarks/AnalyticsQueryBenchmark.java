@@ -0,0 +1,230 @@
+package pr.benchmarks;
+
+import com.google.protobuf.Message;
+import com.google.protobuf.Timestamp;
+import io.grpc.stub.StreamObserver;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import pr.analytics.live.TargetStatusHub;
+import pr.analytics.query.QueryPlanner;
+import pr.analytics.service.AnalyticsService;
+import pr.analytics.service.QueryScheduler;
+import pr.analytics.sketch.LatencySketchReader;
+import pr.pulsesynapse.proto.LatencyAggregation;
+import pr.pulsesynapse.proto.LatencyHistoryRequest;
+import pr.pulsesynapse.proto.LatencyHistoryResponse;
+import pr.pulsesynapse.proto.LatencyPercentilesRequest;
+import pr.pulsesynapse.proto.LatencyPercentilesResponse;
+import pr.pulsesynapse.proto.UptimeRequest;
+import pr.pulsesynapse.proto.UptimeResponse;
+import pr.pulsesynapse.storage.TimeSeriesReader;
+import pr.pulsesynapse.storage.embedded.EmbeddedTimeSeriesStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end latency of the {@link AnalyticsService} queries by range size, over a month of
+ * {@link SyntheticHealthChecks synthetic} minute checks held in the embedded store.
+ * <p>
+ * Queries go through the scheduler, planner and sketch reader exactly as a gRPC call would; only the transport
+ * is missing. Besides the time per query, each run reports the serialized size of the responses
+ * ({@code responseBytes} over {@code responses} queries) and, through the GC profiler, the heap allocated per
+ * query ({@code gc.alloc.rate.norm}). The store has no rollups, so every range is read from the raw samples.
+ * The service is wired by a bare Spring context so its settings take their property defaults. Run with
+ * {@code java -jar benchmarks/target/benchmarks.jar AnalyticsQuery}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyticsQueryBenchmark {
+
+    private static final int TARGETS = 100;
+    private static final long INTERVAL_MILLIS = 60_000L;
+    private static final int DAYS = 35;
+    private static final long SEED = 42L;
+    private static final long HOUR_MILLIS = 3_600_000L;
+    private static final long END_MILLIS = 1_700_000_000_000L / HOUR_MILLIS * HOUR_MILLIS;
+    private static final int MAX_POINTS = 500;
+    private static final int PERCENTILE_INTERVALS = 12;
+
+    public enum QueryRange {
+        HOUR(HOUR_MILLIS),
+        DAY(24 * HOUR_MILLIS),
+        WEEK(7 * 24 * HOUR_MILLIS),
+        MONTH(30 * 24 * HOUR_MILLIS);
+
+        final long millis;
+
+        QueryRange(long millis) {
+            this.millis = millis;
+        }
+    }
+
+    @Param({"HOUR", "DAY", "WEEK", "MONTH"})
+    public QueryRange range;
+
+    private Path directory;
+    private ExecutorService executor;
+    private AnnotationConfigApplicationContext context;
+    private AnalyticsService analyticsService;
+    private int next;
+
+    /**
+     * Serialized size of the responses, i.e. what would go over the wire, summed per iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Transfer {
+        public long responseBytes;
+        public long responses;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            responseBytes = 0;
+            responses = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("analytics-query-benchmark");
+        EmbeddedTimeSeriesStore store = new EmbeddedTimeSeriesStore(directory, 1024, DAYS + 1);
+        new SyntheticHealthChecks(TARGETS, INTERVAL_MILLIS, DAYS, SEED).writeTo(store, END_MILLIS);
+        // compact the closed days like the nightly maintenance would
+        store.maintain(END_MILLIS);
+
+        QueryPlanner queryPlanner = new QueryPlanner(60_000L, () -> END_MILLIS);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        QueryScheduler queryScheduler = new QueryScheduler(executor, 32, 256, 8, 32);
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean(TimeSeriesReader.class, () -> store);
+        context.registerBean(QueryScheduler.class, () -> queryScheduler);
+        context.registerBean(LatencySketchReader.class, () -> new LatencySketchReader(store, queryPlanner));
+        context.registerBean(QueryPlanner.class, () -> queryPlanner);
+        context.registerBean(TargetStatusHub.class, TargetStatusHub::new);
+        context.registerBean(AnalyticsService.class);
+        context.refresh();
+        analyticsService = context.getBean(AnalyticsService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        executor.shutdownNow();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public double uptime(Transfer transfer) throws Exception {
+        UptimeRequest request = UptimeRequest.newBuilder()
+                .setTargetId(nextTargetId())
+                .setStartTime(toTimestamp(END_MILLIS - range.millis))
+                .setEndTime(toTimestamp(END_MILLIS))
+                .build();
+        Response<UptimeResponse> response = new Response<>(transfer);
+        analyticsService.getUptime(request, response);
+        return response.await().getUptimePercentage();
+    }
+
+    @Benchmark
+    public int latencyHistory(Transfer transfer) throws Exception {
+        LatencyHistoryRequest request = LatencyHistoryRequest.newBuilder()
+                .setTargetId(nextTargetId())
+                .setStartTime(toTimestamp(END_MILLIS - range.millis))
+                .setEndTime(toTimestamp(END_MILLIS))
+                .setMaxPoints(MAX_POINTS)
+                .setAggregation(LatencyAggregation.LATENCY_AGGREGATION_MEAN)
+                .build();
+        Response<LatencyHistoryResponse> response = new Response<>(transfer);
+        analyticsService.getLatencyHistory(request, response);
+        return response.await().getHistoryCount();
+    }
+
+    @Benchmark
+    public long latencyPercentiles(Transfer transfer) throws Exception {
+        LatencyPercentilesRequest request = LatencyPercentilesRequest.newBuilder()
+                .setTargetId(nextTargetId())
+                .setStartTime(toTimestamp(END_MILLIS - range.millis))
+                .setEndTime(toTimestamp(END_MILLIS))
+                .setIntervalSeconds(range.millis / PERCENTILE_INTERVALS / 1000)
+                .build();
+        Response<LatencyPercentilesResponse> response = new Response<>(transfer);
+        analyticsService.getLatencyPercentiles(request, response);
+        return response.await().getOverall().getP99Ms();
+    }
+
+    private String nextTargetId() {
+        return SyntheticHealthChecks.targetId(next++ % TARGETS);
+    }
+
+    private static Timestamp toTimestamp(long epochMillis) {
+        return Timestamp.newBuilder()
+                .setSeconds(Math.floorDiv(epochMillis, 1000L))
+                .setNanos((int) Math.floorMod(epochMillis, 1000L) * 1_000_000)
+                .build();
+    }
+
+    /**
+     * Collects the single response of a unary call and counts its size.
+     */
+    private static final class Response<T extends Message> implements StreamObserver<T> {
+        private final Transfer transfer;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private T value;
+
+        Response(Transfer transfer) {
+            this.transfer = transfer;
+        }
+
+        @Override
+        public void onNext(T value) {
+            this.value = value;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            result.completeExceptionally(t);
+        }
+
+        @Override
+        public void onCompleted() {
+            result.complete(value);
+        }
+
+        T await() throws InterruptedException, ExecutionException {
+            T response = result.get();
+            transfer.responseBytes += response.getSerializedSize();
+            transfer.responses++;
+            return response;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package pr.benchmarks;
+
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Encoders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pr.pulsesynapse.auth.AuthContext;
+import pr.pulsesynapse.auth.JwtAuthInterceptor;
+import pr.pulsesynapse.auth.JwtVerifier;
+import pr.pulsesynapse.auth.MethodAuthPolicies;
+import pr.pulsesynapse.auth.VerifiedTokenCache;
+
+import javax.crypto.SecretKey;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call overhead of {@link JwtAuthInterceptor}: a public method, a repeat caller whose token is cached, and a
+ * caller whose token has to be verified. {@code legacyParse} is the previous per-call cost for comparison: three
+ * parser builds and signature checks. The handler reads the caller from {@link AuthContext} and does nothing
+ * else. Run with
+ * {@code java -jar benchmarks/target/benchmarks.jar AuthInterceptor}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthInterceptorBenchmark {
+
+    private static final MethodDescriptor<Void, Void> PUBLIC_METHOD = method("TargetService/GetDueTargets");
+    private static final MethodDescriptor<Void, Void> PRIVATE_METHOD = method("TargetService/ListMyTargets");
+
+    private final ServerCallHandler<Void, Void> handler = (call, headers) -> {
+        AuthContext.currentUserId();
+        return new ServerCall.Listener<>() {};
+    };
+
+    private SecretKey key;
+    private JwtAuthInterceptor interceptor;
+    private JwtVerifier jwtVerifier;
+    private ServerCall<Void, Void> publicCall;
+    private ServerCall<Void, Void> privateCall;
+    private Metadata noHeaders;
+    private Metadata authorized;
+    private String jwt;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        key = Jwts.SIG.HS256.key().build();
+        jwtVerifier = new JwtVerifier(Encoders.BASE64.encode(key.getEncoded()));
+        interceptor = new JwtAuthInterceptor(
+                new MethodAuthPolicies(List.of(ServerServiceDefinition.builder("TargetService")
+                        .addMethod(PUBLIC_METHOD, handler)
+                        .addMethod(PRIVATE_METHOD, handler)
+                        .build()), List.of("TargetService/GetDueTargets")),
+                new VerifiedTokenCache(jwtVerifier, 10_000));
+        publicCall = new NoopCall(PUBLIC_METHOD);
+        privateCall = new NoopCall(PRIVATE_METHOD);
+
+        jwt = Jwts.builder()
+                .subject("alice")
+                .claim("userId", "user-1")
+                .expiration(new Date(System.currentTimeMillis() + 86_400_000L))
+                .signWith(key)
+                .compact();
+        noHeaders = new Metadata();
+        authorized = new Metadata();
+        authorized.put(Metadata.Key.of("authorization", Metadata.ASCII_STRING_MARSHALLER), "Bearer " + jwt);
+    }
+
+    @Benchmark
+    public ServerCall.Listener<Void> publicMethod() {
+        return interceptor.interceptCall(publicCall, noHeaders, handler);
+    }
+
+    @Benchmark
+    public ServerCall.Listener<Void> cachedToken() {
+        return interceptor.interceptCall(privateCall, authorized, handler);
+    }
+
+    @Benchmark
+    public Object uncachedToken() {
+        return jwtVerifier.verify(jwt);
+    }
+
+    @Benchmark
+    public Object legacyParse() {
+        Object expiration = Jwts.parser().verifyWith(key).build().parseSignedClaims(jwt).getPayload().getExpiration();
+        Object username = Jwts.parser().verifyWith(key).build().parseSignedClaims(jwt).getPayload().getSubject();
+        Object userId = Jwts.parser().verifyWith(key).build().parseSignedClaims(jwt).getPayload().get("userId");
+        return expiration.hashCode() + username.hashCode() + userId.hashCode();
+    }
+
+    private static MethodDescriptor<Void, Void> method(String fullMethodName) {
+        MethodDescriptor.Marshaller<Void> marshaller = new MethodDescriptor.Marshaller<>() {
+            @Override
+            public InputStream stream(Void value) {
+                return new ByteArrayInputStream(new byte[0]);
+            }
+
+            @Override
+            public Void parse(InputStream stream) {
+                return null;
+            }
+        };
+        return MethodDescriptor.<Void, Void>newBuilder(marshaller, marshaller)
+                .setType(MethodDescriptor.MethodType.UNARY)
+                .setFullMethodName(fullMethodName)
+                .build();
+    }
+
+    private static final class NoopCall extends ServerCall<Void, Void> {
+        private final MethodDescriptor<Void, Void> method;
+
+        NoopCall(MethodDescriptor<Void, Void> method) {
+            this.method = method;
+        }
+
+        @Override
+        public void request(int numMessages) {
+        }
+
+        @Override
+        public void sendHeaders(Metadata headers) {
+        }
+
+        @Override
+        public void sendMessage(Void message) {
+        }
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+            throw new IllegalStateException("Call rejected: " + status);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public MethodDescriptor<Void, Void> getMethodDescriptor() {
+            return method;
+        }
+    }
+}
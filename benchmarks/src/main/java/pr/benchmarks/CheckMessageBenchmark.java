@@ -0,0 +1,144 @@
+package pr.benchmarks;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import pr.benchmarks.proto.CheckJobMessage;
+import pr.benchmarks.proto.CheckResultMessage;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one {@code CheckJob} (scheduler to polling worker) and one {@code CheckResult} (polling worker to
+ * ingestion) message, as JSON through the {@link Jackson2JsonMessageConverter} the services configure, against
+ * the {@code check-messages.proto} equivalents. Each side starts or ends at the services' own DTO classes, so the
+ * protobuf numbers include the mapping a protobuf converter would need. The encoded sizes are printed at setup.
+ * Run with {@code java -jar benchmarks/target/benchmarks.jar CheckMessage}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckMessageBenchmark {
+
+    private final Jackson2JsonMessageConverter converter = new Jackson2JsonMessageConverter();
+
+    private pr.scheduler.job.CheckJob job;
+    private pr.polling.result.CheckResult result;
+    private Message jobJson;
+    private Message resultJson;
+    private byte[] jobProtobuf;
+    private byte[] resultProtobuf;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        job = new pr.scheduler.job.CheckJob(
+                "3f2c8a10-7d4e-4b8a-9c61-2e5f0a9b7c14",
+                "https://status.example.com/health",
+                "9b1d6e3a-0c2f-4a57-8e19-5d7c3b2a4f60");
+        result = pr.polling.result.CheckResult.builder()
+                .targetId(job.getTargetId())
+                .checkId(job.getCheckId())
+                .timestamp(Instant.ofEpochMilli(1_700_000_000_123L))
+                .isUp(true)
+                .statusCode(200)
+                .latencyMs(87L)
+                .build();
+
+        jobJson = jobToJson();
+        // the listener adapters set the parameter type of the @RabbitListener method, which wins over __TypeId__
+        jobJson.getMessageProperties().setInferredArgumentType(pr.polling.job.CheckJob.class);
+        resultJson = resultToJson();
+        resultJson.getMessageProperties().setInferredArgumentType(pr.ingestion.dto.CheckResult.class);
+        jobProtobuf = jobToProtobuf().getBody();
+        resultProtobuf = resultToProtobuf().getBody();
+
+        System.out.printf("CheckJob: %d bytes JSON, %d bytes protobuf%n", jobJson.getBody().length, jobProtobuf.length);
+        System.out.printf("CheckResult: %d bytes JSON, %d bytes protobuf%n",
+                resultJson.getBody().length, resultProtobuf.length);
+    }
+
+    @Benchmark
+    public Message jobToJson() {
+        return converter.toMessage(job, new MessageProperties());
+    }
+
+    @Benchmark
+    public Object jobFromJson() {
+        return converter.fromMessage(jobJson);
+    }
+
+    @Benchmark
+    public Message jobToProtobuf() {
+        return new Message(CheckJobMessage.newBuilder()
+                .setTargetId(job.getTargetId())
+                .setUrl(job.getUrl())
+                .setCheckId(job.getCheckId())
+                .build()
+                .toByteArray());
+    }
+
+    @Benchmark
+    public pr.polling.job.CheckJob jobFromProtobuf() throws InvalidProtocolBufferException {
+        CheckJobMessage message = CheckJobMessage.parseFrom(jobProtobuf);
+        return new pr.polling.job.CheckJob(message.getTargetId(), message.getUrl(), message.getCheckId());
+    }
+
+    @Benchmark
+    public Message resultToJson() {
+        return converter.toMessage(result, new MessageProperties());
+    }
+
+    @Benchmark
+    public Object resultFromJson() {
+        return converter.fromMessage(resultJson);
+    }
+
+    @Benchmark
+    public Message resultToProtobuf() {
+        CheckResultMessage.Builder message = CheckResultMessage.newBuilder()
+                .setTargetId(result.getTargetId())
+                .setCheckId(result.getCheckId())
+                .setTimestampMillis(result.getTimestamp().toEpochMilli())
+                .setUp(result.isUp());
+        if (result.getStatusCode() != null) {
+            message.setStatusCode(result.getStatusCode());
+        }
+        if (result.getLatencyMs() != null) {
+            message.setLatencyMs(result.getLatencyMs());
+        }
+        if (result.getErrorMessage() != null) {
+            message.setErrorMessage(result.getErrorMessage());
+        }
+        return new Message(message.build().toByteArray());
+    }
+
+    @Benchmark
+    public pr.ingestion.dto.CheckResult resultFromProtobuf() throws InvalidProtocolBufferException {
+        CheckResultMessage message = CheckResultMessage.parseFrom(resultProtobuf);
+        return pr.ingestion.dto.CheckResult.builder()
+                .targetId(message.getTargetId())
+                .checkId(message.getCheckId())
+                .timestamp(Instant.ofEpochMilli(message.getTimestampMillis()))
+                .isUp(message.getUp())
+                .statusCode(message.hasStatusCode() ? message.getStatusCode() : null)
+                .latencyMs(message.hasLatencyMs() ? message.getLatencyMs() : null)
+                .errorMessage(message.getErrorMessage().isEmpty() ? null : message.getErrorMessage())
+                .build();
+    }
+}
@@ -0,0 +1,103 @@
+package pr.benchmarks;
+
+import com.google.protobuf.Empty;
+import io.grpc.stub.StreamObserver;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pr.pulsesynapse.proto.SloWindow;
+import pr.pulsesynapse.proto.TargetListResponse;
+import pr.targetmanagementservice.entity.Target;
+import pr.targetmanagementservice.repository.TargetRepository;
+import pr.targetmanagementservice.service.TargetService;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+
+/**
+ * {@code GetDueTargets} in {@link TargetService} without the database: rescheduling the due targets and mapping
+ * them to {@code TargetResponse}s, by number of due targets. Every fourth target has an SLO. The repository is a
+ * stub that returns the same targets on every call. Run with
+ * {@code java -jar benchmarks/target/benchmarks.jar DueTargets}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DueTargetsBenchmark {
+
+    @Param({"100", "1000"})
+    public int dueTargets;
+
+    private TargetService targetService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Target> targets = new ArrayList<>(dueTargets);
+        for (int i = 0; i < dueTargets; i++) {
+            Target target = Target.builder()
+                    .id(UUID.randomUUID())
+                    .name("Target " + i)
+                    .url("https://service-" + i + ".example.com/health")
+                    .checkIntervalSeconds(60)
+                    .userId(UUID.randomUUID())
+                    .nextCheckTime(Instant.EPOCH)
+                    .build();
+            if (i % 4 == 0) {
+                target.setSloTargetPercentage(99.9);
+                target.setSloWindow(SloWindow.SLO_WINDOW_ROLLING);
+                target.setSloWindowDays(30);
+            }
+            targets.add(target);
+        }
+
+        // stubOnly: no invocation history piling up over millions of calls
+        TargetRepository targetRepository = Mockito.mock(TargetRepository.class, Mockito.withSettings().stubOnly());
+        Mockito.when(targetRepository.findAllByNextCheckTimeBefore(any())).thenReturn(targets);
+        Mockito.when(targetRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        targetService = new TargetService(targetRepository);
+    }
+
+    @Benchmark
+    public TargetListResponse getDueTargets() {
+        Response response = new Response();
+        targetService.getDueTargets(Empty.getDefaultInstance(), response);
+        return response.value;
+    }
+
+    private static final class Response implements StreamObserver<TargetListResponse> {
+        TargetListResponse value;
+
+        @Override
+        public void onNext(TargetListResponse value) {
+            this.value = value;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            throw new IllegalStateException(t);
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package pr.benchmarks;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import pr.ingestion.anomaly.AnomalyPublisher;
+import pr.ingestion.anomaly.LatencyAnomalyDetector;
+import pr.ingestion.dedupe.ResultDeduplicator;
+import pr.ingestion.dto.CheckResult;
+import pr.ingestion.pipeline.ResultLanes;
+import pr.ingestion.pipeline.ResultProcessor;
+import pr.ingestion.rollup.RollupAggregator;
+import pr.ingestion.slo.SloCounters;
+import pr.ingestion.state.IncidentPublisher;
+import pr.ingestion.state.TargetStateTracker;
+import pr.pulsesynapse.storage.TimeSeriesWriter;
+import pr.pulsesynapse.storage.rollup.Rollup;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput of the ingestion pipeline by lane count, from {@link ResultLanes#submit(CheckResult)} until the
+ * lanes have processed every result. Storage is a no-op so the numbers show how the per-target processing
+ * scales; expect close to linear gains up to the number of physical cores. Run with
+ * {@code java -jar benchmarks/target/benchmarks.jar ResultLanes}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultLanesBenchmark {
+
+    private static final int TARGETS = 10_000;
+    private static final int BATCH = 10_000;
+
+    @Param({"1", "2", "4", "8"})
+    public int lanes;
+
+    private final LongAdder processed = new LongAdder();
+    private ResultLanes resultLanes;
+    private String[] targetIds;
+    private long startMillis;
+    private long submitted;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RabbitTemplate rabbitTemplate = Mockito.mock(RabbitTemplate.class);
+        RollupAggregator rollupAggregator = new RollupAggregator(30_000, 600_000, 300_000, "benchmark");
+        TimeSeriesWriter discardingWriter = new DiscardingWriter();
+
+        resultLanes = new ResultLanes(() -> new CountingProcessor(
+                new ResultDeduplicator(300_000, 262_144),
+                new TargetStateTracker(3, 2),
+                new LatencyAnomalyDetector(0.05, 4.0, 0.1, 30),
+                rollupAggregator,
+                new SloCounters(35, 7),
+                discardingWriter,
+                new IncidentPublisher(rabbitTemplate),
+                new AnomalyPublisher(rabbitTemplate),
+                processed), lanes, 1024);
+        resultLanes.start();
+
+        targetIds = new String[TARGETS];
+        for (int i = 0; i < TARGETS; i++) {
+            targetIds[i] = "target-" + i;
+        }
+        startMillis = System.currentTimeMillis();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        resultLanes.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void process() {
+        for (int i = 0; i < BATCH; i++) {
+            long sequence = submitted++;
+            // a fresh check ID per result so none is dropped as a duplicate; time advances one ms per round
+            resultLanes.submit(CheckResult.builder()
+                    .targetId(targetIds[(int) (sequence % TARGETS)])
+                    .checkId(Long.toString(sequence))
+                    .timestamp(Instant.ofEpochMilli(startMillis + sequence / TARGETS))
+                    .isUp(sequence % 50 != 0)
+                    .statusCode(200)
+                    .latencyMs(20L + (sequence & 63))
+                    .build());
+        }
+        while (processed.sum() < submitted) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static final class CountingProcessor extends ResultProcessor {
+        private final LongAdder processed;
+
+        CountingProcessor(ResultDeduplicator resultDeduplicator, TargetStateTracker targetStateTracker,
+                          LatencyAnomalyDetector latencyAnomalyDetector, RollupAggregator rollupAggregator,
+                          SloCounters sloCounters, TimeSeriesWriter timeSeriesWriter,
+                          IncidentPublisher incidentPublisher, AnomalyPublisher anomalyPublisher, LongAdder processed) {
+            super(resultDeduplicator, targetStateTracker, latencyAnomalyDetector, rollupAggregator, sloCounters,
+                    timeSeriesWriter, incidentPublisher, anomalyPublisher);
+            this.processed = processed;
+        }
+
+        @Override
+        public void process(CheckResult result) {
+            super.process(result);
+            processed.increment();
+        }
+    }
+
+    private static final class DiscardingWriter implements TimeSeriesWriter {
+
+        @Override
+        public void write(String targetId, long timestampMillis, boolean up, int statusCode, long latencyMs) {
+        }
+
+        @Override
+        public void writeRollups(List<Rollup> rollups) {
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package pr.benchmarks;
+
+import pr.pulsesynapse.storage.SampleVisitor;
+import pr.pulsesynapse.storage.TimeSeriesWriter;
+
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic {@code health_check} history: {@code targets} targets checked every {@code intervalMillis}
+ * for the {@code days} days up to an end time. The same seed always yields the same samples.
+ * <p>
+ * Every target has its own median latency between 40 and 400 ms, with log-normal jitter, a daily load curve and
+ * the odd slow outlier. Outages start a few days apart on average and last from a minute to about an hour; during
+ * one the checks either time out (status 0, no latency) or get a quick 5xx. Outside outages a rare single check
+ * fails on its own.
+ */
+final class SyntheticHealthChecks {
+
+    private static final long DAY_MILLIS = 86_400_000L;
+    private static final double MEAN_OUTAGE_GAP_MILLIS = 3 * DAY_MILLIS;
+    private static final double MEAN_OUTAGE_MILLIS = 20 * 60_000L;
+    private static final double LATENCY_SIGMA = 0.35;
+    private static final double OUTLIER_PROBABILITY = 0.002;
+    private static final double BLIP_PROBABILITY = 0.0005;
+
+    private final int targets;
+    private final long intervalMillis;
+    private final int days;
+    private final long seed;
+
+    SyntheticHealthChecks(int targets, long intervalMillis, int days, long seed) {
+        this.targets = targets;
+        this.intervalMillis = intervalMillis;
+        this.days = days;
+        this.seed = seed;
+    }
+
+    static String targetId(int target) {
+        return "target-" + target;
+    }
+
+    /**
+     * Writes the history of every target ending at {@code endMillis} and flushes; returns the number of samples.
+     */
+    long writeTo(TimeSeriesWriter writer, long endMillis) {
+        long[] written = {0};
+        for (int target = 0; target < targets; target++) {
+            String targetId = targetId(target);
+            generate(target, endMillis, (timestamp, up, statusCode, latencyMs) -> {
+                writer.write(targetId, timestamp, up, statusCode, latencyMs);
+                written[0]++;
+                return true;
+            });
+        }
+        writer.flush();
+        return written[0];
+    }
+
+    /**
+     * Replays the history of one target in time order; stops early when the visitor returns {@code false}.
+     */
+    void generate(int target, long endMillis, SampleVisitor visitor) {
+        SplittableRandom random = new SplittableRandom(seed ^ (target * 0x9e3779b97f4a7c15L));
+        double medianMs = 40.0 * Math.pow(10.0, random.nextDouble());
+        long startMillis = Math.floorDiv(endMillis - days * DAY_MILLIS, intervalMillis) * intervalMillis;
+
+        long outageStart = startMillis + exponential(random, MEAN_OUTAGE_GAP_MILLIS);
+        long outageEnd = outageStart + Math.max(intervalMillis, exponential(random, MEAN_OUTAGE_MILLIS));
+        boolean timingOut = random.nextBoolean();
+
+        for (long t = startMillis; t < endMillis; t += intervalMillis) {
+            while (t >= outageEnd) {
+                outageStart = outageEnd + exponential(random, MEAN_OUTAGE_GAP_MILLIS);
+                outageEnd = outageStart + Math.max(intervalMillis, exponential(random, MEAN_OUTAGE_MILLIS));
+                timingOut = random.nextBoolean();
+            }
+
+            boolean continued;
+            if (t >= outageStart) {
+                continued = timingOut
+                        ? visitor.visit(t, false, 0, TimeSeriesWriter.NO_LATENCY)
+                        : visitor.visit(t, false, 503, 5 + random.nextInt(20));
+            } else if (random.nextDouble() < BLIP_PROBABILITY) {
+                continued = visitor.visit(t, false, 502, latency(random, medianMs, t));
+            } else {
+                continued = visitor.visit(t, true, 200, latency(random, medianMs, t));
+            }
+            if (!continued) {
+                return;
+            }
+        }
+    }
+
+    private static long latency(SplittableRandom random, double medianMs, long timestamp) {
+        // busiest in the afternoon (UTC), quietest at night
+        double load = 1.0 + 0.3 * Math.sin(2 * Math.PI * (Math.floorMod(timestamp, DAY_MILLIS) / (double) DAY_MILLIS - 0.375));
+        double latency = medianMs * load * Math.exp(LATENCY_SIGMA * random.nextGaussian());
+        if (random.nextDouble() < OUTLIER_PROBABILITY) {
+            latency *= 5 + 15 * random.nextDouble();
+        }
+        return Math.max(1L, Math.round(latency));
+    }
+
+    private static long exponential(SplittableRandom random, double mean) {
+        return Math.round(-mean * Math.log(1.0 - random.nextDouble()));
+    }
+}
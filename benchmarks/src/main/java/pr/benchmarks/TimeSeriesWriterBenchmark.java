@@ -0,0 +1,165 @@
+package pr.benchmarks;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pr.ingestion.writer.LineProtocolWriter;
+import pr.pulsesynapse.storage.TimeSeriesWriter;
+import pr.pulsesynapse.storage.embedded.EmbeddedTimeSeriesStore;
+import pr.pulsesynapse.storage.rollup.Rollup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares the raw write path of the InfluxDB line-protocol writer with the embedded store, plus a one-day scan
+ * of the embedded store.
+ * <p>
+ * The InfluxDB side posts to a local stub that drains the body and answers 204, so it measures encoding and
+ * HTTP overhead only, not InfluxDB itself. Run with
+ * {@code java -jar benchmarks/target/benchmarks.jar TimeSeriesWriter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimeSeriesWriterBenchmark {
+
+    private static final int TARGETS = 1_000;
+    private static final int BATCH = 1_000;
+    private static final long INTERVAL_MILLIS = 60_000L;
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    @Param({"influx", "embedded"})
+    public String storage;
+
+    private HttpServer server;
+    private Path directory;
+    private TimeSeriesWriter writer;
+    private EmbeddedTimeSeriesStore store;
+    private String[] targetIds;
+    private long timestamp;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        targetIds = new String[TARGETS];
+        for (int i = 0; i < TARGETS; i++) {
+            targetIds[i] = "target-" + i;
+        }
+        timestamp = 1_700_000_000_000L;
+
+        if ("influx".equals(storage)) {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/api/v2/write", exchange -> {
+                try (InputStream body = exchange.getRequestBody()) {
+                    body.transferTo(OutputStream.nullOutputStream());
+                }
+                exchange.sendResponseHeaders(204, -1);
+                exchange.close();
+            });
+            server.start();
+            LineProtocolWriter lineProtocolWriter = new LineProtocolWriter(
+                    "http://127.0.0.1:" + server.getAddress().getPort(), "token", "org", "bucket", 5000, 4, 100_000,
+                    5, 500, new SimpleMeterRegistry());
+            writer = new LineWriterAdapter(lineProtocolWriter);
+        } else {
+            directory = Files.createTempDirectory("embedded-store-benchmark");
+            store = new EmbeddedTimeSeriesStore(directory, 1024, 90);
+            writer = store;
+            // one day of minute checks for the first target, for the scan benchmark
+            long dayStart = Math.floorDiv(timestamp, DAY_MILLIS) * DAY_MILLIS;
+            for (long t = dayStart; t < dayStart + DAY_MILLIS; t += INTERVAL_MILLIS) {
+                store.write(targetIds[0], t, true, 200, 40 + (t / INTERVAL_MILLIS) % 20);
+            }
+            store.flush();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (writer instanceof LineWriterAdapter adapter) {
+            // waits for the sender thread to post what is left
+            adapter.lineProtocolWriter().close();
+        } else {
+            writer.flush();
+        }
+        if (server != null) {
+            server.stop(0);
+        }
+        if (directory != null) {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void write() {
+        for (int i = 0; i < BATCH; i++) {
+            int target = next++ % TARGETS;
+            if (target == 0) {
+                timestamp += INTERVAL_MILLIS;
+            }
+            writer.write(targetIds[target], timestamp, (next & 63) != 0, 200, 20 + (next & 127));
+        }
+    }
+
+    @Benchmark
+    public void scanDay(Blackhole blackhole) {
+        if (store == null) {
+            // the InfluxDB read path needs a live server
+            return;
+        }
+        long dayStart = Math.floorDiv(1_700_000_000_000L, DAY_MILLIS) * DAY_MILLIS;
+        store.scan(targetIds[0], dayStart, dayStart + DAY_MILLIS, (timestampMillis, up, statusCode, latencyMs) -> {
+            blackhole.consume(latencyMs);
+            return true;
+        });
+    }
+
+    private record LineWriterAdapter(LineProtocolWriter lineProtocolWriter) implements TimeSeriesWriter {
+
+        @Override
+        public void write(String targetId, long timestampMillis, boolean up, int statusCode, long latencyMs) {
+            lineProtocolWriter.write(targetId, timestampMillis, up, statusCode, latencyMs);
+        }
+
+        @Override
+        public void writeRollups(List<Rollup> rollups) {
+            // not part of the raw write path
+        }
+
+        @Override
+        public void flush() {
+            lineProtocolWriter.flush();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package pr.ingestion.writer;
+
+import com.influxdb.client.domain.WritePrecision;
+import com.influxdb.client.write.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning one check result into a {@code health_check} line: {@link HealthCheckLineEncoder} writing into a
+ * reused {@link LineBuffer}, against building an InfluxDB client {@link Point} and rendering its line protocol,
+ * which is what {@code ResultListener} did per result before. Results rotate over a thousand targets, so the
+ * encoder's prefix cache is warm as it is in steady state. Run with
+ * {@code java -jar benchmarks/target/benchmarks.jar HealthCheckLine}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HealthCheckLineBenchmark {
+
+    private static final int TARGETS = 1_000;
+    private static final long START_MILLIS = 1_700_000_000_000L;
+
+    private final HealthCheckLineEncoder encoder = new HealthCheckLineEncoder(10_000);
+    private final LineBuffer buffer = new LineBuffer(64 * TARGETS);
+    private String[] targetIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        targetIds = new String[TARGETS];
+        for (int i = 0; i < TARGETS; i++) {
+            targetIds[i] = "target-" + i;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TARGETS)
+    public int lineEncoder() {
+        buffer.reset();
+        for (int i = 0; i < TARGETS; i++) {
+            encoder.encode(targetIds[i], START_MILLIS + i, i % 50 != 0, 200, 20L + (i & 63), buffer);
+        }
+        return buffer.length();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TARGETS)
+    public void point(Blackhole blackhole) {
+        for (int i = 0; i < TARGETS; i++) {
+            Point point = Point.measurement("health_check")
+                    .addTag("targetId", targetIds[i])
+                    .addField("isUp", i % 50 != 0 ? 1 : 0)
+                    .addField("latency_ms", 20L + (i & 63))
+                    .addField("status_code", 200)
+                    .time(Instant.ofEpochMilli(START_MILLIS + i), WritePrecision.MS);
+            blackhole.consume(point.toLineProtocol());
+        }
+    }
+}
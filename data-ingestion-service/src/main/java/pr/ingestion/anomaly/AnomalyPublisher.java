@@ -0,0 +1,27 @@
+package pr.ingestion.anomaly;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+import pr.ingestion.config.RabbitMQConfig;
+import pr.ingestion.dto.LatencyAnomalyEvent;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AnomalyPublisher {
+
+    private final RabbitTemplate rabbitTemplate;
+
+    public void publish(LatencyAnomalyEvent event) {
+        try {
+            rabbitTemplate.convertAndSend(RabbitMQConfig.TARGET_EVENTS_EXCHANGE_NAME,
+                    RabbitMQConfig.LATENCY_ANOMALY_ROUTING_KEY, event);
+            log.info("Published latency anomaly for target ID: {} ({} ms, baseline {} ms)",
+                    event.getTargetId(), event.getLatencyMs(), event.getBaselineLatencyMs());
+        } catch (Exception e) {
+            log.error("Failed to publish latency anomaly for target ID: {}. Error: {}", event.getTargetId(), e.getMessage());
+        }
+    }
+}
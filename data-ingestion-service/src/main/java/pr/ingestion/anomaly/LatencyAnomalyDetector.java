@@ -0,0 +1,122 @@
+package pr.ingestion.anomaly;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pr.ingestion.dto.CheckResult;
+import pr.ingestion.dto.LatencyAnomalyEvent;
+import pr.ingestion.state.TargetIndex;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Flags latency spikes per target as results stream in.
+ * <p>
+ * Keeps an exponentially weighted mean and variance of {@code ln(1 + latency)} per target; the log scale makes
+ * the baseline relative, so a 50 ms jump matters for a 20 ms endpoint but not for a 2 s one. A sample scores
+ * as its distance above the mean in standard deviations, with the deviation floored at {@code min-deviation} so
+ * perfectly steady endpoints do not alert on jitter. Samples update the baseline clamped to the threshold, so
+ * one outlier barely moves it while a lasting shift is absorbed within a few {@code 1 / alpha} samples.
+ * <p>
+ * Each target costs a fixed 21 bytes of primitive state plus its {@link TargetIndex} entry, and each sample
+ * O(1) work. Nothing is scored until a target has {@code warmup} samples. Prototype-scoped: each ingestion lane
+ * keeps the baselines of the targets it owns.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class LatencyAnomalyDetector {
+
+    private static final int INITIAL_TARGETS = 1024;
+
+    private final double alpha;
+    private final double threshold;
+    private final double minDeviation;
+    private final int warmup;
+    private final TargetIndex index = new TargetIndex(INITIAL_TARGETS);
+
+    private double[] means = new double[INITIAL_TARGETS];
+    private double[] variances = new double[INITIAL_TARGETS];
+    private int[] counts = new int[INITIAL_TARGETS];
+    private boolean[] anomalous = new boolean[INITIAL_TARGETS];
+
+    public LatencyAnomalyDetector(@Value("${ingestion.anomaly.alpha:0.05}") double alpha,
+                                  @Value("${ingestion.anomaly.threshold:4.0}") double threshold,
+                                  @Value("${ingestion.anomaly.min-deviation:0.1}") double minDeviation,
+                                  @Value("${ingestion.anomaly.warmup:30}") int warmup) {
+        this.alpha = alpha;
+        this.threshold = threshold;
+        this.minDeviation = minDeviation;
+        this.warmup = warmup;
+    }
+
+    /**
+     * Feeds the latency of a successful check into the target's baseline.
+     *
+     * @return an event if the sample starts an anomalous stretch, otherwise {@code null}
+     */
+    public LatencyAnomalyEvent record(CheckResult result) {
+        // failed checks are the incident tracker's business, and their latency is often just the timeout
+        if (!result.isUp() || result.getLatencyMs() == null) {
+            return null;
+        }
+        long timestamp = result.getTimestamp() != null ? result.getTimestamp().toEpochMilli() : System.currentTimeMillis();
+        return record(result.getTargetId(), timestamp, result.getLatencyMs());
+    }
+
+    synchronized LatencyAnomalyEvent record(String targetId, long timestamp, long latencyMs) {
+        int slot = index.getOrAdd(targetId);
+        if (slot >= means.length) {
+            grow(slot + 1);
+        }
+        double value = Math.log1p(Math.max(0L, latencyMs));
+
+        int count = counts[slot];
+        if (count == 0) {
+            means[slot] = value;
+            counts[slot] = 1;
+            return null;
+        }
+
+        double mean = means[slot];
+        double deviation = Math.max(minDeviation, Math.sqrt(variances[slot]));
+        double score = (value - mean) / deviation;
+
+        // clamp the update so a single outlier cannot drag the baseline along
+        double clamped = Math.min(value, mean + threshold * deviation);
+        double delta = clamped - mean;
+        means[slot] = mean + alpha * delta;
+        variances[slot] = (1 - alpha) * (variances[slot] + alpha * delta * delta);
+        if (count < Integer.MAX_VALUE) {
+            counts[slot] = count + 1;
+        }
+
+        if (count < warmup) {
+            return null;
+        }
+        if (score < threshold) {
+            anomalous[slot] = false;
+            return null;
+        }
+        if (anomalous[slot]) {
+            return null;
+        }
+        anomalous[slot] = true;
+        return LatencyAnomalyEvent.builder()
+                .targetId(targetId)
+                .timestamp(Instant.ofEpochMilli(timestamp))
+                .latencyMs(latencyMs)
+                .baselineLatencyMs(Math.round(Math.expm1(mean)))
+                .score(score)
+                .build();
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, means.length * 2);
+        means = Arrays.copyOf(means, capacity);
+        variances = Arrays.copyOf(variances, capacity);
+        counts = Arrays.copyOf(counts, capacity);
+        anomalous = Arrays.copyOf(anomalous, capacity);
+    }
+}
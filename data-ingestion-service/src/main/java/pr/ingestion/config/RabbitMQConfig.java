@@ -17,6 +17,11 @@ public class RabbitMQConfig {
     public static final String RESULTS_QUEUE_NAME = "check_results_queue";
     public static final String RESULTS_ROUTING_KEY = "results.check";
 
+    public static final String TARGET_EVENTS_EXCHANGE_NAME = "target_events_exchange";
+    public static final String INCIDENT_OPENED_ROUTING_KEY = "incident.opened";
+    public static final String INCIDENT_CLOSED_ROUTING_KEY = "incident.closed";
+    public static final String LATENCY_ANOMALY_ROUTING_KEY = "anomaly.latency";
+
     @Bean
     Queue resultsQueue() {
         return new Queue(RESULTS_QUEUE_NAME, true);
@@ -27,6 +32,11 @@ public class RabbitMQConfig {
         return new TopicExchange(RESULTS_EXCHANGE_NAME);
     }
 
+    @Bean
+    TopicExchange targetEventsExchange() {
+        return new TopicExchange(TARGET_EVENTS_EXCHANGE_NAME);
+    }
+
     @Bean
     Binding resultsBinding(Queue resultsQueue, TopicExchange resultsExchange) {
         return BindingBuilder.bind(resultsQueue).to(resultsExchange).with(RESULTS_ROUTING_KEY);
@@ -0,0 +1,72 @@
+package pr.ingestion.dedupe;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-capacity open-addressing set of non-zero {@code long} keys.
+ * The backing table is allocated once and reused across {@link #clear()} calls.
+ */
+class LongHashSet {
+
+    private final long[] table;
+    private final int mask;
+    private final int maxSize;
+    private int size;
+
+    LongHashSet(int capacity) {
+        // keep the load factor at or below 0.5 so probe chains stay short
+        int tableSize = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1;
+        this.table = new long[tableSize];
+        this.mask = tableSize - 1;
+        this.maxSize = capacity;
+    }
+
+    boolean contains(long key) {
+        int index = (int) key & mask;
+        long slot;
+        while ((slot = table[index]) != 0L) {
+            if (slot == key) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Adds the key unless the set is full.
+     *
+     * @return {@code false} when the key was already present or there is no room left
+     */
+    boolean add(long key) {
+        if (size >= maxSize) {
+            return false;
+        }
+        int index = (int) key & mask;
+        long slot;
+        while ((slot = table[index]) != 0L) {
+            if (slot == key) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        table[index] = key;
+        size++;
+        return true;
+    }
+
+    boolean isFull() {
+        return size >= maxSize;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        if (size > 0) {
+            Arrays.fill(table, 0L);
+            size = 0;
+        }
+    }
+}
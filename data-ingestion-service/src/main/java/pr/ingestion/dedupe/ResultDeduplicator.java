@@ -0,0 +1,122 @@
+package pr.ingestion.dedupe;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pr.ingestion.dto.CheckResult;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Drops check results that were already stored, e.g. after a RabbitMQ redelivery or a worker retry.
+ * <p>
+ * Each result is reduced to a 64-bit fingerprint of (targetId, checkId). The check ID is assigned by the
+ * scheduler per job, so every attempt at the same job has the same fingerprint even though the worker stamps
+ * each attempt with its own time; only results without a check ID fall back to (targetId, timestamp).
+ * <p>
+ * {@link #isDuplicate} only looks a result up; the caller {@link #remember}s it once it has been written, so a
+ * result whose write failed is taken again when it comes back. Fingerprints live in one of two fixed-size hash
+ * sets. The sets rotate every window (or earlier, when the current one fills up), so a result is recognised as a
+ * duplicate for at least one full window and memory never grows past two tables of {@code capacity} entries.
+ * <p>
+ * Prototype-scoped: each ingestion lane has its own instance for the targets it owns.
+ */
+@Slf4j
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class ResultDeduplicator {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long windowMillis;
+    private final LongSupplier clock;
+
+    private LongHashSet current;
+    private LongHashSet previous;
+    private long windowStart;
+
+    @Autowired
+    public ResultDeduplicator(@Value("${ingestion.dedupe.window.ms:300000}") long windowMillis,
+                              @Value("${ingestion.dedupe.capacity:262144}") int capacity) {
+        this(windowMillis, capacity, System::currentTimeMillis);
+    }
+
+    ResultDeduplicator(long windowMillis, int capacity, LongSupplier clock) {
+        this.windowMillis = windowMillis;
+        this.clock = clock;
+        this.current = new LongHashSet(capacity);
+        this.previous = new LongHashSet(capacity);
+        this.windowStart = clock.getAsLong();
+    }
+
+    /**
+     * Reports whether the result has been remembered within the dedupe window.
+     */
+    public synchronized boolean isDuplicate(CheckResult result) {
+        long fingerprint = fingerprint(result);
+        return current.contains(fingerprint) || previous.contains(fingerprint);
+    }
+
+    /**
+     * Remembers a result that has been written, so later copies of it are {@linkplain #isDuplicate duplicates}.
+     */
+    public synchronized void remember(CheckResult result) {
+        long fingerprint = fingerprint(result);
+        if (current.contains(fingerprint) || previous.contains(fingerprint)) {
+            return;
+        }
+
+        long now = clock.getAsLong();
+        if (now - windowStart >= windowMillis || current.isFull()) {
+            rotate(now);
+        }
+        current.add(fingerprint);
+    }
+
+    private void rotate(long now) {
+        if (current.isFull()) {
+            log.warn("Dedupe window filled up after {} ms with {} results; rotating early",
+                    now - windowStart, current.size());
+        }
+        LongHashSet recycled = previous;
+        recycled.clear();
+        previous = current;
+        current = recycled;
+        windowStart = now;
+    }
+
+    static long fingerprint(CheckResult result) {
+        long hash = FNV_OFFSET;
+        hash = mix(hash, result.getTargetId());
+        if (result.getCheckId() != null) {
+            hash = mix(hash, result.getCheckId());
+        } else {
+            hash = (hash ^ (result.getTimestamp() != null ? result.getTimestamp().toEpochMilli() : 0L)) * FNV_PRIME;
+        }
+
+        // murmur3 finalizer so the low bits used for table indexing are well distributed
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+
+        // zero marks an empty slot in LongHashSet
+        return hash != 0L ? hash : 1L;
+    }
+
+    private static long mix(long hash, String value) {
+        if (value == null) {
+            return (hash ^ 0xff) * FNV_PRIME;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        // field separator so ("ab", "c") and ("a", "bc") hash differently
+        return (hash ^ 0x1f) * FNV_PRIME;
+    }
+}
@@ -9,6 +9,7 @@ import java.time.Instant;
 @Builder
 public class CheckResult {
     private String targetId;
+    private String checkId;
     private Instant timestamp;
     private boolean isUp;
     private Integer statusCode;
@@ -0,0 +1,32 @@
+package pr.ingestion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Published to {@code target_events_exchange} when a target goes DOWN ({@code incident.opened}) and when it
+ * comes back UP ({@code incident.closed}). An incident is identified by its target and {@code openedAt}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IncidentEvent {
+
+    public enum Type {
+        OPENED,
+        CLOSED
+    }
+
+    private Type type;
+    private String targetId;
+    private Instant openedAt;
+    private Instant closedAt;
+    private int consecutiveFailures;
+    private Integer statusCode;
+    private String errorMessage;
+}
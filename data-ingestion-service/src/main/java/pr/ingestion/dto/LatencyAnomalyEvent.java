@@ -0,0 +1,24 @@
+package pr.ingestion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Published to {@code target_events_exchange} with routing key {@code anomaly.latency} when a target's latency
+ * jumps well above its recent baseline. Sent once per anomalous stretch, not for every slow check.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LatencyAnomalyEvent {
+    private String targetId;
+    private Instant timestamp;
+    private long latencyMs;
+    private long baselineLatencyMs;
+    private double score;
+}
@@ -1,48 +1,89 @@
 package pr.ingestion.listener;
 
-import com.influxdb.client.InfluxDBClient;
-import com.influxdb.client.WriteApiBlocking;
-import com.influxdb.client.domain.WritePrecision;
-import com.influxdb.client.write.Point;
-import lombok.RequiredArgsConstructor;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 import pr.ingestion.dto.CheckResult;
+import pr.ingestion.pipeline.Delivery;
+import pr.ingestion.pipeline.ResultLanes;
 
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands check results to the {@link ResultLanes}.
+ * <p>
+ * The queue is consumed with manual acknowledgement: the lane acknowledges a message once its result has been
+ * processed, so {@code spring.rabbitmq.listener.simple.prefetch} bounds the results in flight.
+ * <p>
+ * Exposes {@code ingestion.queue.wait} (time from the worker finishing the check to the result being received)
+ * and {@code ingestion.lanes.backlog} (results queued on the lanes).
+ */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class ResultListener {
 
-    private final InfluxDBClient influxDBClient;
-
-    @Value("${influxdb.org}")
-    private String organization;
+    private final ResultLanes resultLanes;
+    private final Timer queueWait;
 
-    @Value("${influxdb.bucket}")
-    private String bucket;
+    public ResultListener(ResultLanes resultLanes, MeterRegistry meterRegistry) {
+        this.resultLanes = resultLanes;
+        this.queueWait = Timer.builder("ingestion.queue.wait")
+                .description("Time check results spent in check_results_queue")
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofMinutes(10))
+                .register(meterRegistry);
+        Gauge.builder("ingestion.lanes.backlog", resultLanes, ResultLanes::backlog).register(meterRegistry);
+    }
 
+    // a single consumer keeps the queue order; the lanes provide the parallelism
     @RabbitListener(queues = "check_results_queue")
-    public void handleResult(CheckResult result) {
-        log.info("Received result for target ID: {}. Status: {}", result.getTargetId(), result.isUp() ? "UP" : "DOWN");
-
-        WriteApiBlocking writeApi = influxDBClient.getWriteApiBlocking();
-
-        Point point = Point.measurement("health_check")
-                .addTag("targetId", result.getTargetId())
-                .addField("isUp", result.isUp() ? 1 : 0)
-                .addField("latency_ms", result.getLatencyMs())
-                .addField("status_code", result.getStatusCode() != null ? result.getStatusCode() : 0)
-                .time(result.getTimestamp(), WritePrecision.MS);
+    public void handleResult(CheckResult result, Channel channel, @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) {
+        if (log.isDebugEnabled()) {
+            log.debug("Received result for target ID: {}. Status: {}", result.getTargetId(), result.isUp() ? "UP" : "DOWN");
+        }
+        if (result.getTimestamp() != null) {
+            queueWait.record(Math.max(0, System.currentTimeMillis() - result.getTimestamp().toEpochMilli()),
+                    TimeUnit.MILLISECONDS);
+        }
 
+        ChannelDelivery delivery = new ChannelDelivery(channel, deliveryTag);
         try {
-            writeApi.writePoint(bucket, organization, point);
-            log.info("Successfully wrote data point to InfluxDB for target ID: {}", result.getTargetId());
-        } catch (Exception e) {
-            log.error("Failed to write to InfluxDB for target ID: {}. Error: {}", result.getTargetId(), e.getMessage());
+            resultLanes.submit(result, delivery);
+        } catch (RuntimeException e) {
+            delivery.requeue();
+            throw e;
         }
     }
 
+    /**
+     * Settles a message on the channel it arrived on. A message that cannot be settled because the channel is gone
+     * is redelivered by the broker anyway.
+     */
+    private record ChannelDelivery(Channel channel, long deliveryTag) implements Delivery {
+
+        @Override
+        public void ack() {
+            try {
+                channel.basicAck(deliveryTag, false);
+            } catch (Exception e) {
+                log.warn("Failed to acknowledge result {}; the broker will redeliver it. Error: {}", deliveryTag, e.getMessage());
+            }
+        }
+
+        @Override
+        public void requeue() {
+            try {
+                channel.basicNack(deliveryTag, false, true);
+            } catch (Exception e) {
+                log.warn("Failed to requeue result {}; the broker will redeliver it. Error: {}", deliveryTag, e.getMessage());
+            }
+        }
+    }
 }
@@ -0,0 +1,30 @@
+package pr.ingestion.pipeline;
+
+/**
+ * Settles the broker message a check result arrived in, once its lane is done with it.
+ */
+public interface Delivery {
+
+    /**
+     * For results that did not come from the broker and need no acknowledgement.
+     */
+    Delivery NONE = new Delivery() {
+        @Override
+        public void ack() {
+        }
+
+        @Override
+        public void requeue() {
+        }
+    };
+
+    /**
+     * The result was processed; the broker may drop the message.
+     */
+    void ack();
+
+    /**
+     * The result was not processed; the broker should deliver the message again.
+     */
+    void requeue();
+}
@@ -0,0 +1,185 @@
+package pr.ingestion.pipeline;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import pr.ingestion.dto.CheckResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spreads check results over a fixed number of single-threaded lanes by target ID.
+ * <p>
+ * All results of a target land on the same lane and are processed in arrival order, so per-target state needs
+ * no cross-thread coordination while the lanes together use all cores. Each lane has a bounded queue; when it
+ * is full, {@link #submit(CheckResult, Delivery)} blocks, which stalls the RabbitMQ consumer.
+ * <p>
+ * A result's message is acknowledged by its lane only after the {@link ResultProcessor} finished with it, and
+ * requeued if processing failed, so the broker's prefetch limit bounds the results in flight and a crash loses
+ * none of them: the broker redelivers whatever was not acknowledged. Results still queued when {@link #stop()}
+ * gives up waiting are requeued as well.
+ */
+@Slf4j
+@Component
+public class ResultLanes implements SmartLifecycle {
+
+    private static final Queued SHUTDOWN = new Queued(CheckResult.builder().build(), Delivery.NONE);
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final Lane[] lanes;
+    private volatile boolean running;
+
+    /**
+     * @param processors supplies one {@link ResultProcessor} per lane (the prototype bean)
+     */
+    public ResultLanes(ObjectFactory<ResultProcessor> processors,
+                       @Value("${ingestion.lanes.count:0}") int laneCount,
+                       @Value("${ingestion.lanes.queue.size:1024}") int queueSize) {
+        int count = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+        this.lanes = new Lane[count];
+        for (int i = 0; i < count; i++) {
+            lanes[i] = new Lane(i, processors.getObject(), queueSize);
+        }
+    }
+
+    /**
+     * Queues a result that needs no acknowledgement.
+     */
+    public void submit(CheckResult result) {
+        submit(result, Delivery.NONE);
+    }
+
+    /**
+     * Queues the result on its target's lane, waiting for space if the lane is backed up. The lane settles the
+     * delivery once the result has been processed.
+     */
+    public void submit(CheckResult result, Delivery delivery) {
+        Lane lane = lanes[laneOf(result.getTargetId(), lanes.length)];
+        try {
+            lane.queue.put(new Queued(result, delivery));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing result for target ID: " + result.getTargetId(), e);
+        }
+    }
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * Returns the number of results queued on all lanes and not yet picked up.
+     */
+    public int backlog() {
+        int backlog = 0;
+        for (Lane lane : lanes) {
+            backlog += lane.queue.size();
+        }
+        return backlog;
+    }
+
+    static int laneOf(String targetId, int laneCount) {
+        if (targetId == null) {
+            return 0;
+        }
+        int hash = targetId.hashCode() * 0x9e3779b9;
+        return Math.floorMod(hash ^ (hash >>> 16), laneCount);
+    }
+
+    @Override
+    public void start() {
+        for (Lane lane : lanes) {
+            lane.thread.start();
+        }
+        running = true;
+        log.info("Started {} ingestion lanes", lanes.length);
+    }
+
+    @Override
+    public void stop() {
+        // queued results are still processed; SHUTDOWN is behind them
+        for (Lane lane : lanes) {
+            try {
+                lane.queue.put(SHUTDOWN);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        for (Lane lane : lanes) {
+            try {
+                lane.thread.join(TimeUnit.SECONDS.toMillis(SHUTDOWN_TIMEOUT_SECONDS));
+                if (lane.thread.isAlive()) {
+                    List<Queued> leftovers = new ArrayList<>();
+                    lane.queue.drainTo(leftovers);
+                    lane.thread.interrupt();
+                    leftovers.removeIf(queued -> queued == SHUTDOWN);
+                    leftovers.forEach(queued -> queued.delivery().requeue());
+                    log.warn("Ingestion lane {} did not drain within {} s; {} results requeued",
+                            lane.index, SHUTDOWN_TIMEOUT_SECONDS, leftovers.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // stop after the RabbitMQ listener containers (Integer.MAX_VALUE) so no results arrive while draining
+        return Integer.MAX_VALUE - 1024;
+    }
+
+    private static final class Lane {
+        final int index;
+        final ResultProcessor processor;
+        final BlockingQueue<Queued> queue;
+        final Thread thread;
+
+        Lane(int index, ResultProcessor processor, int queueSize) {
+            this.index = index;
+            this.processor = processor;
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+            this.thread = new Thread(this::run, "ingestion-lane-" + index);
+        }
+
+        void run() {
+            while (true) {
+                Queued queued;
+                try {
+                    queued = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (queued == SHUTDOWN) {
+                    return;
+                }
+                try {
+                    processor.process(queued.result());
+                } catch (Exception e) {
+                    log.error("Failed to process result for target ID: {}; requeueing it. Error: {}",
+                            queued.result().getTargetId(), e.getMessage());
+                    queued.delivery().requeue();
+                    continue;
+                }
+                queued.delivery().ack();
+            }
+        }
+    }
+
+    private record Queued(CheckResult result, Delivery delivery) {
+    }
+}
@@ -0,0 +1,72 @@
+package pr.ingestion.pipeline;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pr.ingestion.anomaly.AnomalyPublisher;
+import pr.ingestion.anomaly.LatencyAnomalyDetector;
+import pr.ingestion.dedupe.ResultDeduplicator;
+import pr.ingestion.dto.CheckResult;
+import pr.ingestion.dto.IncidentEvent;
+import pr.ingestion.dto.LatencyAnomalyEvent;
+import pr.ingestion.rollup.RollupAggregator;
+import pr.ingestion.slo.SloCounters;
+import pr.ingestion.state.IncidentPublisher;
+import pr.ingestion.state.TargetStateTracker;
+import pr.pulsesynapse.storage.TimeSeriesWriter;
+
+/**
+ * Runs one check result through dedupe, storage, state tracking, anomaly detection, rollups and SLO counters.
+ * <p>
+ * One instance per {@link ResultLanes} lane: the per-target components (dedupe, state, anomalies) are prototypes,
+ * so each lane owns the state of exactly the targets hashed to it and never contends with other lanes.
+ * <p>
+ * A result counts as stored once the {@link TimeSeriesWriter} accepted it. For a writer that batches, that means
+ * the point is in its buffer, and storing the batch is the writer's job from then on; a write the writer refuses
+ * throws out of {@link #process(CheckResult)}, and {@link ResultLanes} requeues the message.
+ */
+@Slf4j
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+@RequiredArgsConstructor
+public class ResultProcessor {
+
+    private final ResultDeduplicator resultDeduplicator;
+    private final TargetStateTracker targetStateTracker;
+    private final LatencyAnomalyDetector latencyAnomalyDetector;
+    private final RollupAggregator rollupAggregator;
+    private final SloCounters sloCounters;
+    private final TimeSeriesWriter timeSeriesWriter;
+    private final IncidentPublisher incidentPublisher;
+    private final AnomalyPublisher anomalyPublisher;
+
+    public void process(CheckResult result) {
+        if (resultDeduplicator.isDuplicate(result)) {
+            log.info("Dropping duplicate result for target ID: {} (check ID: {})", result.getTargetId(), result.getCheckId());
+            return;
+        }
+
+        long timestamp = result.getTimestamp() != null ? result.getTimestamp().toEpochMilli() : System.currentTimeMillis();
+        // a failed write throws before the result is remembered or counted anywhere, so the lane requeues its
+        // message and the redelivery is processed in full
+        timeSeriesWriter.write(result.getTargetId(), timestamp, result.isUp(),
+                result.getStatusCode() != null ? result.getStatusCode() : 0,
+                result.getLatencyMs() != null ? result.getLatencyMs() : TimeSeriesWriter.NO_LATENCY);
+        resultDeduplicator.remember(result);
+
+        IncidentEvent incident = targetStateTracker.record(result);
+        if (incident != null) {
+            incidentPublisher.publish(incident);
+        }
+
+        LatencyAnomalyEvent anomaly = latencyAnomalyDetector.record(result);
+        if (anomaly != null) {
+            anomalyPublisher.publish(anomaly);
+        }
+
+        rollupAggregator.record(result);
+        sloCounters.record(result);
+    }
+}
@@ -0,0 +1,275 @@
+package pr.ingestion.rollup;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pr.ingestion.dto.CheckResult;
+import pr.pulsesynapse.storage.rollup.Rollup;
+import pr.pulsesynapse.storage.rollup.RollupResolution;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Maintains per-target minute, hour and day rollups of the check results as they stream in.
+ * <p>
+ * Windows are assigned by the result's own timestamp. A window is handed out for writing once the wall clock
+ * passes its end plus the grace period, and is kept around for the retention period afterwards: results that
+ * arrive late within that time are merged in and the full window is handed out again, overwriting the earlier
+ * point. Results older than the retention period only land in the raw measurement, whether or not their target
+ * still has windows in memory.
+ * <p>
+ * Every rollup carries a writer tag, and readers sum the points of a window. The tag is the instance's stable
+ * {@code ingestion.instance-id} (the host name unless configured), so the number of series grows with the
+ * instances rather than with every restart. Only what this process has seen since it started is in memory, so a
+ * window that was already open when it started is written under {@code <instance-id>~resumed} instead, next to
+ * the point the previous process left under the plain ID; only a second restart within the same window replaces
+ * that resumed point. Windows longer than the checkpoint interval are also handed out while still open, at most
+ * once per interval, so a crash loses at most one interval of them rather than a whole hour or day.
+ * <p>
+ * Shared by all ingestion lanes; targets are spread over lock stripes so lanes rarely contend.
+ */
+@Component
+public class RollupAggregator {
+
+    private static final RollupResolution[] RESOLUTIONS = RollupResolution.values();
+    private static final int STRIPES = 64;
+    private static final String RESUMED_SUFFIX = "~resumed";
+
+    private final long graceMillis;
+    private final long retentionMillis;
+    private final long checkpointMillis;
+    private final String writer;
+    private final String resumedWriter;
+    private final long startedAt;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final LongAdder lateDropped = new LongAdder();
+
+    /** Windows ending at or before this have been evicted, or would have been; kept apart from the targets. */
+    private volatile long evictedBefore = Long.MIN_VALUE;
+
+    @Autowired
+    public RollupAggregator(@Value("${ingestion.rollup.grace.ms:30000}") long graceMillis,
+                            @Value("${ingestion.rollup.retention.ms:600000}") long retentionMillis,
+                            @Value("${ingestion.rollup.checkpoint.ms:300000}") long checkpointMillis,
+                            @Value("${ingestion.instance-id:}") String instanceId) {
+        this(graceMillis, retentionMillis, checkpointMillis, instanceIdOrHostName(instanceId), System.currentTimeMillis());
+    }
+
+    RollupAggregator(long graceMillis, long retentionMillis, long checkpointMillis, String instanceId, long startedAt) {
+        this.graceMillis = graceMillis;
+        this.retentionMillis = retentionMillis;
+        this.checkpointMillis = checkpointMillis;
+        this.writer = instanceId;
+        this.resumedWriter = instanceId + RESUMED_SUFFIX;
+        this.startedAt = startedAt;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public void record(CheckResult result) {
+        long timestamp = result.getTimestamp() != null ? result.getTimestamp().toEpochMilli() : System.currentTimeMillis();
+        Long latency = result.getLatencyMs();
+        record(result.getTargetId(), timestamp, result.isUp(), latency != null ? latency : 0L, latency != null);
+    }
+
+    void record(String targetId, long timestamp, boolean up, long latencyMs, boolean hasLatency) {
+        Stripe stripe = stripeOf(targetId);
+        synchronized (stripe) {
+            TargetRollups rollups = stripe.targets.computeIfAbsent(targetId, id -> new TargetRollups());
+            for (int i = 0; i < RESOLUTIONS.length; i++) {
+                RollupResolution resolution = RESOLUTIONS[i];
+                RollupWindow window = rollups.series[i].windowFor(resolution.windowStart(timestamp), resolution);
+                if (window == null) {
+                    lateDropped.increment();
+                    continue;
+                }
+                window.add(up, latencyMs, hasLatency);
+            }
+        }
+    }
+
+    /**
+     * Returns snapshots of every closed window that changed since it was last handed out, plus open windows due
+     * for a checkpoint, and evicts windows whose retention has expired.
+     */
+    public List<Rollup> collectDue(long now) {
+        return collect(now, false);
+    }
+
+    /**
+     * Returns snapshots of every window that changed since it was last handed out, open or not, e.g. before
+     * shutting down.
+     */
+    public List<Rollup> collectAll(long now) {
+        return collect(now, true);
+    }
+
+    private List<Rollup> collect(long now, boolean includeOpen) {
+        // raised before any window goes, so a late result cannot bring back a window of a target that was removed
+        evictedBefore = Math.max(evictedBefore, now - graceMillis - retentionMillis);
+        List<Rollup> due = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                Iterator<Map.Entry<String, TargetRollups>> iterator = stripe.targets.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<String, TargetRollups> entry = iterator.next();
+                    TargetRollups rollups = entry.getValue();
+                    for (int i = 0; i < RESOLUTIONS.length; i++) {
+                        rollups.series[i].collectDue(entry.getKey(), RESOLUTIONS[i], now, includeOpen, due);
+                    }
+                    if (rollups.isEmpty()) {
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Marks the given rollups as unwritten again, e.g. after a failed write, so the next flush retries them.
+     * Rollups whose window has already been evicted are lost.
+     */
+    public void markUnwritten(List<Rollup> rollups) {
+        for (Rollup rollup : rollups) {
+            Stripe stripe = stripeOf(rollup.getTargetId());
+            synchronized (stripe) {
+                TargetRollups targetRollups = stripe.targets.get(rollup.getTargetId());
+                if (targetRollups == null) {
+                    continue;
+                }
+                RollupWindow window = targetRollups.series[rollup.getResolution().ordinal()].find(rollup.getWindowStart());
+                if (window != null) {
+                    window.dirty = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns how many window updates were dropped because they arrived after the window was evicted, and resets
+     * the counter.
+     */
+    public long drainLateDropped() {
+        return lateDropped.sumThenReset();
+    }
+
+    private String writerOf(RollupWindow window) {
+        return window.start < startedAt ? resumedWriter : writer;
+    }
+
+    private static String instanceIdOrHostName(String instanceId) {
+        if (instanceId != null && !instanceId.isBlank()) {
+            return instanceId;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("Cannot resolve the host name; set ingestion.instance-id", e);
+        }
+    }
+
+    private Stripe stripeOf(String targetId) {
+        int hash = Objects.hashCode(targetId) * 0x9e3779b9;
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private final class Stripe {
+        final Map<String, TargetRollups> targets = new HashMap<>();
+    }
+
+    private final class TargetRollups {
+        final WindowSeries[] series = new WindowSeries[RESOLUTIONS.length];
+
+        TargetRollups() {
+            for (int i = 0; i < series.length; i++) {
+                series[i] = new WindowSeries();
+            }
+        }
+
+        boolean isEmpty() {
+            for (WindowSeries windowSeries : series) {
+                if (!windowSeries.windows.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Open and retained windows of one resolution, ordered by start. Usually holds one or two windows.
+     */
+    private final class WindowSeries {
+        final List<RollupWindow> windows = new ArrayList<>(2);
+
+        RollupWindow find(long start) {
+            for (int i = windows.size() - 1; i >= 0; i--) {
+                RollupWindow window = windows.get(i);
+                if (window.start == start) {
+                    return window;
+                }
+                if (window.start < start) {
+                    return null;
+                }
+            }
+            return null;
+        }
+
+        RollupWindow windowFor(long start, RollupResolution resolution) {
+            int insertAt = windows.size();
+            while (insertAt > 0) {
+                RollupWindow window = windows.get(insertAt - 1);
+                if (window.start == start) {
+                    return window;
+                }
+                if (window.start < start) {
+                    break;
+                }
+                insertAt--;
+            }
+
+            if (start + resolution.getWindowMillis() <= evictedBefore) {
+                // the window was already written and forgotten; re-creating it would overwrite this writer's point
+                return null;
+            }
+            RollupWindow window = new RollupWindow(start, start + resolution.getWindowMillis());
+            windows.add(insertAt, window);
+            return window;
+        }
+
+        void collectDue(String targetId, RollupResolution resolution, long now, boolean includeOpen,
+                        List<Rollup> due) {
+            boolean checkpointed = resolution.getWindowMillis() > checkpointMillis;
+            Iterator<RollupWindow> iterator = windows.iterator();
+            while (iterator.hasNext()) {
+                RollupWindow window = iterator.next();
+                if (now < window.end + graceMillis) {
+                    if (window.dirty && (includeOpen || checkpointed && now >= window.handedOutAt + checkpointMillis)) {
+                        due.add(window.snapshot(targetId, resolution, writerOf(window)));
+                        window.dirty = false;
+                        window.handedOutAt = now;
+                    }
+                    continue;
+                }
+                if (window.dirty) {
+                    due.add(window.snapshot(targetId, resolution, writerOf(window)));
+                    window.dirty = false;
+                    window.handedOutAt = now;
+                }
+                if (now >= window.end + graceMillis + retentionMillis) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+}
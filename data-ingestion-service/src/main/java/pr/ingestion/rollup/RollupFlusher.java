@@ -0,0 +1,57 @@
+package pr.ingestion.rollup;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pr.pulsesynapse.storage.TimeSeriesWriter;
+import pr.pulsesynapse.storage.rollup.Rollup;
+import pr.pulsesynapse.storage.rollup.RollupResolution;
+
+import java.util.List;
+
+/**
+ * Periodically writes closed rollup windows and checkpoints of open ones, one measurement per
+ * {@link RollupResolution}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RollupFlusher {
+
+    private final RollupAggregator rollupAggregator;
+    private final TimeSeriesWriter timeSeriesWriter;
+
+    @Scheduled(fixedDelayString = "${ingestion.rollup.flush.ms:5000}")
+    public void flush() {
+        long lateDropped = rollupAggregator.drainLateDropped();
+        if (lateDropped > 0) {
+            log.warn("Dropped {} rollup updates for windows that were already evicted", lateDropped);
+        }
+
+        write(rollupAggregator.collectDue(System.currentTimeMillis()));
+    }
+
+    /**
+     * Writes the windows still open on shutdown, so a restart doesn't lose what this instance has aggregated.
+     */
+    @PreDestroy
+    public void flushOpenWindows() {
+        write(rollupAggregator.collectAll(System.currentTimeMillis()));
+    }
+
+    private void write(List<Rollup> due) {
+        if (due.isEmpty()) {
+            return;
+        }
+
+        try {
+            timeSeriesWriter.writeRollups(due);
+            log.info("Wrote {} rollup points", due.size());
+        } catch (Exception e) {
+            log.error("Failed to write {} rollup points. Error: {}", due.size(), e.getMessage());
+            rollupAggregator.markUnwritten(due);
+        }
+    }
+}
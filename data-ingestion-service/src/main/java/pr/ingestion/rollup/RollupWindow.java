@@ -0,0 +1,39 @@
+package pr.ingestion.rollup;
+
+import pr.pulsesynapse.storage.rollup.Rollup;
+import pr.pulsesynapse.storage.rollup.RollupAccumulator;
+import pr.pulsesynapse.storage.rollup.RollupResolution;
+
+/**
+ * Mutable accumulator behind a {@link Rollup}. Guarded by the owning {@link RollupAggregator}.
+ */
+class RollupWindow {
+
+    final long start;
+    final long end;
+
+    private final RollupAccumulator accumulator = new RollupAccumulator();
+
+    /** Whether the window holds data that has not been written since the last change. */
+    boolean dirty;
+
+    /** Wall-clock time the window was last handed out for writing; open windows are checkpointed from it. */
+    long handedOutAt;
+
+    RollupWindow(long start, long end) {
+        this.start = start;
+        this.end = end;
+        this.handedOutAt = start;
+    }
+
+    void add(boolean up, long latencyMs, boolean hasLatency) {
+        accumulator.add(up, latencyMs, hasLatency);
+        dirty = true;
+    }
+
+    Rollup snapshot(String targetId, RollupResolution resolution, String writer) {
+        Rollup rollup = accumulator.toRollup(targetId, resolution, start);
+        rollup.setWriter(writer);
+        return rollup;
+    }
+}
@@ -0,0 +1,97 @@
+package pr.ingestion.service;
+
+import com.google.protobuf.Timestamp;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.grpc.server.service.GrpcService;
+import pr.ingestion.slo.SloCounters;
+import pr.ingestion.slo.SloCounts;
+import pr.pulsesynapse.proto.SloDefinition;
+import pr.pulsesynapse.proto.SloServiceGrpc;
+import pr.pulsesynapse.proto.SloStatus;
+import pr.pulsesynapse.proto.SloStatusRequest;
+import pr.pulsesynapse.proto.SloWindow;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+@Slf4j
+@GrpcService
+@RequiredArgsConstructor
+public class SloService extends SloServiceGrpc.SloServiceImplBase {
+
+    private static final long HOUR_MILLIS = 3_600_000L;
+    private static final long DAY_MILLIS = 86_400_000L;
+    private static final int DEFAULT_WINDOW_DAYS = 30;
+
+    private final SloCounters sloCounters;
+
+    @Value("${ingestion.slo.max-window.days:35}")
+    private int maxWindowDays;
+
+    @Override
+    public void getSloStatus(SloStatusRequest request, StreamObserver<SloStatus> responseObserver) {
+        SloDefinition slo = request.getSlo();
+        int windowDays = slo.getWindowDays() > 0 ? slo.getWindowDays() : DEFAULT_WINDOW_DAYS;
+        if (request.getTargetId().isEmpty() || !(slo.getTargetPercentage() > 0 && slo.getTargetPercentage() < 100)
+                || windowDays > maxWindowDays) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Expected a target ID, an SLO target between 0 and 100 percent, exclusive, and a window of at most "
+                            + maxWindowDays + " days")
+                    .asRuntimeException());
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long windowStart = slo.getWindow() == SloWindow.SLO_WINDOW_CALENDAR_MONTH
+                ? monthStart(now)
+                : Math.floorDiv(now - windowDays * DAY_MILLIS, HOUR_MILLIS) * HOUR_MILLIS;
+        double errorBudget = 1.0 - slo.getTargetPercentage() / 100.0;
+
+        // counting starts with the first request for a target; trackedSince tells the caller
+        sloCounters.track(request.getTargetId(), now - windowStart, now);
+        // later results than now count too, so a worker clock running ahead does not hide them
+        SloCounts window = sloCounters.count(request.getTargetId(), windowStart, Long.MAX_VALUE);
+        SloCounts lastHour = sloCounters.count(request.getTargetId(), now - HOUR_MILLIS, Long.MAX_VALUE);
+        SloCounts lastSixHours = sloCounters.count(request.getTargetId(), now - 6 * HOUR_MILLIS, Long.MAX_VALUE);
+
+        SloStatus.Builder status = SloStatus.newBuilder()
+                .setTargetId(request.getTargetId())
+                .setWindowStart(toTimestamp(windowStart))
+                .setTotalCount(window.total())
+                .setGoodCount(window.good())
+                .setSliPercentage(window.total() == 0 ? 100.0 : 100.0 * window.good() / window.total())
+                .setErrorBudgetRemainingPercentage(window.total() == 0 ? 100.0 : 100.0 * (1.0 - window.bad() / (errorBudget * window.total())))
+                .setBurnRate1H(burnRate(lastHour, errorBudget))
+                .setBurnRate6H(burnRate(lastSixHours, errorBudget));
+        if (window.trackedSince() != Long.MAX_VALUE) {
+            status.setTrackedSince(toTimestamp(window.trackedSince()));
+        }
+
+        responseObserver.onNext(status.build());
+        responseObserver.onCompleted();
+    }
+
+    /**
+     * Error rate relative to the budgeted one: 1.0 spends the budget exactly over the window.
+     */
+    private static double burnRate(SloCounts counts, double errorBudget) {
+        return counts.total() == 0 ? 0.0 : (double) counts.bad() / counts.total() / errorBudget;
+    }
+
+    private static long monthStart(long nowMillis) {
+        LocalDate today = LocalDate.ofInstant(Instant.ofEpochMilli(nowMillis), ZoneOffset.UTC);
+        return today.withDayOfMonth(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+
+    private static Timestamp toTimestamp(long timestampMillis) {
+        return Timestamp.newBuilder()
+                .setSeconds(Math.floorDiv(timestampMillis, 1000L))
+                .setNanos((int) Math.floorMod(timestampMillis, 1000L) * 1_000_000)
+                .build();
+    }
+}
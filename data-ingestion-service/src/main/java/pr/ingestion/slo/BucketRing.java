@@ -0,0 +1,101 @@
+package pr.ingestion.slo;
+
+import java.util.Arrays;
+
+/**
+ * Good and total check counts in fixed-width time buckets, over a sliding span of {@code buckets} buckets ending
+ * with the newest one seen.
+ * <p>
+ * Adding a result is O(1): moving the head forward clears the buckets it skips, at most once each per bucket of
+ * elapsed time. Results older than the span are dropped. Not thread-safe.
+ */
+final class BucketRing {
+
+    private final long bucketMillis;
+    private final int[] good;
+    private final int[] total;
+    private long head = Long.MIN_VALUE;
+
+    BucketRing(long bucketMillis, int buckets) {
+        this.bucketMillis = bucketMillis;
+        this.good = new int[buckets];
+        this.total = new int[buckets];
+    }
+
+    void add(long timestampMillis, boolean up) {
+        long bucket = Math.floorDiv(timestampMillis, bucketMillis);
+        if (head == Long.MIN_VALUE) {
+            head = bucket;
+        } else if (bucket > head) {
+            advance(bucket);
+        } else if (bucket <= head - total.length) {
+            return;
+        }
+        int index = indexOf(bucket);
+        total[index]++;
+        if (up) {
+            good[index]++;
+        }
+    }
+
+    /**
+     * Adds the counts of every retained bucket overlapping {@code [fromMillis, toMillis)} to {@code counts}
+     * (good first, then total). The first bucket is counted in full even if the range starts inside it.
+     */
+    void sum(long fromMillis, long toMillis, long[] counts) {
+        if (head == Long.MIN_VALUE || toMillis <= fromMillis) {
+            return;
+        }
+        long first = Math.max(Math.floorDiv(fromMillis, bucketMillis), head - total.length + 1);
+        long last = Math.min(Math.floorDiv(toMillis - 1, bucketMillis), head);
+        for (long bucket = first; bucket <= last; bucket++) {
+            int index = indexOf(bucket);
+            counts[0] += good[index];
+            counts[1] += total[index];
+        }
+    }
+
+    /**
+     * Returns the start of the oldest bucket still retained, or {@link Long#MAX_VALUE} if nothing was added yet.
+     */
+    long retainedSince() {
+        return head == Long.MIN_VALUE ? Long.MAX_VALUE : (head - total.length + 1) * bucketMillis;
+    }
+
+    int buckets() {
+        return total.length;
+    }
+
+    /**
+     * Returns a ring of the given size holding the counts of this one that fit into it.
+     */
+    BucketRing resized(int buckets) {
+        BucketRing resized = new BucketRing(bucketMillis, buckets);
+        resized.head = head;
+        if (head != Long.MIN_VALUE) {
+            for (long bucket = head - Math.min(buckets, total.length) + 1; bucket <= head; bucket++) {
+                resized.good[resized.indexOf(bucket)] = good[indexOf(bucket)];
+                resized.total[resized.indexOf(bucket)] = total[indexOf(bucket)];
+            }
+        }
+        return resized;
+    }
+
+    private void advance(long bucket) {
+        if (bucket - head >= total.length) {
+            Arrays.fill(good, 0);
+            Arrays.fill(total, 0);
+        } else {
+            for (long cleared = head + 1; cleared <= bucket; cleared++) {
+                int index = indexOf(cleared);
+                good[index] = 0;
+                total[index] = 0;
+            }
+        }
+        head = bucket;
+    }
+
+    private int indexOf(long bucket) {
+        return (int) Math.floorMod(bucket, (long) total.length);
+    }
+}
@@ -0,0 +1,152 @@
+package pr.ingestion.slo;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pr.ingestion.dto.CheckResult;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.Objects;
+
+/**
+ * Per-target good/total check counters for SLO reporting, so error budgets and burn rates are answered from
+ * memory instead of a scan over the whole SLO window.
+ * <p>
+ * Only targets someone asked about are counted: {@link #track(String, long, long)} starts counting a target, and
+ * results of all other targets cost a map lookup and nothing else. A tracked target has two {@link BucketRing}s
+ * updated in O(1) per result: five-minute buckets over the last six hours for burn rates, and hourly buckets over
+ * the longest SLO window asked for, up to {@code max-window.days}. A count uses the finest ring that reaches back
+ * to the start of the range, so ranges are rounded down to that ring's bucket. Targets nobody asked about for
+ * {@code idle.days} are forgotten.
+ * <p>
+ * Counters live in memory only and start over on restart or when tracking starts; {@link SloCounts#trackedSince()}
+ * says from when a count is complete. Shared by all ingestion lanes; targets are spread over lock stripes so lanes
+ * rarely contend.
+ */
+@Component
+public class SloCounters {
+
+    static final long FINE_BUCKET_MILLIS = 300_000L;
+    static final long COARSE_BUCKET_MILLIS = 3_600_000L;
+    private static final int FINE_BUCKETS = 6 * 12 + 1;
+    private static final int STRIPES = 64;
+
+    private final int maxCoarseBuckets;
+    private final long idleMillis;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    @Autowired
+    public SloCounters(@Value("${ingestion.slo.max-window.days:35}") int maxWindowDays,
+                       @Value("${ingestion.slo.idle.days:7}") int idleDays) {
+        this.maxCoarseBuckets = coarseBucketsFor(TimeUnit.DAYS.toMillis(maxWindowDays));
+        this.idleMillis = TimeUnit.DAYS.toMillis(idleDays);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public void record(CheckResult result) {
+        long timestamp = result.getTimestamp() != null ? result.getTimestamp().toEpochMilli() : System.currentTimeMillis();
+        record(result.getTargetId(), timestamp, result.isUp());
+    }
+
+    void record(String targetId, long timestamp, boolean up) {
+        Stripe stripe = stripeOf(targetId);
+        synchronized (stripe) {
+            TargetCounters counters = stripe.targets.get(targetId);
+            if (counters == null) {
+                return;
+            }
+            counters.fine.add(timestamp, up);
+            counters.coarse.add(timestamp, up);
+        }
+    }
+
+    /**
+     * Counts the target's results from now on, over at least {@code windowMillis} (capped at
+     * {@code max-window.days}), and keeps it from being forgotten as idle.
+     */
+    public void track(String targetId, long windowMillis, long now) {
+        int coarseBuckets = Math.min(coarseBucketsFor(windowMillis), maxCoarseBuckets);
+        Stripe stripe = stripeOf(targetId);
+        synchronized (stripe) {
+            TargetCounters counters = stripe.targets.get(targetId);
+            if (counters == null) {
+                stripe.targets.put(targetId, new TargetCounters(coarseBuckets, now));
+                return;
+            }
+            if (counters.coarse.buckets() < coarseBuckets) {
+                // the smaller ring has already dropped what lies before it
+                if (counters.coarse.retainedSince() != Long.MAX_VALUE) {
+                    counters.trackedFrom = Math.max(counters.trackedFrom, counters.coarse.retainedSince());
+                }
+                counters.coarse = counters.coarse.resized(coarseBuckets);
+            }
+            counters.lastAsked = now;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ingestion.slo.evict.ms:3600000}")
+    public void evictIdle() {
+        evictIdle(System.currentTimeMillis());
+    }
+
+    /**
+     * Forgets targets nobody asked about for {@code idle.days}.
+     */
+    void evictIdle(long now) {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.targets.values().removeIf(counters -> now - counters.lastAsked > idleMillis);
+            }
+        }
+    }
+
+    /**
+     * Counts the target's checks in {@code [fromMillis, toMillis)}.
+     */
+    public SloCounts count(String targetId, long fromMillis, long toMillis) {
+        Stripe stripe = stripeOf(targetId);
+        synchronized (stripe) {
+            TargetCounters counters = stripe.targets.get(targetId);
+            if (counters == null) {
+                return SloCounts.NONE;
+            }
+            BucketRing ring = fromMillis >= counters.fine.retainedSince() ? counters.fine : counters.coarse;
+            long[] counts = new long[2];
+            ring.sum(fromMillis, toMillis, counts);
+            long trackedSince = Math.max(counters.trackedFrom, counters.coarse.retainedSince());
+            return new SloCounts(counts[0], counts[1], trackedSince);
+        }
+    }
+
+    private static int coarseBucketsFor(long windowMillis) {
+        // one more than the window, for the bucket in progress
+        return (int) Math.ceilDiv(windowMillis, COARSE_BUCKET_MILLIS) + 1;
+    }
+
+    private Stripe stripeOf(String targetId) {
+        int hash = Objects.hashCode(targetId) * 0x9e3779b9;
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private final class Stripe {
+        final Map<String, TargetCounters> targets = new HashMap<>();
+    }
+
+    private static final class TargetCounters {
+        final BucketRing fine = new BucketRing(FINE_BUCKET_MILLIS, FINE_BUCKETS);
+        BucketRing coarse;
+        long trackedFrom;
+        long lastAsked;
+
+        TargetCounters(int coarseBuckets, long now) {
+            this.coarse = new BucketRing(COARSE_BUCKET_MILLIS, coarseBuckets);
+            this.trackedFrom = now;
+            this.lastAsked = now;
+        }
+    }
+}
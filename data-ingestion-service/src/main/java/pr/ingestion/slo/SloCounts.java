@@ -0,0 +1,13 @@
+package pr.ingestion.slo;
+
+/**
+ * Good (UP) and total checks of a target within a range, counted since {@code trackedSince}.
+ */
+public record SloCounts(long good, long total, long trackedSince) {
+
+    public static final SloCounts NONE = new SloCounts(0, 0, Long.MAX_VALUE);
+
+    public long bad() {
+        return total - good;
+    }
+}
@@ -0,0 +1,28 @@
+package pr.ingestion.state;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+import pr.ingestion.config.RabbitMQConfig;
+import pr.ingestion.dto.IncidentEvent;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IncidentPublisher {
+
+    private final RabbitTemplate rabbitTemplate;
+
+    public void publish(IncidentEvent event) {
+        String routingKey = event.getType() == IncidentEvent.Type.OPENED
+                ? RabbitMQConfig.INCIDENT_OPENED_ROUTING_KEY
+                : RabbitMQConfig.INCIDENT_CLOSED_ROUTING_KEY;
+        try {
+            rabbitTemplate.convertAndSend(RabbitMQConfig.TARGET_EVENTS_EXCHANGE_NAME, routingKey, event);
+            log.info("Published {} for target ID: {}", routingKey, event.getTargetId());
+        } catch (Exception e) {
+            log.error("Failed to publish {} for target ID: {}. Error: {}", routingKey, event.getTargetId(), e.getMessage());
+        }
+    }
+}
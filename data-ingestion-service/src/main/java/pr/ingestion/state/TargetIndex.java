@@ -0,0 +1,97 @@
+package pr.ingestion.state;
+
+/**
+ * Assigns dense {@code int} slots to target IDs, so per-target state can live in parallel primitive arrays
+ * instead of a map of boxed objects.
+ * <p>
+ * Open-addressing table with linear probing; slots are handed out in insertion order and never reused. Not
+ * thread-safe.
+ */
+public class TargetIndex {
+
+    private String[] keys;
+    private int[] hashes;
+    private int[] slots;
+    private int mask;
+    private int size;
+
+    public TargetIndex(int expectedTargets) {
+        int tableSize = Integer.highestOneBit(Math.max(2, expectedTargets) * 2 - 1) << 1;
+        allocate(tableSize);
+    }
+
+    /**
+     * Returns the slot of the target, or -1 if it has none yet.
+     */
+    public int get(String targetId) {
+        int hash = hash(targetId);
+        int index = hash & mask;
+        String key;
+        while ((key = keys[index]) != null) {
+            if (hashes[index] == hash && key.equals(targetId)) {
+                return slots[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the slot of the target, assigning the next free one on first sight.
+     */
+    public int getOrAdd(String targetId) {
+        int hash = hash(targetId);
+        int index = hash & mask;
+        String key;
+        while ((key = keys[index]) != null) {
+            if (hashes[index] == hash && key.equals(targetId)) {
+                return slots[index];
+            }
+            index = (index + 1) & mask;
+        }
+        int slot = size++;
+        keys[index] = targetId;
+        hashes[index] = hash;
+        slots[index] = slot;
+        // keep the load factor at or below 0.5 so probe chains stay short
+        if (size * 2 > keys.length) {
+            resize();
+        }
+        return slot;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void resize() {
+        String[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        int[] oldSlots = slots;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int index = oldHashes[i] & mask;
+                while (keys[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                hashes[index] = oldHashes[i];
+                slots[index] = oldSlots[i];
+            }
+        }
+    }
+
+    private void allocate(int tableSize) {
+        keys = new String[tableSize];
+        hashes = new int[tableSize];
+        slots = new int[tableSize];
+        mask = tableSize - 1;
+    }
+
+    private static int hash(String targetId) {
+        // spread String.hashCode, whose low bits are weak for ids sharing a prefix
+        int hash = targetId.hashCode() * 0x9e3779b9;
+        return hash ^ (hash >>> 16);
+    }
+}
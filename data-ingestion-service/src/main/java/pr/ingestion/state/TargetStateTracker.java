@@ -0,0 +1,140 @@
+package pr.ingestion.state;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pr.ingestion.dto.CheckResult;
+import pr.ingestion.dto.IncidentEvent;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Tracks the UP/DOWN state of every target from its check results and reports state transitions as incidents.
+ * <p>
+ * A target only changes state after {@code failure-threshold} consecutive failed checks (UP to DOWN) or
+ * {@code recovery-threshold} consecutive successful ones (DOWN to UP), so a single flapping check does not
+ * open and close incidents. The transition is dated to the first check of the streak. Results older than the
+ * newest one seen for the target are ignored, since they say nothing about the current state.
+ * <p>
+ * State is held in parallel primitive arrays indexed through {@link TargetIndex}, and is lost on restart: a
+ * target that is still down re-opens its incident once the threshold is reached again. Prototype-scoped: each
+ * ingestion lane tracks the targets it owns.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class TargetStateTracker {
+
+    public static final byte UNKNOWN = 0;
+    public static final byte UP = 1;
+    public static final byte DOWN = 2;
+
+    private static final int INITIAL_TARGETS = 1024;
+
+    private final int failureThreshold;
+    private final int recoveryThreshold;
+    private final TargetIndex index = new TargetIndex(INITIAL_TARGETS);
+
+    private byte[] states = new byte[INITIAL_TARGETS];
+    private int[] failures = new int[INITIAL_TARGETS];
+    private int[] successes = new int[INITIAL_TARGETS];
+    private long[] streakStart = new long[INITIAL_TARGETS];
+    private long[] lastChange = new long[INITIAL_TARGETS];
+    private long[] lastSeen = new long[INITIAL_TARGETS];
+
+    public TargetStateTracker(@Value("${ingestion.state.failure-threshold:3}") int failureThreshold,
+                              @Value("${ingestion.state.recovery-threshold:2}") int recoveryThreshold) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.recoveryThreshold = Math.max(1, recoveryThreshold);
+    }
+
+    /**
+     * Applies the result to the target's state.
+     *
+     * @return the incident event if the result completed a transition into or out of DOWN, otherwise {@code null}
+     */
+    public IncidentEvent record(CheckResult result) {
+        long timestamp = result.getTimestamp() != null ? result.getTimestamp().toEpochMilli() : System.currentTimeMillis();
+        return record(result.getTargetId(), timestamp, result.isUp(), result.getStatusCode(), result.getErrorMessage());
+    }
+
+    synchronized IncidentEvent record(String targetId, long timestamp, boolean up, Integer statusCode, String errorMessage) {
+        int slot = index.getOrAdd(targetId);
+        if (slot >= states.length) {
+            grow(slot + 1);
+        }
+        if (timestamp < lastSeen[slot]) {
+            return null;
+        }
+        lastSeen[slot] = timestamp;
+
+        if (up) {
+            if (successes[slot]++ == 0) {
+                streakStart[slot] = timestamp;
+            }
+            failures[slot] = 0;
+            if (states[slot] == UP || successes[slot] < recoveryThreshold) {
+                return null;
+            }
+            byte previous = states[slot];
+            long openedAt = lastChange[slot];
+            states[slot] = UP;
+            lastChange[slot] = streakStart[slot];
+            if (previous != DOWN) {
+                return null;
+            }
+            return IncidentEvent.builder()
+                    .type(IncidentEvent.Type.CLOSED)
+                    .targetId(targetId)
+                    .openedAt(Instant.ofEpochMilli(openedAt))
+                    .closedAt(Instant.ofEpochMilli(streakStart[slot]))
+                    .statusCode(statusCode)
+                    .build();
+        }
+
+        if (failures[slot]++ == 0) {
+            streakStart[slot] = timestamp;
+        }
+        successes[slot] = 0;
+        if (states[slot] == DOWN || failures[slot] < failureThreshold) {
+            return null;
+        }
+        states[slot] = DOWN;
+        lastChange[slot] = streakStart[slot];
+        return IncidentEvent.builder()
+                .type(IncidentEvent.Type.OPENED)
+                .targetId(targetId)
+                .openedAt(Instant.ofEpochMilli(streakStart[slot]))
+                .consecutiveFailures(failures[slot])
+                .statusCode(statusCode)
+                .errorMessage(errorMessage)
+                .build();
+    }
+
+    /**
+     * Returns {@link #UP}, {@link #DOWN} or {@link #UNKNOWN} for targets without a confirmed state.
+     */
+    public synchronized byte getState(String targetId) {
+        int slot = index.get(targetId);
+        return slot < 0 ? UNKNOWN : states[slot];
+    }
+
+    /**
+     * Returns the start of the target's current state in epoch millis, or 0 if it has none.
+     */
+    public synchronized long getLastChange(String targetId) {
+        int slot = index.get(targetId);
+        return slot < 0 ? 0L : lastChange[slot];
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, states.length * 2);
+        states = Arrays.copyOf(states, capacity);
+        failures = Arrays.copyOf(failures, capacity);
+        successes = Arrays.copyOf(successes, capacity);
+        streakStart = Arrays.copyOf(streakStart, capacity);
+        lastChange = Arrays.copyOf(lastChange, capacity);
+        lastSeen = Arrays.copyOf(lastSeen, capacity);
+    }
+}
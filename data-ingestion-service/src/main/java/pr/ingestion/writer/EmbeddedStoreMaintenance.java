@@ -0,0 +1,28 @@
+package pr.ingestion.writer;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pr.pulsesynapse.storage.embedded.EmbeddedTimeSeriesStore;
+
+/**
+ * Flushes buffered samples of the embedded store and runs its retention and compaction.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "storage.type", havingValue = "embedded")
+public class EmbeddedStoreMaintenance {
+
+    private final EmbeddedTimeSeriesStore embeddedTimeSeriesStore;
+
+    @Scheduled(fixedDelayString = "${storage.embedded.flush.ms:1000}")
+    public void flush() {
+        embeddedTimeSeriesStore.flush();
+    }
+
+    @Scheduled(fixedDelayString = "${storage.embedded.maintenance.ms:3600000}")
+    public void maintain() {
+        embeddedTimeSeriesStore.maintain(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,79 @@
+package pr.ingestion.writer;
+
+import pr.pulsesynapse.storage.TimeSeriesWriter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encodes check results as InfluxDB line protocol for the {@code health_check} measurement:
+ * <pre>
+ * health_check,targetId=&lt;id&gt; isUp=1i,latency_ms=42i,status_code=200i 1700000000000
+ * </pre>
+ * The escaped measurement-and-tag prefix is cached per target, so steady-state encoding only writes digits.
+ */
+final class HealthCheckLineEncoder {
+
+    private static final byte[] MEASUREMENT = "health_check".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IS_UP_TRUE = " isUp=1i".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IS_UP_FALSE = " isUp=0i".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LATENCY_FIELD = ",latency_ms=".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] STATUS_CODE_FIELD = ",status_code=".getBytes(StandardCharsets.US_ASCII);
+
+    private final int maxCachedPrefixes;
+    private final ConcurrentHashMap<String, byte[]> prefixes = new ConcurrentHashMap<>();
+
+    HealthCheckLineEncoder(int maxCachedPrefixes) {
+        this.maxCachedPrefixes = maxCachedPrefixes;
+    }
+
+    void encode(String targetId, long timestampMillis, boolean up, int statusCode, long latencyMs, LineBuffer out) {
+        out.put(prefix(targetId));
+        out.put(up ? IS_UP_TRUE : IS_UP_FALSE);
+        if (latencyMs != TimeSeriesWriter.NO_LATENCY) {
+            out.put(LATENCY_FIELD);
+            out.putLong(latencyMs);
+            out.put((byte) 'i');
+        }
+        out.put(STATUS_CODE_FIELD);
+        out.putLong(statusCode);
+        out.put((byte) 'i');
+        out.put((byte) ' ');
+        out.putLong(timestampMillis);
+        out.endLine();
+    }
+
+    private byte[] prefix(String targetId) {
+        if (targetId == null) {
+            // like the client's Point, a missing tag is left out
+            return MEASUREMENT;
+        }
+        byte[] prefix = prefixes.get(targetId);
+        if (prefix == null) {
+            if (prefixes.size() >= maxCachedPrefixes) {
+                // targets come and go; starting over is cheaper than tracking recency on the hot path
+                prefixes.clear();
+            }
+            prefix = ("health_check,targetId=" + escapeTagValue(targetId)).getBytes(StandardCharsets.UTF_8);
+            prefixes.put(targetId, prefix);
+        }
+        return prefix;
+    }
+
+    /**
+     * Escapes commas, equals signs and spaces. Line protocol has no escape for line breaks in tag values, so those
+     * (and tabs) become escaped spaces rather than ending the line early.
+     */
+    static String escapeTagValue(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 4);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case ',', '=', ' ' -> sb.append('\\').append(c);
+                case '\n', '\r', '\t' -> sb.append("\\ ");
+                default -> sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,64 @@
+package pr.ingestion.writer;
+
+import com.influxdb.client.InfluxDBClient;
+import com.influxdb.client.domain.WritePrecision;
+import com.influxdb.client.write.Point;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import pr.pulsesynapse.storage.TimeSeriesWriter;
+import pr.pulsesynapse.storage.rollup.Rollup;
+
+import java.util.List;
+
+/**
+ * InfluxDB-backed {@link TimeSeriesWriter}: raw samples go through the batching {@link LineProtocolWriter},
+ * rollups are written synchronously as one point per window and writer.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "storage.type", havingValue = "influx", matchIfMissing = true)
+public class InfluxTimeSeriesWriter implements TimeSeriesWriter {
+
+    private final LineProtocolWriter lineProtocolWriter;
+    private final InfluxDBClient influxDBClient;
+
+    @Value("${influxdb.org}")
+    private String organization;
+
+    @Value("${influxdb.bucket}")
+    private String bucket;
+
+    @Override
+    public void write(String targetId, long timestampMillis, boolean up, int statusCode, long latencyMs) {
+        lineProtocolWriter.write(targetId, timestampMillis, up, statusCode, latencyMs);
+    }
+
+    @Override
+    public void writeRollups(List<Rollup> rollups) {
+        List<Point> points = rollups.stream()
+                .map(InfluxTimeSeriesWriter::toPoint)
+                .toList();
+        influxDBClient.getWriteApiBlocking().writePoints(bucket, organization, points);
+    }
+
+    @Override
+    public void flush() {
+        lineProtocolWriter.flush();
+    }
+
+    static Point toPoint(Rollup rollup) {
+        return Point.measurement(rollup.getResolution().getMeasurement())
+                .addTag("targetId", rollup.getTargetId())
+                .addTag("writer", rollup.getWriter())
+                .addField("count", rollup.getCount())
+                .addField("up_count", rollup.getUpCount())
+                .addField("latency_count", rollup.getLatencyCount())
+                .addField("latency_sum", rollup.getLatencySum())
+                .addField("latency_min", rollup.getLatencyMin())
+                .addField("latency_max", rollup.getLatencyMax())
+                .addField("latency_histogram", rollup.getHistogram().encode())
+                .time(rollup.getWindowStart(), WritePrecision.MS);
+    }
+}
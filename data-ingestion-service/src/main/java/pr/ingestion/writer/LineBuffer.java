@@ -0,0 +1,83 @@
+package pr.ingestion.writer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer that line protocol is encoded into. Instances are pooled and reused across batches.
+ */
+final class LineBuffer {
+
+    private byte[] bytes;
+    private int length;
+    private int lines;
+
+    LineBuffer(int initialCapacity) {
+        this.bytes = new byte[initialCapacity];
+    }
+
+    byte[] array() {
+        return bytes;
+    }
+
+    int length() {
+        return length;
+    }
+
+    int lines() {
+        return lines;
+    }
+
+    void endLine() {
+        put((byte) '\n');
+        lines++;
+    }
+
+    void reset() {
+        length = 0;
+        lines = 0;
+    }
+
+    void put(byte value) {
+        ensureCapacity(1);
+        bytes[length++] = value;
+    }
+
+    void put(byte[] value) {
+        ensureCapacity(value.length);
+        System.arraycopy(value, 0, bytes, length, value.length);
+        length += value.length;
+    }
+
+    /**
+     * Appends the decimal representation of the value without going through a String.
+     */
+    void putLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            put(Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        if (value < 0) {
+            put((byte) '-');
+            value = -value;
+        }
+
+        int digits = 1;
+        for (long remaining = value / 10; remaining != 0; remaining /= 10) {
+            digits++;
+        }
+        ensureCapacity(digits);
+        int position = length + digits;
+        do {
+            bytes[--position] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        length += digits;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package pr.ingestion.writer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batches {@code health_check} points as line protocol and posts them straight to the InfluxDB v2 write endpoint.
+ * <p>
+ * Results are encoded into a pooled {@link LineBuffer}; once a buffer holds {@code batch.size} lines, or on the
+ * periodic flush, it is swapped for an empty one and its bytes become the request body as-is. Buffers go back
+ * to the pool after the request completes, so the steady state allocates nothing per point.
+ * <p>
+ * Full batches are posted by a dedicated sender thread, so the ingestion lanes only encode. A failed request is
+ * retried with exponential backoff, up to {@code retry.attempts} in all; a batch that still fails, or that the
+ * server rejects as malformed, is dropped. While the sender retries, up to {@code buffers} batches wait for it,
+ * after which {@link #write} blocks and the lanes push back on the broker.
+ * <p>
+ * Exposes {@code ingestion.write.batch} (points per request), {@code ingestion.write} (request time, by
+ * outcome) and {@code ingestion.write.dropped} (points given up on).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "storage.type", havingValue = "influx", matchIfMissing = true)
+public class LineProtocolWriter {
+
+    private static final int BYTES_PER_LINE = 96;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+    private static final LineBuffer SHUTDOWN = new LineBuffer(0);
+
+    private final HttpClient httpClient;
+    private final URI writeUri;
+    private final String authorization;
+    private final HealthCheckLineEncoder encoder;
+    private final int batchSize;
+    private final BlockingQueue<LineBuffer> pool;
+    private final BlockingQueue<LineBuffer> outbox;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final Thread sender;
+    private final DistributionSummary batchPoints;
+    private final Timer writesSucceeded;
+    private final Timer writesFailed;
+    private final Counter pointsDropped;
+
+    private LineBuffer current;
+
+    @Autowired
+    public LineProtocolWriter(@Value("${influxdb.url}") String url,
+                              @Value("${influxdb.token}") String token,
+                              @Value("${influxdb.org}") String organization,
+                              @Value("${influxdb.bucket}") String bucket,
+                              @Value("${ingestion.write.batch.size:5000}") int batchSize,
+                              @Value("${ingestion.write.buffers:4}") int buffers,
+                              @Value("${ingestion.write.tag-cache.size:100000}") int tagCacheSize,
+                              @Value("${ingestion.write.retry.attempts:5}") int maxAttempts,
+                              @Value("${ingestion.write.retry.backoff.ms:500}") long backoffMillis,
+                              MeterRegistry meterRegistry) {
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        this.writeUri = URI.create(stripTrailingSlash(url) + "/api/v2/write"
+                + "?org=" + URLEncoder.encode(organization, StandardCharsets.UTF_8)
+                + "&bucket=" + URLEncoder.encode(bucket, StandardCharsets.UTF_8)
+                + "&precision=ms");
+        this.authorization = "Token " + token;
+        this.encoder = new HealthCheckLineEncoder(tagCacheSize);
+        this.batchSize = batchSize;
+        this.pool = new ArrayBlockingQueue<>(buffers);
+        for (int i = 0; i < buffers; i++) {
+            pool.offer(newBuffer());
+        }
+        this.current = takeBuffer();
+        this.outbox = new ArrayBlockingQueue<>(buffers);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = backoffMillis;
+        this.batchPoints = DistributionSummary.builder("ingestion.write.batch")
+                .baseUnit("points")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue((double) batchSize)
+                .register(meterRegistry);
+        this.writesSucceeded = writeTimer("success", meterRegistry);
+        this.writesFailed = writeTimer("error", meterRegistry);
+        this.pointsDropped = Counter.builder("ingestion.write.dropped")
+                .description("health_check points dropped after their batch could not be written")
+                .baseUnit("points")
+                .register(meterRegistry);
+        this.sender = new Thread(this::runSender, "influx-line-sender");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    public void write(String targetId, long timestampMillis, boolean up, int statusCode, long latencyMs) {
+        LineBuffer full = null;
+        synchronized (this) {
+            encoder.encode(targetId, timestampMillis, up, statusCode, latencyMs, current);
+            if (current.lines() >= batchSize) {
+                full = current;
+                current = takeBuffer();
+            }
+        }
+        if (full != null) {
+            enqueue(full);
+        }
+    }
+
+    /**
+     * Hands the points written so far to the sender without waiting for them to be stored.
+     */
+    @Scheduled(fixedDelayString = "${ingestion.write.flush.ms:1000}")
+    public void flush() {
+        LineBuffer pending;
+        synchronized (this) {
+            if (current.lines() == 0) {
+                return;
+            }
+            pending = current;
+            current = takeBuffer();
+        }
+        enqueue(pending);
+    }
+
+    /**
+     * Flushes and waits up to {@value #SHUTDOWN_TIMEOUT_SECONDS} s for the sender to store what is pending.
+     */
+    @PreDestroy
+    public void close() {
+        flush();
+        try {
+            outbox.put(SHUTDOWN);
+            sender.join(TimeUnit.SECONDS.toMillis(SHUTDOWN_TIMEOUT_SECONDS));
+            if (sender.isAlive()) {
+                sender.interrupt();
+                sender.join(TimeUnit.SECONDS.toMillis(1));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<LineBuffer> unsent = new ArrayList<>();
+        outbox.drainTo(unsent);
+        for (LineBuffer batch : unsent) {
+            if (batch != SHUTDOWN) {
+                log.error("Dropping {} points not written to InfluxDB before shutdown", batch.lines());
+                pointsDropped.increment(batch.lines());
+            }
+        }
+    }
+
+    private void enqueue(LineBuffer batch) {
+        try {
+            outbox.put(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while queueing {} points for InfluxDB; dropping them", batch.lines());
+            pointsDropped.increment(batch.lines());
+            recycle(batch);
+        }
+    }
+
+    private void runSender() {
+        while (true) {
+            LineBuffer batch;
+            try {
+                batch = outbox.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (batch == SHUTDOWN) {
+                return;
+            }
+            try {
+                sendWithRetries(batch);
+            } finally {
+                recycle(batch);
+            }
+        }
+    }
+
+    private void sendWithRetries(LineBuffer batch) {
+        batchPoints.record(batch.lines());
+        long backoff = backoffMillis;
+        for (int attempt = 1; ; attempt++) {
+            Outcome outcome = send(batch);
+            if (outcome == Outcome.WRITTEN) {
+                return;
+            }
+            if (outcome == Outcome.REJECTED || attempt >= maxAttempts) {
+                log.error("Dropping {} points after {} attempts to write them to InfluxDB", batch.lines(), attempt);
+                pointsDropped.increment(batch.lines());
+                return;
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                log.error("Dropping {} points; interrupted while retrying", batch.lines());
+                pointsDropped.increment(batch.lines());
+                return;
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+        }
+    }
+
+    private Outcome send(LineBuffer batch) {
+        long start = System.nanoTime();
+        Outcome outcome = Outcome.FAILED;
+        try {
+            HttpRequest request = HttpRequest.newBuilder(writeUri)
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Authorization", authorization)
+                    .header("Content-Type", "text/plain; charset=utf-8")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(batch.array(), 0, batch.length()))
+                    .build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+            if (response.statusCode() / 100 == 2) {
+                outcome = Outcome.WRITTEN;
+                log.debug("Wrote {} points ({} bytes) to InfluxDB", batch.lines(), batch.length());
+            } else {
+                // a malformed batch fails the same way every time; throttling and server errors may pass
+                boolean retryable = response.statusCode() == 429 || response.statusCode() / 100 == 5;
+                outcome = retryable ? Outcome.FAILED : Outcome.REJECTED;
+                log.error("Failed to write {} points to InfluxDB. Status: {}, body: {}",
+                        batch.lines(), response.statusCode(), response.body());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while writing {} points to InfluxDB", batch.lines());
+        } catch (Exception e) {
+            log.error("Failed to write {} points to InfluxDB. Error: {}", batch.lines(), e.getMessage());
+        } finally {
+            (outcome == Outcome.WRITTEN ? writesSucceeded : writesFailed).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return outcome;
+    }
+
+    private void recycle(LineBuffer batch) {
+        batch.reset();
+        pool.offer(batch);
+    }
+
+    private LineBuffer takeBuffer() {
+        LineBuffer buffer = pool.poll();
+        // every pooled buffer is in flight; the extra one is dropped again when the pool is full
+        return buffer != null ? buffer : newBuffer();
+    }
+
+    private LineBuffer newBuffer() {
+        return new LineBuffer(batchSize * BYTES_PER_LINE);
+    }
+
+    private static Timer writeTimer(String outcome, MeterRegistry meterRegistry) {
+        return Timer.builder("ingestion.write")
+                .description("Time to write a batch of health_check points to InfluxDB")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    private enum Outcome {
+        WRITTEN,
+        FAILED,
+        REJECTED
+    }
+}
@@ -0,0 +1,57 @@
+package pr.ingestion.anomaly;
+
+import org.junit.jupiter.api.Test;
+import pr.ingestion.dto.LatencyAnomalyEvent;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyAnomalyDetectorTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    void flagsSpikeOnceAfterWarmup() {
+        LatencyAnomalyDetector detector = new LatencyAnomalyDetector(0.05, 4.0, 0.1, 30);
+        long timestamp = 0;
+        for (int i = 0; i < 200; i++) {
+            assertNull(detector.record("target-1", timestamp += 60_000, 100 + random.nextInt(10)));
+        }
+
+        LatencyAnomalyEvent event = detector.record("target-1", timestamp += 60_000, 900);
+        assertNotNull(event);
+        assertTrue(event.getBaselineLatencyMs() >= 100 && event.getBaselineLatencyMs() <= 110);
+        assertTrue(event.getScore() >= 4.0);
+        // still slow: same anomalous stretch
+        assertNull(detector.record("target-1", timestamp += 60_000, 950));
+
+        assertNull(detector.record("target-1", timestamp += 60_000, 105));
+        assertNotNull(detector.record("target-1", timestamp + 60_000, 900));
+    }
+
+    @Test
+    void ignoresJitterAndAdaptsToLastingShift() {
+        LatencyAnomalyDetector detector = new LatencyAnomalyDetector(0.05, 4.0, 0.1, 30);
+        int events = 0;
+        for (int i = 0; i < 500; i++) {
+            long latency = i < 250 ? 50 + random.nextInt(5) : 200 + random.nextInt(20);
+            if (detector.record("target-1", i * 60_000L, latency) != null) {
+                events++;
+            }
+        }
+        assertEquals(1, events);
+    }
+
+    @Test
+    void doesNotScoreDuringWarmup() {
+        LatencyAnomalyDetector detector = new LatencyAnomalyDetector(0.05, 4.0, 0.1, 30);
+        for (int i = 0; i < 10; i++) {
+            detector.record("target-1", i, 20);
+        }
+        assertNull(detector.record("target-1", 10, 5_000));
+    }
+}
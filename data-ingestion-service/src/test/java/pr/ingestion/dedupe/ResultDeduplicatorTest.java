@@ -0,0 +1,91 @@
+package pr.ingestion.dedupe;
+
+import org.junit.jupiter.api.Test;
+import pr.ingestion.dto.CheckResult;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResultDeduplicatorTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void dropsRedeliveredResult() {
+        ResultDeduplicator deduplicator = new ResultDeduplicator(60_000, 16, clock::get);
+
+        assertFalse(deduplicator.isDuplicate(result("target-1", "check-1", 1_000)));
+        deduplicator.remember(result("target-1", "check-1", 1_000));
+        assertTrue(deduplicator.isDuplicate(result("target-1", "check-1", 1_000)));
+    }
+
+    @Test
+    void dropsRetryOfTheSameCheckStampedAtAnotherTime() {
+        ResultDeduplicator deduplicator = new ResultDeduplicator(60_000, 16, clock::get);
+        deduplicator.remember(result("target-1", "check-1", 1_000));
+
+        assertTrue(deduplicator.isDuplicate(result("target-1", "check-1", 2_000)));
+    }
+
+    @Test
+    void keepsResultsThatDifferInAnyKeyPart() {
+        ResultDeduplicator deduplicator = new ResultDeduplicator(60_000, 16, clock::get);
+        deduplicator.remember(result("target-1", "check-1", 1_000));
+        deduplicator.remember(result("target-1", null, 1_000));
+
+        assertFalse(deduplicator.isDuplicate(result("target-2", "check-1", 1_000)));
+        assertFalse(deduplicator.isDuplicate(result("target-1", "check-2", 1_000)));
+        // without a check ID the timestamp identifies the result
+        assertTrue(deduplicator.isDuplicate(result("target-1", null, 1_000)));
+        assertFalse(deduplicator.isDuplicate(result("target-1", null, 2_000)));
+    }
+
+    @Test
+    void remembersNothingUntilAsked() {
+        ResultDeduplicator deduplicator = new ResultDeduplicator(60_000, 16, clock::get);
+
+        assertFalse(deduplicator.isDuplicate(result("target-1", "check-1", 1_000)));
+        assertFalse(deduplicator.isDuplicate(result("target-1", "check-1", 1_000)));
+    }
+
+    @Test
+    void remembersResultsForOneFullWindowAfterRotation() {
+        ResultDeduplicator deduplicator = new ResultDeduplicator(1_000, 16, clock::get);
+        deduplicator.remember(result("target-1", "check-1", 1_000));
+
+        clock.set(1_500);
+        deduplicator.remember(result("target-1", "check-2", 1_500));
+        assertTrue(deduplicator.isDuplicate(result("target-1", "check-1", 1_000)));
+
+        clock.set(3_000);
+        deduplicator.remember(result("target-1", "check-3", 3_000));
+        assertFalse(deduplicator.isDuplicate(result("target-1", "check-1", 1_000)));
+    }
+
+    @Test
+    void rotatesEarlyWhenWindowIsFull() {
+        ResultDeduplicator deduplicator = new ResultDeduplicator(60_000, 2, clock::get);
+        deduplicator.remember(result("target-1", "check-1", 1_000));
+        deduplicator.remember(result("target-1", "check-2", 1_000));
+        deduplicator.remember(result("target-1", "check-3", 1_000));
+        deduplicator.remember(result("target-1", "check-4", 1_000));
+        deduplicator.remember(result("target-1", "check-5", 1_000));
+
+        assertFalse(deduplicator.isDuplicate(result("target-1", "check-1", 1_000)));
+        assertTrue(deduplicator.isDuplicate(result("target-1", "check-5", 1_000)));
+    }
+
+    private static CheckResult result(String targetId, String checkId, long timestampMillis) {
+        return CheckResult.builder()
+                .targetId(targetId)
+                .checkId(checkId)
+                .timestamp(Instant.ofEpochMilli(timestampMillis))
+                .isUp(true)
+                .statusCode(200)
+                .latencyMs(25L)
+                .build();
+    }
+}
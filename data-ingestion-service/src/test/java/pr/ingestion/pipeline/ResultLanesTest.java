@@ -0,0 +1,106 @@
+package pr.ingestion.pipeline;
+
+import org.junit.jupiter.api.Test;
+import pr.ingestion.dto.CheckResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResultLanesTest {
+
+    @Test
+    void keepsPerTargetOrderAcrossLanes() {
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        ResultLanes lanes = new ResultLanes(() -> new RecordingProcessor(seen), 4, 16);
+        lanes.start();
+
+        for (int i = 0; i < 10_000; i++) {
+            lanes.submit(CheckResult.builder()
+                    .targetId("target-" + (i % 37))
+                    .checkId(Integer.toString(i))
+                    .build());
+        }
+        lanes.stop();
+
+        assertEquals(37, seen.size());
+        seen.forEach((targetId, checks) -> {
+            int target = Integer.parseInt(targetId.substring("target-".length()));
+            List<Integer> expected = IntStream.range(0, 10_000).filter(i -> i % 37 == target).boxed().toList();
+            assertEquals(expected, checks);
+        });
+    }
+
+    @Test
+    void backlogCountsResultsNotYetProcessed() {
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        ResultLanes lanes = new ResultLanes(() -> new RecordingProcessor(seen), 2, 16);
+
+        for (int i = 0; i < 5; i++) {
+            lanes.submit(CheckResult.builder()
+                    .targetId("target-" + i)
+                    .checkId(Integer.toString(i))
+                    .build());
+        }
+        assertEquals(5, lanes.backlog());
+
+        lanes.start();
+        lanes.stop();
+        assertEquals(0, lanes.backlog());
+        assertEquals(5, seen.size());
+    }
+
+    @Test
+    void acknowledgesResultsOnlyOnceProcessedAndRequeuesFailures() {
+        List<String> settled = Collections.synchronizedList(new ArrayList<>());
+        ResultLanes lanes = new ResultLanes(() -> new ResultProcessor(null, null, null, null, null, null, null, null) {
+            @Override
+            public void process(CheckResult result) {
+                settled.add("processed " + result.getCheckId());
+                if (result.getCheckId().equals("2")) {
+                    throw new IllegalStateException("storage down");
+                }
+            }
+        }, 1, 16);
+
+        for (int i = 1; i <= 3; i++) {
+            String checkId = Integer.toString(i);
+            lanes.submit(CheckResult.builder().targetId("target-1").checkId(checkId).build(), new Delivery() {
+                @Override
+                public void ack() {
+                    settled.add("acked " + checkId);
+                }
+
+                @Override
+                public void requeue() {
+                    settled.add("requeued " + checkId);
+                }
+            });
+        }
+        assertEquals(List.of(), settled);
+
+        lanes.start();
+        lanes.stop();
+        assertEquals(List.of("processed 1", "acked 1", "processed 2", "requeued 2", "processed 3", "acked 3"), settled);
+    }
+
+    private static final class RecordingProcessor extends ResultProcessor {
+        private final Map<String, List<Integer>> seen;
+
+        RecordingProcessor(Map<String, List<Integer>> seen) {
+            super(null, null, null, null, null, null, null, null);
+            this.seen = seen;
+        }
+
+        @Override
+        public void process(CheckResult result) {
+            // lanes own their targets, so the per-target lists are never written concurrently
+            seen.computeIfAbsent(result.getTargetId(), id -> new ArrayList<>()).add(Integer.parseInt(result.getCheckId()));
+        }
+    }
+}
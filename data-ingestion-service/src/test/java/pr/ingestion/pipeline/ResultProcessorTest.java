@@ -0,0 +1,75 @@
+package pr.ingestion.pipeline;
+
+import org.junit.jupiter.api.Test;
+import pr.ingestion.anomaly.AnomalyPublisher;
+import pr.ingestion.anomaly.LatencyAnomalyDetector;
+import pr.ingestion.dedupe.ResultDeduplicator;
+import pr.ingestion.dto.CheckResult;
+import pr.ingestion.rollup.RollupAggregator;
+import pr.ingestion.slo.SloCounters;
+import pr.ingestion.state.IncidentPublisher;
+import pr.ingestion.state.TargetStateTracker;
+import pr.pulsesynapse.storage.TimeSeriesWriter;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ResultProcessorTest {
+
+    private final TargetStateTracker stateTracker = mock(TargetStateTracker.class);
+    private final RollupAggregator rollupAggregator = mock(RollupAggregator.class);
+    private final SloCounters sloCounters = mock(SloCounters.class);
+    private final TimeSeriesWriter writer = mock(TimeSeriesWriter.class);
+    private final ResultProcessor processor = new ResultProcessor(new ResultDeduplicator(60_000, 16), stateTracker,
+            mock(LatencyAnomalyDetector.class), rollupAggregator, sloCounters, writer, mock(IncidentPublisher.class),
+            mock(AnomalyPublisher.class));
+
+    @Test
+    void dropsRedeliveryOfAStoredResult() {
+        processor.process(result());
+        processor.process(result());
+
+        verify(writer, times(1)).write(anyString(), anyLong(), anyBoolean(), anyInt(), anyLong());
+        verify(stateTracker, times(1)).record(any());
+        verify(rollupAggregator, times(1)).record(any());
+        verify(sloCounters, times(1)).record(any());
+    }
+
+    @Test
+    void takesRedeliveryAfterAFailedWrite() {
+        doThrow(new IllegalStateException("storage down")).doNothing()
+                .when(writer).write(anyString(), anyLong(), anyBoolean(), anyInt(), anyLong());
+
+        assertThrows(IllegalStateException.class, () -> processor.process(result()));
+        verify(stateTracker, never()).record(any());
+        verify(rollupAggregator, never()).record(any());
+
+        processor.process(result());
+        verify(writer, times(2)).write(anyString(), anyLong(), anyBoolean(), anyInt(), anyLong());
+        verify(stateTracker, times(1)).record(any());
+        verify(rollupAggregator, times(1)).record(any());
+        verify(sloCounters, times(1)).record(any());
+    }
+
+    private static CheckResult result() {
+        return CheckResult.builder()
+                .targetId("target-1")
+                .checkId("check-1")
+                .timestamp(Instant.ofEpochMilli(1_000))
+                .isUp(true)
+                .statusCode(200)
+                .latencyMs(25L)
+                .build();
+    }
+}
@@ -0,0 +1,136 @@
+package pr.ingestion.rollup;
+
+import org.junit.jupiter.api.Test;
+import pr.pulsesynapse.storage.rollup.Rollup;
+import pr.pulsesynapse.storage.rollup.RollupAccumulator;
+import pr.pulsesynapse.storage.rollup.RollupResolution;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RollupAggregatorTest {
+
+    private static final long HOUR = RollupResolution.HOUR.getWindowMillis();
+
+    // stands in for the rollup measurements: one point per window and writer, later writes replace earlier ones
+    private final Map<String, Rollup> stored = new HashMap<>();
+
+    @Test
+    void restartPartwayThroughAWindowKeepsWhatWasWrittenBefore() {
+        RollupAggregator first = new RollupAggregator(30_000, 600_000, 300_000, "ingestion-0", 0);
+        recordEveryMinute(first, 0, 20);
+        store(first.collectAll(20 * 60_000));
+
+        // the same instance, restarted
+        RollupAggregator second = new RollupAggregator(30_000, 600_000, 300_000, "ingestion-0", 20 * 60_000);
+        recordEveryMinute(second, 20, 60);
+        store(second.collectDue(HOUR + 30_000));
+
+        Rollup hour = read(RollupResolution.HOUR, 0);
+        assertEquals(60, hour.getCount());
+        assertEquals(60, hour.getLatencyCount());
+        assertEquals(60, hour.getHistogram().getTotalCount());
+        assertEquals(0, hour.getLatencyMin());
+        assertEquals(59, hour.getLatencyMax());
+    }
+
+    @Test
+    void checkpointsOpenWindowsSoACrashLosesAtMostOneInterval() {
+        RollupAggregator first = new RollupAggregator(30_000, 600_000, 300_000, "ingestion-0", 0);
+        recordEveryMinute(first, 0, 10);
+        store(first.collectDue(10 * 60_000));
+        recordEveryMinute(first, 10, 12);
+        // crashes here: the last two results were never checkpointed
+
+        RollupAggregator second = new RollupAggregator(30_000, 600_000, 300_000, "ingestion-0", 12 * 60_000);
+        recordEveryMinute(second, 12, 60);
+        store(second.collectDue(HOUR + 30_000));
+
+        assertEquals(58, read(RollupResolution.HOUR, 0).getCount());
+        assertEquals(58, read(RollupResolution.DAY, 0).getCount());
+    }
+
+    @Test
+    void checkpointsOnlyWindowsLongerThanTheInterval() {
+        RollupAggregator aggregator = new RollupAggregator(30_000, 600_000, 300_000, "ingestion-0", 0);
+        aggregator.record("target-1", 400_000, true, 10, true);
+
+        List<Rollup> due = aggregator.collectDue(410_000);
+
+        assertEquals(2, due.size());
+        assertTrue(due.stream().noneMatch(rollup -> rollup.getResolution() == RollupResolution.MINUTE));
+        // nothing changed since the checkpoint
+        assertTrue(aggregator.collectDue(800_000).stream()
+                .noneMatch(rollup -> rollup.getResolution() != RollupResolution.MINUTE));
+    }
+
+    @Test
+    void lateResultsRewriteOnlyTheirOwnWritersPoint() {
+        RollupAggregator first = new RollupAggregator(30_000, 600_000, 300_000, "ingestion-0", 0);
+        RollupAggregator second = new RollupAggregator(30_000, 600_000, 300_000, "ingestion-1", 0);
+        first.record("target-1", 1_000, true, 10, true);
+        second.record("target-1", 2_000, false, 20, true);
+        store(first.collectDue(90_000));
+        store(second.collectDue(90_000));
+
+        second.record("target-1", 3_000, true, 30, true);
+        store(second.collectDue(95_000));
+
+        Rollup minute = read(RollupResolution.MINUTE, 0);
+        assertEquals(3, minute.getCount());
+        assertEquals(2, minute.getUpCount());
+        assertEquals(60, minute.getLatencySum());
+    }
+
+    @Test
+    void writesUnderTheInstanceIdAndResumedWindowsApart() {
+        RollupAggregator aggregator = new RollupAggregator(30_000, 600_000, 300_000, "ingestion-0", 30 * 60_000);
+        aggregator.record("target-1", 40 * 60_000, true, 10, true);
+
+        Map<RollupResolution, String> writers = new HashMap<>();
+        aggregator.collectAll(41 * 60_000).forEach(rollup -> writers.put(rollup.getResolution(), rollup.getWriter()));
+
+        assertEquals(Map.of(RollupResolution.MINUTE, "ingestion-0",
+                RollupResolution.HOUR, "ingestion-0~resumed",
+                RollupResolution.DAY, "ingestion-0~resumed"), writers);
+    }
+
+    @Test
+    void lateResultsDoNotReviveAWindowOfARemovedTarget() {
+        RollupAggregator aggregator = new RollupAggregator(30_000, 600_000, 300_000, "ingestion-0", 0);
+        recordEveryMinute(aggregator, 0, 60);
+        store(aggregator.collectDue(HOUR + 30_000));
+        // every window of the target is past retention, so the target itself is forgotten
+        store(aggregator.collectDue(RollupResolution.DAY.getWindowMillis() + 30_000 + 600_000));
+
+        aggregator.record("target-1", 5 * 60_000, true, 5, true);
+
+        assertEquals(0, aggregator.collectAll(RollupResolution.DAY.getWindowMillis() + 700_000).size());
+        assertEquals(60, read(RollupResolution.HOUR, 0).getCount());
+        assertEquals(3, aggregator.drainLateDropped());
+    }
+
+    private static void recordEveryMinute(RollupAggregator aggregator, int fromMinute, int toMinute) {
+        for (int minute = fromMinute; minute < toMinute; minute++) {
+            aggregator.record("target-1", minute * 60_000L, true, minute, true);
+        }
+    }
+
+    private void store(List<Rollup> rollups) {
+        for (Rollup rollup : rollups) {
+            stored.put(rollup.getResolution() + "/" + rollup.getWindowStart() + "/" + rollup.getWriter(), rollup);
+        }
+    }
+
+    private Rollup read(RollupResolution resolution, long windowStart) {
+        RollupAccumulator window = new RollupAccumulator();
+        stored.values().stream()
+                .filter(rollup -> rollup.getResolution() == resolution && rollup.getWindowStart() == windowStart)
+                .forEach(window::merge);
+        return window.toRollup("target-1", resolution, windowStart);
+    }
+}
@@ -0,0 +1,96 @@
+package pr.ingestion.slo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SloCountersTest {
+
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+
+    @Test
+    void countsRecentRangesInFiveMinuteBucketsAndLongOnesHourly() {
+        SloCounters counters = new SloCounters(2, 7);
+        long now = 10 * DAY;
+        counters.track("target-1", 2 * DAY, now - 3 * DAY);
+        for (long t = now - 3 * DAY; t < now; t += MINUTE) {
+            // one failure at the start of every hour
+            counters.record("target-1", t, t % HOUR != 0);
+        }
+
+        SloCounts lastHour = counters.count("target-1", now - HOUR - 2 * MINUTE, Long.MAX_VALUE);
+        assertEquals(65, lastHour.total());
+        assertEquals(1, lastHour.bad());
+
+        SloCounts lastDay = counters.count("target-1", now - DAY - 30 * MINUTE, Long.MAX_VALUE);
+        assertEquals(25 * 60, lastDay.total());
+        assertEquals(25, lastDay.bad());
+    }
+
+    @Test
+    void forgetsBucketsThatSlideOutOfTheWindow() {
+        SloCounters counters = new SloCounters(1, 7);
+        counters.track("target-1", DAY, 0);
+        counters.record("target-1", 0, false);
+        counters.record("target-1", 12 * HOUR, true);
+        counters.record("target-1", 25 * HOUR, true);
+
+        SloCounts counts = counters.count("target-1", 0, Long.MAX_VALUE);
+        assertEquals(2, counts.total());
+        assertEquals(0, counts.bad());
+        assertEquals(HOUR, counts.trackedSince());
+
+        // too old for the window by now
+        counters.record("target-1", 0, false);
+        assertEquals(0, counters.count("target-1", 0, Long.MAX_VALUE).bad());
+    }
+
+    @Test
+    void reportsNothingForUnknownTargets() {
+        assertEquals(SloCounts.NONE, new SloCounters(1, 7).count("target-1", 0, Long.MAX_VALUE));
+    }
+
+    @Test
+    void countsOnlyTargetsSomeoneAskedAbout() {
+        SloCounters counters = new SloCounters(35, 7);
+        counters.record("target-1", 0, true);
+        counters.track("target-2", DAY, 0);
+        counters.record("target-2", 0, true);
+
+        assertEquals(SloCounts.NONE, counters.count("target-1", 0, Long.MAX_VALUE));
+        assertEquals(1, counters.count("target-2", 0, Long.MAX_VALUE).total());
+    }
+
+    @Test
+    void growsTheHourlyRingForAWiderWindowWithoutClaimingWhatItDropped() {
+        SloCounters counters = new SloCounters(35, 7);
+        counters.track("target-1", DAY, 0);
+        for (long t = 0; t < 3 * DAY; t += HOUR) {
+            counters.record("target-1", t, true);
+        }
+
+        counters.track("target-1", 30 * DAY, 3 * DAY);
+        counters.record("target-1", 3 * DAY, true);
+
+        SloCounts counts = counters.count("target-1", 0, Long.MAX_VALUE);
+        assertEquals(26, counts.total());
+        assertEquals(47 * HOUR, counts.trackedSince());
+    }
+
+    @Test
+    void forgetsTargetsNobodyAskedAboutLately() {
+        SloCounters counters = new SloCounters(35, 7);
+        counters.track("target-1", DAY, 0);
+        counters.track("target-2", DAY, 0);
+        counters.track("target-2", DAY, 5 * DAY);
+
+        counters.evictIdle(8 * DAY);
+
+        assertEquals(SloCounts.NONE, counters.count("target-1", 0, Long.MAX_VALUE));
+        assertEquals(0, counters.count("target-2", 0, Long.MAX_VALUE).total());
+        counters.record("target-2", 8 * DAY, true);
+        assertEquals(1, counters.count("target-2", 0, Long.MAX_VALUE).total());
+    }
+}
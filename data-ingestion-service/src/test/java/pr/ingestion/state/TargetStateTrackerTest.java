@@ -0,0 +1,59 @@
+package pr.ingestion.state;
+
+import org.junit.jupiter.api.Test;
+import pr.ingestion.dto.IncidentEvent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TargetStateTrackerTest {
+
+    @Test
+    void opensIncidentAfterConsecutiveFailuresOnly() {
+        TargetStateTracker tracker = new TargetStateTracker(3, 2);
+        tracker.record("target-1", 1_000, true, 200, null);
+        tracker.record("target-1", 2_000, true, 200, null);
+
+        assertNull(tracker.record("target-1", 3_000, false, 500, "Server error"));
+        assertNull(tracker.record("target-1", 4_000, false, 500, "Server error"));
+        // a single success in between resets the streak
+        assertNull(tracker.record("target-1", 5_000, true, 200, null));
+        assertNull(tracker.record("target-1", 6_000, false, 503, null));
+        assertNull(tracker.record("target-1", 7_000, false, 503, null));
+        IncidentEvent opened = tracker.record("target-1", 8_000, false, 503, "Unavailable");
+
+        assertNotNull(opened);
+        assertEquals(IncidentEvent.Type.OPENED, opened.getType());
+        assertEquals(6_000, opened.getOpenedAt().toEpochMilli());
+        assertEquals(3, opened.getConsecutiveFailures());
+        assertEquals(TargetStateTracker.DOWN, tracker.getState("target-1"));
+        assertNull(tracker.record("target-1", 9_000, false, 503, null));
+    }
+
+    @Test
+    void closesIncidentAfterRecovery() {
+        TargetStateTracker tracker = new TargetStateTracker(1, 2);
+        assertNotNull(tracker.record("target-1", 1_000, false, 0, "Connection refused"));
+
+        assertNull(tracker.record("target-1", 2_000, true, 200, null));
+        IncidentEvent closed = tracker.record("target-1", 3_000, true, 200, null);
+
+        assertNotNull(closed);
+        assertEquals(IncidentEvent.Type.CLOSED, closed.getType());
+        assertEquals(1_000, closed.getOpenedAt().toEpochMilli());
+        assertEquals(2_000, closed.getClosedAt().toEpochMilli());
+        assertEquals(TargetStateTracker.UP, tracker.getState("target-1"));
+    }
+
+    @Test
+    void ignoresOutOfOrderResultsAndKeepsTargetsApart() {
+        TargetStateTracker tracker = new TargetStateTracker(2, 1);
+        tracker.record("target-1", 5_000, false, 500, null);
+
+        assertNull(tracker.record("target-1", 4_000, false, 500, null));
+        assertNull(tracker.record("target-2", 6_000, false, 500, null));
+        assertEquals(TargetStateTracker.UNKNOWN, tracker.getState("target-1"));
+        assertNotNull(tracker.record("target-1", 6_000, false, 500, null));
+    }
+}
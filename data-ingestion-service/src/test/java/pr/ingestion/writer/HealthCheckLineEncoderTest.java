@@ -0,0 +1,37 @@
+package pr.ingestion.writer;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HealthCheckLineEncoderTest {
+
+    @Test
+    void escapesTagSeparators() {
+        assertEquals("a\\,b\\=c\\ d", HealthCheckLineEncoder.escapeTagValue("a,b=c d"));
+    }
+
+    @Test
+    void turnsLineBreaksIntoEscapedSpaces() {
+        assertEquals("a\\ b\\ \\ c\\ d", HealthCheckLineEncoder.escapeTagValue("a\nb\r\nc\td"));
+    }
+
+    @Test
+    void leavesOutAMissingTargetTag() {
+        LineBuffer out = new LineBuffer(64);
+        new HealthCheckLineEncoder(16).encode(null, 1_700_000_000_000L, true, 200, 42, out);
+
+        assertEquals("health_check isUp=1i,latency_ms=42i,status_code=200i 1700000000000\n",
+                new String(out.array(), 0, out.length(), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void writesTheMostNegativeLong() {
+        LineBuffer out = new LineBuffer(4);
+        out.putLong(Long.MIN_VALUE);
+
+        assertEquals(Long.toString(Long.MIN_VALUE), new String(out.array(), 0, out.length(), StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,93 @@
+package pr.ingestion.writer;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LineProtocolWriterTest {
+
+    private final Queue<Integer> statuses = new ConcurrentLinkedQueue<>();
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HttpServer server;
+    private LineProtocolWriter writer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/v2/write", exchange -> {
+            requests.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            Integer status = statuses.poll();
+            exchange.sendResponseHeaders(status != null ? status : 204, -1);
+            exchange.close();
+        });
+        server.start();
+        writer = new LineProtocolWriter("http://127.0.0.1:" + server.getAddress().getPort(), "token", "org", "bucket",
+                2, 2, 16, 3, 10, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void retriesAFailedBatchUntilItIsWritten() {
+        statuses.add(503);
+        statuses.add(503);
+
+        writeTwoPoints();
+        writer.close();
+
+        assertEquals(3, requests.size());
+        assertEquals(requests.get(0), requests.get(2));
+        assertEquals(2, requests.get(2).lines().count());
+        assertEquals(0.0, dropped());
+    }
+
+    @Test
+    void dropsAndCountsABatchThatKeepsFailing() {
+        for (int i = 0; i < 5; i++) {
+            statuses.add(500);
+        }
+
+        writeTwoPoints();
+        writer.close();
+
+        assertEquals(3, requests.size());
+        assertEquals(2.0, dropped());
+    }
+
+    @Test
+    void doesNotRetryAMalformedBatch() {
+        statuses.add(400);
+
+        writeTwoPoints();
+        writer.close();
+
+        assertEquals(1, requests.size());
+        assertEquals(2.0, dropped());
+    }
+
+    private void writeTwoPoints() {
+        writer.write("target-1", 1_700_000_000_000L, true, 200, 42);
+        writer.write("target-1", 1_700_000_060_000L, false, 503, -1);
+    }
+
+    private double dropped() {
+        return meterRegistry.get("ingestion.write.dropped").counter().count();
+    }
+}
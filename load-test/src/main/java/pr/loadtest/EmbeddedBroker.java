@@ -0,0 +1,51 @@
+package pr.loadtest;
+
+import org.apache.qpid.server.SystemLauncher;
+import org.apache.qpid.server.model.SystemConfig;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An in-memory AMQP 0-9-1 broker (Qpid Broker-J) on a free loopback port, accepting {@code guest/guest} on the
+ * default virtual host, so the services can use their usual RabbitMQ configuration.
+ */
+final class EmbeddedBroker implements AutoCloseable {
+
+    private final SystemLauncher launcher = new SystemLauncher();
+    private final int port;
+
+    EmbeddedBroker() throws Exception {
+        this.port = freePort();
+        Path workDirectory = Files.createTempDirectory("load-test-broker");
+
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(SystemConfig.TYPE, "Memory");
+        attributes.put(SystemConfig.INITIAL_CONFIGURATION_LOCATION,
+                EmbeddedBroker.class.getResource("/qpid-config.json").toExternalForm());
+        attributes.put(SystemConfig.STARTUP_LOGGED_TO_SYSTEM_OUT, false);
+        attributes.put(SystemConfig.CONTEXT, Map.of(
+                "qpid.amqp_port", Integer.toString(port),
+                "qpid.work_dir", workDirectory.toString()));
+        launcher.startup(attributes);
+    }
+
+    int port() {
+        return port;
+    }
+
+    @Override
+    public void close() {
+        launcher.shutdown();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
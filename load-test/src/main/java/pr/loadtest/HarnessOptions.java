@@ -0,0 +1,120 @@
+package pr.loadtest;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command-line options of the harness, all given as {@code --name=value}. Options prefixed with
+ * {@code --scheduler.}, {@code --polling.}, {@code --ingestion.} or {@code --all.} are passed through as Spring
+ * properties to that service (or to all three), e.g. {@code --ingestion.ingestion.lanes.count=8}.
+ */
+record HarnessOptions(int targets,
+                      long intervalMillis,
+                      long scheduleMillis,
+                      int maxPerCall,
+                      long warmupSeconds,
+                      long durationSeconds,
+                      long reportSeconds,
+                      TargetFarm.Profile farm,
+                      Map<String, Map<String, Object>> serviceProperties) {
+
+    static final List<String> SERVICES = List.of("scheduler", "polling", "ingestion");
+
+    static final String USAGE = """
+            Options (--name=value):
+              --targets             synthetic targets, each checked once per interval (default 10000)
+              --interval-seconds    check interval of every target (default 60)
+              --schedule-ms         scheduler polling rate, polling.schedule.rate.ms (default 1000)
+              --max-per-call        most targets returned by one GetDueTargets call (default 100000)
+              --warmup-seconds      run time before measuring (default 30)
+              --duration-seconds    measured run time (default 120)
+              --report-seconds      progress report period (default 10)
+              --latency-ms          median response time of a target (default 50)
+              --latency-sigma       spread of response times, log-normal sigma (default 0.5)
+              --failure-rate        share of checks answered with 500 (default 0.01)
+              --down-fraction       share of targets that always answer 503 (default 0.01)
+              --slow-rate           share of checks that hang past the worker's timeout (default 0.0)
+              --slow-ms             how long those checks hang (default 12000)
+              --scheduler.<prop>, --polling.<prop>, --ingestion.<prop>, --all.<prop>
+                                    Spring property for one service, or for all three
+            """;
+
+    /**
+     * Parses the arguments, or returns {@code null} when help was asked for.
+     */
+    static HarnessOptions parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        Map<String, Map<String, Object>> serviceProperties = new LinkedHashMap<>();
+        SERVICES.forEach(service -> serviceProperties.put(service, new LinkedHashMap<>()));
+
+        for (String arg : args) {
+            if (arg.equals("-h") || arg.equals("--help")) {
+                return null;
+            }
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            String name = arg.substring(2, equals);
+            String value = arg.substring(equals + 1);
+            int dot = name.indexOf('.');
+            String service = dot < 0 ? null : name.substring(0, dot);
+            if (service != null && service.equals("all")) {
+                serviceProperties.values().forEach(properties -> properties.put(name.substring(dot + 1), value));
+            } else if (service != null && serviceProperties.containsKey(service)) {
+                serviceProperties.get(service).put(name.substring(dot + 1), value);
+            } else {
+                options.put(name, value);
+            }
+        }
+
+        Parser parser = new Parser(options);
+        HarnessOptions parsed = new HarnessOptions(
+                parser.intValue("targets", 10_000),
+                parser.longValue("interval-seconds", 60) * 1000,
+                parser.longValue("schedule-ms", 1000),
+                parser.intValue("max-per-call", 100_000),
+                parser.longValue("warmup-seconds", 30),
+                parser.longValue("duration-seconds", 120),
+                parser.longValue("report-seconds", 10),
+                new TargetFarm.Profile(
+                        parser.longValue("latency-ms", 50),
+                        parser.doubleValue("latency-sigma", 0.5),
+                        parser.doubleValue("failure-rate", 0.01),
+                        parser.doubleValue("down-fraction", 0.01),
+                        parser.doubleValue("slow-rate", 0.0),
+                        parser.longValue("slow-ms", 12_000)),
+                serviceProperties);
+        if (!options.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options: " + options.keySet());
+        }
+        if (parsed.targets() <= 0 || parsed.intervalMillis() <= 0 || parsed.scheduleMillis() <= 0
+                || parsed.maxPerCall() <= 0 || parsed.durationSeconds() <= 0 || parsed.reportSeconds() <= 0) {
+            throw new IllegalArgumentException("Counts, intervals and durations must be positive");
+        }
+        return parsed;
+    }
+
+    /**
+     * Reads typed options, removing each one it reads so that what remains is unknown.
+     */
+    private record Parser(Map<String, String> options) {
+
+        int intValue(String name, int defaultValue) {
+            String value = options.remove(name);
+            return value == null ? defaultValue : Integer.parseInt(value);
+        }
+
+        long longValue(String name, long defaultValue) {
+            String value = options.remove(name);
+            return value == null ? defaultValue : Long.parseLong(value);
+        }
+
+        double doubleValue(String name, double defaultValue) {
+            String value = options.remove(name);
+            return value == null ? defaultValue : Double.parseDouble(value);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package pr.loadtest;
+
+import com.google.protobuf.Empty;
+import io.grpc.stub.StreamObserver;
+import pr.pulsesynapse.proto.TargetListResponse;
+import pr.pulsesynapse.proto.TargetResponse;
+import pr.pulsesynapse.proto.TargetServiceGrpc;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stands in for target-management-service's {@code GetDueTargets}. Every target is checked once per interval,
+ * with the targets' due times spread evenly over the interval, so the offered load is a steady
+ * {@code targets / interval} checks per second. Check {@code k} is due at {@code start + k * interval / targets}
+ * and is for target {@code k % targets}, so nothing needs to be stored per target.
+ * <p>
+ * At most {@code maxPerCall} targets are returned per call; anything beyond stays due and shows up as
+ * scheduling lag.
+ */
+final class InMemoryTargetStore extends TargetServiceGrpc.TargetServiceImplBase {
+
+    private final TargetCatalog catalog;
+    private final String farmUrl;
+    private final long intervalMillis;
+    private final int maxPerCall;
+    private final LatencyStage schedulingLag;
+    private final LongAdder handedOut = new LongAdder();
+    private final long startMillis = System.currentTimeMillis();
+
+    private long nextCheck;
+
+    InMemoryTargetStore(TargetCatalog catalog, String farmUrl, long intervalMillis, int maxPerCall,
+                        LatencyStage schedulingLag) {
+        this.catalog = catalog;
+        this.farmUrl = farmUrl;
+        this.intervalMillis = intervalMillis;
+        this.maxPerCall = maxPerCall;
+        this.schedulingLag = schedulingLag;
+    }
+
+    @Override
+    public void getDueTargets(Empty request, StreamObserver<TargetListResponse> responseObserver) {
+        responseObserver.onNext(takeDue(System.currentTimeMillis()));
+        responseObserver.onCompleted();
+    }
+
+    private synchronized TargetListResponse takeDue(long now) {
+        TargetListResponse.Builder response = TargetListResponse.newBuilder();
+        int size = catalog.size();
+        int count = 0;
+        while (count < maxPerCall) {
+            long due = startMillis + nextCheck * intervalMillis / size;
+            if (due > now) {
+                break;
+            }
+            int index = (int) (nextCheck % size);
+            response.addTargets(TargetResponse.newBuilder()
+                    .setId(TargetCatalog.id(index))
+                    .setName("target-" + index)
+                    .setUrl(farmUrl + index)
+                    .setCheckIntervalSeconds((int) (intervalMillis / 1000))
+                    .setDueTimeMs(due));
+            catalog.handedOut(index, now);
+            schedulingLag.record(now - due);
+            nextCheck++;
+            count++;
+        }
+        handedOut.add(count);
+        return response.build();
+    }
+
+    long handedOut() {
+        return handedOut.sum();
+    }
+
+    /**
+     * Checks per second the store asks for.
+     */
+    double offeredRate() {
+        return catalog.size() * 1000.0 / intervalMillis;
+    }
+}
@@ -0,0 +1,46 @@
+package pr.loadtest;
+
+import pr.pulsesynapse.storage.rollup.LatencyHistogram;
+
+/**
+ * Latencies of one pipeline stage, kept per report interval and over the whole measurement window.
+ */
+final class LatencyStage {
+
+    private final String name;
+    private LatencyHistogram interval = new LatencyHistogram();
+    private LatencyHistogram window = new LatencyHistogram();
+
+    LatencyStage(String name) {
+        this.name = name;
+    }
+
+    String name() {
+        return name;
+    }
+
+    synchronized void record(long latencyMs) {
+        interval.record(latencyMs);
+        window.record(latencyMs);
+    }
+
+    /**
+     * Returns the latencies recorded since the previous call.
+     */
+    synchronized LatencyHistogram takeInterval() {
+        LatencyHistogram taken = interval;
+        interval = new LatencyHistogram();
+        return taken;
+    }
+
+    /**
+     * Forgets everything recorded so far, e.g. at the end of the warm-up.
+     */
+    synchronized void resetWindow() {
+        window = new LatencyHistogram();
+    }
+
+    synchronized LatencyHistogram window() {
+        return window.copy();
+    }
+}
@@ -0,0 +1,309 @@
+package pr.loadtest;
+
+import io.grpc.Grpc;
+import io.grpc.InsecureServerCredentials;
+import io.grpc.Server;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import pr.ingestion.DataIngestionServiceApplication;
+import pr.polling.PollingWorkerServiceApplication;
+import pr.pulsesynapse.storage.rollup.LatencyHistogram;
+import pr.scheduler.SchedulerServiceApplication;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the check pipeline end to end in one JVM: the scheduler, polling worker and ingestion services are booted
+ * unchanged, and everything they talk to is replaced by an in-process stand-in:
+ * <ul>
+ *     <li>RabbitMQ by an embedded AMQP 0-9-1 broker ({@link EmbeddedBroker}),</li>
+ *     <li>target-management-service by a {@code GetDueTargets} server over synthetic targets
+ *     ({@link InMemoryTargetStore}),</li>
+ *     <li>the monitored endpoints by an HTTP server with configurable response times and failures
+ *     ({@link TargetFarm}),</li>
+ *     <li>InfluxDB by a write endpoint that only counts and times what it receives ({@link TimeSeriesSink}).</li>
+ * </ul>
+ * Latencies are taken from the stand-ins' clocks, so the services need no instrumentation:
+ * <ul>
+ *     <li>{@code schedule}: due time to the target being handed to the scheduler,</li>
+ *     <li>{@code dispatch}: handed out to the worker's request arriving at the target,</li>
+ *     <li>{@code probe}: the response time the worker measured, as written to {@code health_check},</li>
+ *     <li>{@code ingest}: the result's timestamp to its point arriving at the sink,</li>
+ *     <li>{@code end-to-end}: handed out to stored.</li>
+ * </ul>
+ * A report line is printed every {@code --report-seconds}; after the warm-up, the run is measured for
+ * {@code --duration-seconds} and summarised, including whether the pipeline kept up with the offered load.
+ * <p>
+ * Run {@link #main(String[])} from the IDE, or {@code java -jar load-test/target/load-test.jar --targets=100000}.
+ */
+public final class LoadTestHarness implements AutoCloseable {
+
+    /**
+     * The services read no {@code application.properties}: each service has its own at the root of the shared
+     * classpath, and only one of them would be found. Everything they need is set here instead, and a
+     * {@code load-test.properties} in the working directory still applies to all three.
+     */
+    private static final String CONFIG_NAME = "load-test";
+
+    private static final String JOBS_QUEUE = "check_jobs_queue";
+    private static final String RESULTS_QUEUE = "check_results_queue";
+
+    /**
+     * The stored rate has to reach this share of the offered rate for the run to count as sustained.
+     */
+    private static final double SUSTAINED_SHARE = 0.98;
+
+    private final HarnessOptions options;
+    private final LatencyStage schedule = new LatencyStage("schedule");
+    private final LatencyStage dispatch = new LatencyStage("dispatch");
+    private final LatencyStage probe = new LatencyStage("probe");
+    private final LatencyStage ingest = new LatencyStage("ingest");
+    private final LatencyStage endToEnd = new LatencyStage("end-to-end");
+    private final List<LatencyStage> stages = List.of(schedule, dispatch, probe, ingest, endToEnd);
+    private final Deque<AutoCloseable> resources = new ArrayDeque<>();
+
+    private InMemoryTargetStore store;
+    private TargetFarm farm;
+    private TimeSeriesSink sink;
+    private AmqpAdmin amqpAdmin;
+
+    private LoadTestHarness(HarnessOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) {
+        HarnessOptions options = HarnessOptions.parse(args);
+        if (options == null) {
+            System.out.print(HarnessOptions.USAGE);
+            return;
+        }
+        int status = 0;
+        try (LoadTestHarness harness = new LoadTestHarness(options)) {
+            harness.start();
+            harness.run();
+        } catch (Exception e) {
+            e.printStackTrace();
+            status = 1;
+        }
+        // the broker and the services leave non-daemon threads behind
+        System.exit(status);
+    }
+
+    private void start() throws Exception {
+        TargetCatalog catalog = new TargetCatalog(options.targets());
+        EmbeddedBroker broker = register(new EmbeddedBroker());
+        farm = register(new TargetFarm(catalog, options.farm(), dispatch));
+        sink = register(new TimeSeriesSink(catalog, probe, ingest, endToEnd));
+        store = new InMemoryTargetStore(catalog, farm.url(), options.intervalMillis(), options.maxPerCall(), schedule);
+        Server targetServer = Grpc.newServerBuilderForPort(0, InsecureServerCredentials.create())
+                .addService(store)
+                .build()
+                .start();
+        register(() -> targetServer.shutdownNow().awaitTermination(5, TimeUnit.SECONDS));
+
+        Map<String, Object> ingestion = serviceProperties("ingestion", broker);
+        ingestion.put("influxdb.url", sink.url());
+        ingestion.put("influxdb.token", "load-test");
+        ingestion.put("influxdb.org", "load-test");
+        ingestion.put("influxdb.bucket", "load-test");
+        ingestion.put("storage.type", "influx");
+
+        Map<String, Object> scheduler = serviceProperties("scheduler", broker);
+        String channel = "spring.grpc.client.channels.target-management-service.";
+        scheduler.put(channel + "address", "static://127.0.0.1:" + targetServer.getPort());
+        scheduler.put(channel + "negotiation-type", "plaintext");
+        scheduler.put(channel + "max-inbound-message-size", "256MB");
+        scheduler.put("polling.schedule.rate.ms", options.scheduleMillis());
+
+        Map<String, Object> polling = serviceProperties("polling", broker);
+
+        // consumers first, so nothing is published to an exchange that has no queue bound yet
+        boot(DataIngestionServiceApplication.class, ingestion);
+        ConfigurableApplicationContext schedulerContext = boot(SchedulerServiceApplication.class, scheduler);
+        amqpAdmin = schedulerContext.getBean(AmqpAdmin.class);
+        if (amqpAdmin instanceof RabbitAdmin rabbitAdmin) {
+            rabbitAdmin.initialize();
+        }
+        boot(PollingWorkerServiceApplication.class, polling);
+
+        System.out.printf("%,d targets every %,d s: %,.0f checks/s offered (broker on port %d)%n",
+                options.targets(), options.intervalMillis() / 1000, store.offeredRate(), broker.port());
+    }
+
+    private void run() throws InterruptedException {
+        long reportMillis = options.reportSeconds() * 1000;
+        Counts previous = counts();
+        long warmupEnd = System.currentTimeMillis() + options.warmupSeconds() * 1000;
+        while (System.currentTimeMillis() < warmupEnd) {
+            Thread.sleep(Math.min(reportMillis, Math.max(1, warmupEnd - System.currentTimeMillis())));
+            previous = report("warm-up", previous);
+        }
+
+        stages.forEach(LatencyStage::resetWindow);
+        Counts windowStart = counts();
+        long windowStartJobs = queueDepth(JOBS_QUEUE);
+        long windowEnd = windowStart.millis() + options.durationSeconds() * 1000;
+        while (System.currentTimeMillis() < windowEnd) {
+            Thread.sleep(Math.min(reportMillis, Math.max(1, windowEnd - System.currentTimeMillis())));
+            previous = report("measure", previous);
+        }
+        summarise(windowStart, counts(), windowStartJobs);
+    }
+
+    private Counts report(String phase, Counts previous) {
+        Counts now = counts();
+        double seconds = Math.max(1, now.millis() - previous.millis()) / 1000.0;
+        StringBuilder line = new StringBuilder(String.format(
+                "[%s] handed out %,.0f/s, probed %,.0f/s, stored %,.0f/s | jobs queue %,d, results queue %,d",
+                phase,
+                (now.handedOut() - previous.handedOut()) / seconds,
+                (now.probed() - previous.probed()) / seconds,
+                (now.stored() - previous.stored()) / seconds,
+                queueDepth(JOBS_QUEUE), queueDepth(RESULTS_QUEUE)));
+        for (LatencyStage stage : stages) {
+            LatencyHistogram interval = stage.takeInterval();
+            line.append(String.format(" | %s p50 %,d p99 %,d ms", stage.name(),
+                    interval.valueAtQuantile(0.5), interval.valueAtQuantile(0.99)));
+        }
+        line.append(" | ").append(now.resources().since(previous.resources()));
+        System.out.println(line);
+        return now;
+    }
+
+    private void summarise(Counts start, Counts end, long startJobs) {
+        double seconds = (end.millis() - start.millis()) / 1000.0;
+        double offered = store.offeredRate();
+        double stored = (end.stored() - start.stored()) / seconds;
+        long endJobs = queueDepth(JOBS_QUEUE);
+
+        System.out.println();
+        System.out.printf("Measured %,.0f s with %,d targets every %,d s%n",
+                seconds, options.targets(), options.intervalMillis() / 1000);
+        System.out.printf("  offered     %,12.0f checks/s%n", offered);
+        System.out.printf("  handed out  %,12.0f checks/s%n", (end.handedOut() - start.handedOut()) / seconds);
+        System.out.printf("  probed      %,12.0f checks/s%n", (end.probed() - start.probed()) / seconds);
+        System.out.printf("  stored      %,12.0f checks/s (%,d failed checks, %,d other points, %,d writes)%n",
+                stored, end.failed() - start.failed(), end.otherLines() - start.otherLines(),
+                end.writes() - start.writes());
+        System.out.printf("  jobs queue  %,12d -> %,d%n", startJobs, endJobs);
+        System.out.printf("  %-11s %8s %8s %8s %8s %8s%n", "latency ms", "p50", "p90", "p99", "p99.9", "max");
+        for (LatencyStage stage : stages) {
+            LatencyHistogram window = stage.window();
+            System.out.printf("  %-11s %,8d %,8d %,8d %,8d %,8d%n", stage.name(),
+                    window.valueAtQuantile(0.5), window.valueAtQuantile(0.9), window.valueAtQuantile(0.99),
+                    window.valueAtQuantile(0.999), window.valueAtQuantile(1.0));
+        }
+        System.out.println("  resources   " + end.resources().since(start.resources()));
+
+        boolean keptUp = stored >= offered * SUSTAINED_SHARE && endJobs <= Math.max(startJobs, (long) offered);
+        System.out.println(keptUp
+                ? String.format("SUSTAINED: %,.0f checks/s", stored)
+                : String.format("NOT SUSTAINED: stored %,.0f of %,.0f checks/s offered", stored, offered));
+    }
+
+    private Map<String, Object> serviceProperties(String service, EmbeddedBroker broker) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("spring.config.name", CONFIG_NAME);
+        properties.put("spring.application.name", service + "-load-test");
+        properties.put("spring.main.web-application-type", "none");
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("spring.grpc.server.port", 0);
+        properties.put("spring.rabbitmq.host", "127.0.0.1");
+        properties.put("spring.rabbitmq.port", broker.port());
+        properties.put("spring.rabbitmq.username", "guest");
+        properties.put("spring.rabbitmq.password", "guest");
+        properties.put("logging.level.root", "WARN");
+        properties.putAll(options.serviceProperties().get(service));
+        return properties;
+    }
+
+    private ConfigurableApplicationContext boot(Class<?> application, Map<String, Object> properties) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(application)
+                .properties(properties)
+                .registerShutdownHook(false)
+                .run();
+        resources.push(context);
+        return context;
+    }
+
+    private <T extends AutoCloseable> T register(T resource) {
+        resources.push(resource);
+        return resource;
+    }
+
+    private long queueDepth(String queue) {
+        try {
+            QueueInformation information = amqpAdmin.getQueueInfo(queue);
+            return information == null ? -1 : information.getMessageCount();
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private Counts counts() {
+        return new Counts(System.currentTimeMillis(), store.handedOut(), farm.requests(), sink.checks(),
+                sink.failedChecks(), sink.otherLines(), sink.requests(), Resources.sample());
+    }
+
+    @Override
+    public void close() {
+        while (!resources.isEmpty()) {
+            try {
+                resources.pop().close();
+            } catch (Exception e) {
+                System.err.println("Failed to stop cleanly: " + e);
+            }
+        }
+    }
+
+    private record Counts(long millis, long handedOut, long probed, long stored, long failed, long otherLines,
+                          long writes, Resources resources) {
+    }
+
+    /**
+     * Process-wide resource usage; the services share the JVM, so this is the cost of the whole pipeline
+     * including the stand-ins.
+     */
+    private record Resources(long sampledAt, long cpuNanos, long gcCount, long gcMillis, long heapUsed,
+                             int threads) {
+
+        static Resources sample() {
+            long gcCount = 0;
+            long gcMillis = 0;
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                gcCount += Math.max(0, collector.getCollectionCount());
+                gcMillis += Math.max(0, collector.getCollectionTime());
+            }
+            long cpuNanos = ManagementFactory.getOperatingSystemMXBean()
+                    instanceof com.sun.management.OperatingSystemMXBean os ? os.getProcessCpuTime() : -1;
+            return new Resources(System.nanoTime(), cpuNanos, gcCount, gcMillis,
+                    ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(),
+                    ManagementFactory.getThreadMXBean().getThreadCount());
+        }
+
+        /**
+         * Describes the usage between {@code earlier} and this sample: CPU in cores, collections and the time
+         * they took, and the current heap and thread count.
+         */
+        String since(Resources earlier) {
+            return String.format("cpu %s, gc %,d (%,d ms), heap %,d MB, %,d threads",
+                    cpuNanos < 0 ? "n/a" : String.format("%.2f cores", (cpuNanos - earlier.cpuNanos) / 1e9
+                            / Math.max(1e-3, elapsedSeconds(earlier))),
+                    gcCount - earlier.gcCount, gcMillis - earlier.gcMillis, heapUsed >> 20, threads);
+        }
+
+        private double elapsedSeconds(Resources earlier) {
+            return (sampledAt - earlier.sampledAt) / 1e9;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package pr.loadtest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The synthetic targets, numbered {@code 0..size-1}. Target IDs are UUID-shaped with the number in the last
+ * group, so every stand-in can map an ID back to its target without a lookup table. Also remembers when each
+ * target was last handed to the scheduler, which the later stages measure their latency from.
+ */
+final class TargetCatalog {
+
+    private static final String ID_PREFIX = "00000000-0000-4000-8000-";
+    private static final int NUMBER_DIGITS = 12;
+
+    private final int size;
+    private final AtomicLongArray handedOutAt;
+
+    TargetCatalog(int size) {
+        this.size = size;
+        this.handedOutAt = new AtomicLongArray(size);
+    }
+
+    int size() {
+        return size;
+    }
+
+    static String id(int index) {
+        char[] digits = new char[NUMBER_DIGITS];
+        int value = index;
+        for (int i = NUMBER_DIGITS - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return ID_PREFIX + new String(digits);
+    }
+
+    /**
+     * Returns the number of the target whose ID ends at {@code end}, or {@code -1} if it is not one of ours.
+     */
+    int indexOf(byte[] bytes, int end) {
+        if (end < NUMBER_DIGITS) {
+            return -1;
+        }
+        long index = 0;
+        for (int i = end - NUMBER_DIGITS; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            index = index * 10 + digit;
+        }
+        return index < size ? (int) index : -1;
+    }
+
+    void handedOut(int index, long millis) {
+        handedOutAt.set(index, millis);
+    }
+
+    /**
+     * Returns when the target was last handed to the scheduler, or {@code 0} if never.
+     */
+    long handedOutAt(int index) {
+        return handedOutAt.get(index);
+    }
+}
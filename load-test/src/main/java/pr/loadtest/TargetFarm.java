@@ -0,0 +1,120 @@
+package pr.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The monitored endpoints: one loopback HTTP server answering {@code GET /<target number>} after a simulated
+ * response time. Each request sleeps on its own virtual thread, so thousands of slow targets cost no platform
+ * threads.
+ * <p>
+ * Response times are log-normal around the profile's median. A fixed share of targets is down and always answers
+ * 503, healthy targets fail a share of their checks with 500, and a share of checks hangs for
+ * {@code slowMillis}, past the worker's response timeout.
+ */
+final class TargetFarm implements AutoCloseable {
+
+    record Profile(long medianLatencyMs, double latencySigma, double failureRate, double downFraction,
+                   double slowRate, long slowMillis) {
+    }
+
+    private final TargetCatalog catalog;
+    private final Profile profile;
+    private final LatencyStage dispatch;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpServer server;
+    private final LongAdder requests = new LongAdder();
+
+    TargetFarm(TargetCatalog catalog, Profile profile, LatencyStage dispatch) throws IOException {
+        this.catalog = catalog;
+        this.profile = profile;
+        this.dispatch = dispatch;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4096);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Base URL; a target's URL is this followed by its number.
+     */
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    long requests() {
+        return requests.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            long now = System.currentTimeMillis();
+            requests.increment();
+            int index = parseIndex(exchange.getRequestURI().getPath());
+            if (index < 0) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            long handedOutAt = catalog.handedOutAt(index);
+            if (handedOutAt > 0) {
+                dispatch.record(now - handedOutAt);
+            }
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextDouble() < profile.slowRate()) {
+                sleep(profile.slowMillis());
+            } else {
+                sleep(Math.round(profile.medianLatencyMs() * Math.exp(profile.latencySigma() * random.nextGaussian())));
+            }
+            int status = isDown(index) ? 503 : random.nextDouble() < profile.failureRate() ? 500 : 200;
+            exchange.sendResponseHeaders(status, -1);
+        }
+    }
+
+    private int parseIndex(String path) {
+        int index = 0;
+        if (path.length() < 2 || path.length() > 11) {
+            return -1;
+        }
+        for (int i = 1; i < path.length(); i++) {
+            int digit = path.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            index = index * 10 + digit;
+        }
+        return index < catalog.size() ? index : -1;
+    }
+
+    private boolean isDown(int index) {
+        long hash = index * 0x9e3779b97f4a7c15L;
+        hash = (hash ^ (hash >>> 32)) * 0xd6e8feb86659fd93L;
+        hash ^= hash >>> 32;
+        return (hash >>> 11) * 0x1.0p-53 < profile.downFraction();
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,179 @@
+package pr.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stands in for InfluxDB: accepts line-protocol posts to {@code /api/v2/write} and answers 204 without storing
+ * anything. {@code health_check} lines are counted as stored checks and timed against the moment their target was
+ * handed to the scheduler; every other line (the rollups) is only counted.
+ */
+final class TimeSeriesSink implements AutoCloseable {
+
+    private static final byte[] HEALTH_CHECK_PREFIX = "health_check,targetId=".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LATENCY_FIELD = ",latency_ms=".getBytes(StandardCharsets.US_ASCII);
+    private static final int IS_UP_OFFSET = " isUp=".length();
+
+    private final TargetCatalog catalog;
+    private final LatencyStage probe;
+    private final LatencyStage ingest;
+    private final LatencyStage endToEnd;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpServer server;
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder failedChecks = new LongAdder();
+    private final LongAdder otherLines = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+
+    TimeSeriesSink(TargetCatalog catalog, LatencyStage probe, LatencyStage ingest, LatencyStage endToEnd)
+            throws IOException {
+        this.catalog = catalog;
+        this.probe = probe;
+        this.ingest = ingest;
+        this.endToEnd = endToEnd;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * {@code health_check} points written so far.
+     */
+    long checks() {
+        return checks.sum();
+    }
+
+    /**
+     * {@code health_check} points written with {@code isUp=0}.
+     */
+    long failedChecks() {
+        return failedChecks.sum();
+    }
+
+    long otherLines() {
+        return otherLines.sum();
+    }
+
+    long requests() {
+        return requests.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange; InputStream body = exchange.getRequestBody()) {
+            byte[] bytes = body.readAllBytes();
+            long now = System.currentTimeMillis();
+            requests.increment();
+            int start = 0;
+            while (start < bytes.length) {
+                int end = indexOf(bytes, (byte) '\n', start, bytes.length);
+                if (end > start) {
+                    accept(bytes, start, end, now);
+                }
+                start = end + 1;
+            }
+            exchange.sendResponseHeaders(204, -1);
+        }
+    }
+
+    private void accept(byte[] line, int start, int end, long now) {
+        if (!startsWith(line, start, end, HEALTH_CHECK_PREFIX)) {
+            otherLines.increment();
+            return;
+        }
+        checks.increment();
+        int tagsEnd = indexOf(line, (byte) ' ', start + HEALTH_CHECK_PREFIX.length, end);
+        int timestampStart = lastIndexOf(line, (byte) ' ', start, end) + 1;
+        if (tagsEnd >= end || timestampStart <= tagsEnd) {
+            return;
+        }
+        int isUp = tagsEnd + IS_UP_OFFSET;
+        if (isUp < end && line[isUp] == '0') {
+            failedChecks.increment();
+        }
+        int latency = find(line, LATENCY_FIELD, tagsEnd, timestampStart);
+        if (latency >= 0) {
+            probe.record(parseLong(line, latency + LATENCY_FIELD.length, timestampStart));
+        }
+        ingest.record(now - parseLong(line, timestampStart, end));
+
+        int index = catalog.indexOf(line, tagsEnd);
+        long handedOutAt = index >= 0 ? catalog.handedOutAt(index) : 0;
+        if (handedOutAt > 0) {
+            endToEnd.record(now - handedOutAt);
+        }
+    }
+
+    private static boolean startsWith(byte[] bytes, int start, int end, byte[] prefix) {
+        if (end - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[start + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int find(byte[] bytes, byte[] needle, int from, int to) {
+        for (int i = from; i <= to - needle.length; i++) {
+            if (startsWith(bytes, i, to, needle)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(byte[] bytes, byte b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    private static int lastIndexOf(byte[] bytes, byte b, int from, int to) {
+        for (int i = to - 1; i >= from; i--) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return from - 1;
+    }
+
+    /**
+     * Parses the digits starting at {@code from}, stopping at the first non-digit (such as the {@code i} suffix).
+     */
+    private static long parseLong(byte[] bytes, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
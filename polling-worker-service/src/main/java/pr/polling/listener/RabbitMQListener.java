@@ -1,9 +1,13 @@
 package pr.polling.listener;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import pr.polling.config.RabbitMQConfig;
@@ -11,21 +15,52 @@ import pr.polling.job.CheckJob;
 import pr.polling.result.CheckResult;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Runs the check of each {@link CheckJob} and publishes its {@link CheckResult}.
+ * <p>
+ * Exposes {@code polling.queue.wait} (time from the scheduler publishing the job to it being received),
+ * {@code polling.probe} (response time, by outcome: {@code up}, {@code down} or {@code error} when no response
+ * came back) and {@code polling.results.published}.
+ */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class RabbitMQListener {
 
     private final WebClient webClient;
     private final RabbitTemplate rabbitTemplate;
+    private final Timer queueWait;
+    private final Timer probeUp;
+    private final Timer probeDown;
+    private final Timer probeError;
+    private final Counter published;
+
+    public RabbitMQListener(WebClient webClient, RabbitTemplate rabbitTemplate, MeterRegistry meterRegistry) {
+        this.webClient = webClient;
+        this.rabbitTemplate = rabbitTemplate;
+        this.queueWait = Timer.builder("polling.queue.wait")
+                .description("Time check jobs spent in check_jobs_queue")
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofMinutes(10))
+                .register(meterRegistry);
+        this.probeUp = probeTimer("up", meterRegistry);
+        this.probeDown = probeTimer("down", meterRegistry);
+        this.probeError = probeTimer("error", meterRegistry);
+        this.published = Counter.builder("polling.results.published").register(meterRegistry);
+    }
 
     @RabbitListener(queues = RabbitMQConfig.INCOMING_QUEUE_NAME)
-    public void handleJob(CheckJob job) {
+    public void handleJob(CheckJob job, @Header(name = AmqpHeaders.TIMESTAMP, required = false) Date publishedAt) {
         log.info("Received job for target ID: {}. URL: {}", job.getTargetId(), job.getUrl());
 
         long startTime = System.currentTimeMillis();
+        if (publishedAt != null) {
+            queueWait.record(Math.max(0, startTime - publishedAt.getTime()), TimeUnit.MILLISECONDS);
+        }
 
         webClient.get()
                 .uri(job.getUrl())
@@ -33,11 +68,13 @@ public class RabbitMQListener {
                     long latency = System.currentTimeMillis() - startTime;
                     CheckResult result = CheckResult.builder()
                             .targetId(job.getTargetId())
+                            .checkId(job.getCheckId())
                             .timestamp(Instant.now())
                             .isUp(response.statusCode().is2xxSuccessful())
                             .statusCode(response.statusCode().value())
                             .latencyMs(latency)
                             .build();
+                    (result.isUp() ? probeUp : probeDown).record(latency, TimeUnit.MILLISECONDS);
                     return Mono.just(result);
                 })
                 .onErrorResume(error -> {
@@ -45,11 +82,13 @@ public class RabbitMQListener {
                     long latency = System.currentTimeMillis() - startTime;
                     CheckResult result = CheckResult.builder()
                             .targetId(job.getTargetId())
+                            .checkId(job.getCheckId())
                             .timestamp(Instant.now())
                             .isUp(false)
                             .latencyMs(latency)
                             .errorMessage(error.getMessage())
                             .build();
+                    probeError.record(latency, TimeUnit.MILLISECONDS);
                     return Mono.just(result);
                 })
                 .doOnSuccess(this :: publishResult)
@@ -62,5 +101,14 @@ public class RabbitMQListener {
                 RabbitMQConfig.RESULTS_EXCHANGE_NAME,
                 RabbitMQConfig.RESULTS_ROUTING_KEY,
                 result);
+        published.increment();
+    }
+
+    private static Timer probeTimer(String outcome, MeterRegistry meterRegistry) {
+        return Timer.builder("polling.probe")
+                .description("Response time of the checked endpoints")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 }
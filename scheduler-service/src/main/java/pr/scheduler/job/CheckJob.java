@@ -12,4 +12,5 @@ import java.io.Serializable;
 public class CheckJob {
     private String targetId;
     private String url;
+    private String checkId;
 }
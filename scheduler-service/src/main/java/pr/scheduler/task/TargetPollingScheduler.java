@@ -2,10 +2,13 @@ package pr.scheduler.task;
 
 import com.google.protobuf.Empty;
 import io.grpc.StatusRuntimeException;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.MessagePostProcessor;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.grpc.client.GrpcChannelFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import pr.pulsesynapse.proto.TargetListResponse;
@@ -14,13 +17,51 @@ import pr.pulsesynapse.proto.TargetServiceGrpc;
 import pr.scheduler.config.RabbitMQConfig;
 import pr.scheduler.job.CheckJob;
 
+import java.time.Duration;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls target-management-service for due targets and publishes a {@link CheckJob} for each.
+ * <p>
+ * Exposes {@code scheduler.lag} (due time to the job being published), {@code scheduler.due.targets} (targets
+ * per poll), {@code scheduler.jobs.dispatched} and {@code scheduler.polls} (by outcome). Jobs carry their publish
+ * time as the AMQP timestamp, from which the polling worker measures how long they waited in the queue.
+ */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class TargetPollingScheduler {
 
+    private static final MessagePostProcessor STAMP_PUBLISH_TIME = message -> {
+        message.getMessageProperties().setTimestamp(new Date());
+        return message;
+    };
+
     private final TargetServiceGrpc.TargetServiceBlockingStub targetServiceStub;
     private final RabbitTemplate rabbitTemplate;
+    private final Timer schedulingLag;
+    private final DistributionSummary dueTargets;
+    private final Counter dispatched;
+    private final Counter pollsSucceeded;
+    private final Counter pollsFailed;
+
+    public TargetPollingScheduler(TargetServiceGrpc.TargetServiceBlockingStub targetServiceStub,
+                                  RabbitTemplate rabbitTemplate, MeterRegistry meterRegistry) {
+        this.targetServiceStub = targetServiceStub;
+        this.rabbitTemplate = rabbitTemplate;
+        this.schedulingLag = Timer.builder("scheduler.lag")
+                .description("Time from a check being due to its job being published")
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofMinutes(10))
+                .register(meterRegistry);
+        this.dueTargets = DistributionSummary.builder("scheduler.due.targets")
+                .baseUnit("targets")
+                .register(meterRegistry);
+        this.dispatched = Counter.builder("scheduler.jobs.dispatched").register(meterRegistry);
+        this.pollsSucceeded = Counter.builder("scheduler.polls").tag("outcome", "success").register(meterRegistry);
+        this.pollsFailed = Counter.builder("scheduler.polls").tag("outcome", "error").register(meterRegistry);
+    }
 
     @Scheduled(fixedRateString = "${polling.schedule.rate.ms}")
     public void scheduleTargetChecks() {
@@ -28,17 +69,27 @@ public class TargetPollingScheduler {
         try {
             TargetListResponse response = targetServiceStub.getDueTargets(Empty.newBuilder().build());
             int targetsCount = response.getTargetsCount();
+            dueTargets.record(targetsCount);
             log.info("Found {} targets to schedule.",  targetsCount);
 
             for (TargetResponse target : response.getTargetsList()) {
-                CheckJob job = new CheckJob(target.getId(), target.getUrl());
+                CheckJob job = new CheckJob(target.getId(), target.getUrl(), UUID.randomUUID().toString());
 
-                rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE_NAME, RabbitMQConfig.ROUTING_KEY, job);
+                rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE_NAME, RabbitMQConfig.ROUTING_KEY, job,
+                        STAMP_PUBLISH_TIME);
+                dispatched.increment();
+                if (target.getDueTimeMs() > 0) {
+                    schedulingLag.record(Math.max(0, System.currentTimeMillis() - target.getDueTimeMs()),
+                            TimeUnit.MILLISECONDS);
+                }
                 log.info("Sent job for target ID: {}", target.getId());
             }
+            pollsSucceeded.increment();
         } catch (StatusRuntimeException e) {
+            pollsFailed.increment();
             log.error("Error calling target-management-service: {}", e.getStatus());
         } catch (Exception e) {
+            pollsFailed.increment();
             log.error("An unexpected error occurred during scheduling.", e);
         }
     }
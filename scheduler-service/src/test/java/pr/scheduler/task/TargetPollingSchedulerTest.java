@@ -0,0 +1,98 @@
+package pr.scheduler.task;
+
+import io.grpc.Status;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import pr.pulsesynapse.proto.TargetListResponse;
+import pr.pulsesynapse.proto.TargetResponse;
+import pr.pulsesynapse.proto.TargetServiceGrpc;
+import pr.scheduler.config.RabbitMQConfig;
+import pr.scheduler.job.CheckJob;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TargetPollingSchedulerTest {
+
+    private final TargetServiceGrpc.TargetServiceBlockingStub stub =
+            mock(TargetServiceGrpc.TargetServiceBlockingStub.class);
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TargetPollingScheduler scheduler = new TargetPollingScheduler(stub, rabbitTemplate, meterRegistry);
+
+    @Test
+    void recordsLagFromTheDueTime() {
+        long now = System.currentTimeMillis();
+        when(stub.getDueTargets(any())).thenReturn(TargetListResponse.newBuilder()
+                .addTargets(target("a", now - 5_000))
+                .addTargets(target("b", now - 1_000))
+                .addTargets(target("c", 0))
+                .build());
+
+        scheduler.scheduleTargetChecks();
+
+        verify(rabbitTemplate, times(3)).convertAndSend(eq(RabbitMQConfig.EXCHANGE_NAME),
+                eq(RabbitMQConfig.ROUTING_KEY), any(CheckJob.class), any(MessagePostProcessor.class));
+        assertEquals(3.0, meterRegistry.get("scheduler.jobs.dispatched").counter().count());
+        assertEquals(3.0, meterRegistry.get("scheduler.due.targets").summary().totalAmount());
+        assertEquals(1.0, meterRegistry.get("scheduler.polls").tag("outcome", "success").counter().count());
+
+        // targets without a due time are not counted as lag
+        Timer lag = meterRegistry.get("scheduler.lag").timer();
+        assertEquals(2, lag.count());
+        assertTrue(lag.max(TimeUnit.MILLISECONDS) >= 5_000);
+    }
+
+    @Test
+    void countsFailedPolls() {
+        when(stub.getDueTargets(any())).thenThrow(Status.UNAVAILABLE.asRuntimeException());
+
+        scheduler.scheduleTargetChecks();
+
+        assertEquals(1.0, meterRegistry.get("scheduler.polls").tag("outcome", "error").counter().count());
+        assertEquals(0.0, meterRegistry.get("scheduler.jobs.dispatched").counter().count());
+    }
+
+    @Test
+    void stampsThePublishTime() {
+        long now = System.currentTimeMillis();
+        when(stub.getDueTargets(any())).thenReturn(TargetListResponse.newBuilder()
+                .addTargets(target("a", now))
+                .build());
+
+        scheduler.scheduleTargetChecks();
+
+        ArgumentCaptor<MessagePostProcessor> postProcessor = ArgumentCaptor.forClass(MessagePostProcessor.class);
+        verify(rabbitTemplate).convertAndSend(eq(RabbitMQConfig.EXCHANGE_NAME), eq(RabbitMQConfig.ROUTING_KEY),
+                any(CheckJob.class), postProcessor.capture());
+        Message message = postProcessor.getValue()
+                .postProcessMessage(new Message(new byte[0], new MessageProperties()));
+
+        assertNotNull(message.getMessageProperties().getTimestamp());
+        assertTrue(message.getMessageProperties().getTimestamp().getTime() >= now);
+    }
+
+    private static TargetResponse target(String id, long dueTimeMs) {
+        return TargetResponse.newBuilder()
+                .setId(id)
+                .setUrl("https://" + id + ".example.com")
+                .setCheckIntervalSeconds(60)
+                .setDueTimeMs(dueTimeMs)
+                .build();
+    }
+}
@@ -0,0 +1,54 @@
+package pr.pulsesynapse.storage;
+
+import pr.pulsesynapse.storage.rollup.RollupAccumulator;
+import pr.pulsesynapse.storage.rollup.RollupResolution;
+
+/**
+ * Turns a time-ordered raw scan into rollup windows for stores that do not keep rollups.
+ */
+class DerivedRollups implements SampleVisitor {
+
+    private final String targetId;
+    private final RollupResolution resolution;
+    private final RollupVisitor visitor;
+
+    private RollupAccumulator window = new RollupAccumulator();
+    private long windowStart;
+    private boolean stopped;
+
+    DerivedRollups(String targetId, RollupResolution resolution, RollupVisitor visitor) {
+        this.targetId = targetId;
+        this.resolution = resolution;
+        this.visitor = visitor;
+    }
+
+    @Override
+    public boolean visit(long timestampMillis, boolean up, int statusCode, long latencyMs) {
+        long start = resolution.windowStart(timestampMillis);
+        if (start != windowStart) {
+            if (!emit()) {
+                return false;
+            }
+            window = new RollupAccumulator();
+            windowStart = start;
+        }
+        window.add(up, latencyMs, latencyMs != TimeSeriesWriter.NO_LATENCY);
+        return true;
+    }
+
+    /**
+     * Hands out the last window, unless the visitor already stopped the scan.
+     */
+    void finish() {
+        if (!stopped) {
+            emit();
+        }
+    }
+
+    private boolean emit() {
+        if (!window.isEmpty() && !visitor.visit(window.toRollup(targetId, resolution, windowStart))) {
+            stopped = true;
+        }
+        return !stopped;
+    }
+}
@@ -0,0 +1,15 @@
+package pr.pulsesynapse.storage;
+
+import pr.pulsesynapse.storage.rollup.Rollup;
+
+/**
+ * Receives rollup windows from {@link TimeSeriesReader#scanRollups}.
+ */
+@FunctionalInterface
+public interface RollupVisitor {
+
+    /**
+     * @return {@code false} to stop the scan
+     */
+    boolean visit(Rollup rollup);
+}
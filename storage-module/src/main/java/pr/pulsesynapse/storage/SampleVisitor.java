@@ -0,0 +1,14 @@
+package pr.pulsesynapse.storage;
+
+/**
+ * Receives raw {@code health_check} samples from {@link TimeSeriesReader#scan}.
+ */
+@FunctionalInterface
+public interface SampleVisitor {
+
+    /**
+     * @param latencyMs the probe latency, or {@link TimeSeriesWriter#NO_LATENCY} when none was recorded
+     * @return {@code false} to stop the scan
+     */
+    boolean visit(long timestampMillis, boolean up, int statusCode, long latencyMs);
+}
@@ -0,0 +1,61 @@
+package pr.pulsesynapse.storage;
+
+import lombok.Getter;
+
+/**
+ * Sample count, UP count and latest sample of one target within a range. Summaries of adjacent ranges can be
+ * combined with {@link #merge(SeriesSummary)}.
+ */
+@Getter
+public class SeriesSummary implements SampleVisitor {
+
+    private long count;
+    private long upCount;
+    private long lastTimestamp = Long.MIN_VALUE;
+    private boolean lastUp;
+    private int lastStatusCode;
+    private long lastLatencyMs = TimeSeriesWriter.NO_LATENCY;
+
+    @Override
+    public boolean visit(long timestampMillis, boolean up, int statusCode, long latencyMs) {
+        addCounts(1, up ? 1 : 0);
+        updateLast(timestampMillis, up, statusCode, latencyMs);
+        return true;
+    }
+
+    public void addCounts(long count, long upCount) {
+        this.count += count;
+        this.upCount += upCount;
+    }
+
+    /**
+     * Replaces the latest sample unless the current one is newer.
+     */
+    public void updateLast(long timestampMillis, boolean up, int statusCode, long latencyMs) {
+        if (timestampMillis < lastTimestamp) {
+            return;
+        }
+        lastTimestamp = timestampMillis;
+        lastUp = up;
+        lastStatusCode = statusCode;
+        lastLatencyMs = latencyMs;
+    }
+
+    public void merge(SeriesSummary other) {
+        addCounts(other.count, other.upCount);
+        if (other.hasLast()) {
+            updateLast(other.lastTimestamp, other.lastUp, other.lastStatusCode, other.lastLatencyMs);
+        }
+    }
+
+    public boolean hasLast() {
+        return lastTimestamp != Long.MIN_VALUE;
+    }
+
+    /**
+     * Returns the fraction of UP samples, or {@link Double#NaN} when there are none.
+     */
+    public double uptime() {
+        return count == 0 ? Double.NaN : (double) upCount / count;
+    }
+}
@@ -0,0 +1,14 @@
+package pr.pulsesynapse.storage;
+
+/**
+ * Receives raw {@code health_check} samples of several targets from {@link TimeSeriesReader#scanAll}.
+ */
+@FunctionalInterface
+public interface TargetSampleVisitor {
+
+    /**
+     * @param latencyMs the probe latency, or {@link TimeSeriesWriter#NO_LATENCY} when none was recorded
+     * @return {@code false} to stop the scan
+     */
+    boolean visit(String targetId, long timestampMillis, boolean up, int statusCode, long latencyMs);
+}
@@ -0,0 +1,83 @@
+package pr.pulsesynapse.storage;
+
+import pr.pulsesynapse.storage.rollup.RollupResolution;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read side of the time-series storage used by analytics-reporting-service.
+ * Time ranges are half-open: {@code [startMillis, endMillis)}.
+ * <p>
+ * Every method is synchronous: visitors are called on the calling thread, a scan returns only once its visitor has
+ * seen every sample (or stopped it), and a failed read throws instead of returning what it had so far.
+ */
+public interface TimeSeriesReader {
+
+    /**
+     * Streams the raw samples of one target within the range to the visitor, oldest first.
+     */
+    void scan(String targetId, long startMillis, long endMillis, SampleVisitor visitor);
+
+    /**
+     * Streams the raw samples of several targets within the range to the visitor: all samples of one target, oldest
+     * first, before those of the next, with targets in no particular order. Meant for bulk reads that would
+     * otherwise take one query per target; backends should override this to stream many targets per query.
+     */
+    default void scanAll(Collection<String> targetIds, long startMillis, long endMillis, TargetSampleVisitor visitor) {
+        boolean[] stopped = new boolean[1];
+        for (String targetId : targetIds) {
+            scan(targetId, startMillis, endMillis, (timestamp, up, statusCode, latencyMs) -> {
+                stopped[0] = !visitor.visit(targetId, timestamp, up, statusCode, latencyMs);
+                return !stopped[0];
+            });
+            if (stopped[0]) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Streams the rollup windows of one target that start within the range, oldest first, skipping windows
+     * without samples. The range should be aligned to the resolution's windows. The default derives the windows
+     * from the raw samples, for stores that do not keep rollups.
+     */
+    default void scanRollups(String targetId, RollupResolution resolution, long startMillis, long endMillis,
+                             RollupVisitor visitor) {
+        DerivedRollups derived = new DerivedRollups(targetId, resolution, visitor);
+        scan(targetId, startMillis, endMillis, derived);
+        derived.finish();
+    }
+
+    /**
+     * Returns the fraction of UP samples within the range, or {@link Double#NaN} when there are none.
+     */
+    default double uptime(String targetId, long startMillis, long endMillis) {
+        long[] counts = new long[2];
+        scan(targetId, startMillis, endMillis, (timestamp, up, statusCode, latencyMs) -> {
+            counts[0]++;
+            if (up) {
+                counts[1]++;
+            }
+            return true;
+        });
+        return counts[0] == 0 ? Double.NaN : (double) counts[1] / counts[0];
+    }
+
+    /**
+     * Summarizes each of the targets over the same range. Every requested target is present in the result, with
+     * an empty summary when it has no samples. Backends should override this to answer in a single query.
+     */
+    default Map<String, SeriesSummary> summarize(Collection<String> targetIds, long startMillis, long endMillis) {
+        Map<String, SeriesSummary> summaries = new LinkedHashMap<>();
+        for (String targetId : targetIds) {
+            if (!summaries.containsKey(targetId)) {
+                SeriesSummary summary = new SeriesSummary();
+                scan(targetId, startMillis, endMillis, summary);
+                summaries.put(targetId, summary);
+            }
+        }
+        return summaries;
+    }
+}
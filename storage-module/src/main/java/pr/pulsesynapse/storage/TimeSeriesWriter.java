@@ -0,0 +1,32 @@
+package pr.pulsesynapse.storage;
+
+import pr.pulsesynapse.storage.rollup.Rollup;
+
+import java.util.List;
+
+/**
+ * Write side of the time-series storage used by data-ingestion-service.
+ */
+public interface TimeSeriesWriter {
+
+    long NO_LATENCY = -1L;
+
+    /**
+     * Appends one raw {@code health_check} sample. Implementations may buffer; see {@link #flush()}.
+     */
+    void write(String targetId, long timestampMillis, boolean up, int statusCode, long latencyMs);
+
+    /**
+     * Stores rollup windows, replacing any earlier version of the same window from the same
+     * {@linkplain Rollup#getWriter() writer}; points of other writers are kept and summed by readers.
+     * Stores that derive rollups from raw samples at read time can ignore them.
+     *
+     * @throws RuntimeException when the rollups could not be stored and should be retried
+     */
+    void writeRollups(List<Rollup> rollups);
+
+    /**
+     * Makes everything written so far durable and visible to readers.
+     */
+    void flush();
+}
@@ -0,0 +1,50 @@
+package pr.pulsesynapse.storage.embedded;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads bits most-significant first from a region of a (typically memory-mapped) buffer.
+ */
+final class BitReader {
+
+    private final ByteBuffer buffer;
+    private final int start;
+    private final long bitLimit;
+    private long bitPosition;
+
+    BitReader(ByteBuffer buffer, int start, int length) {
+        this.buffer = buffer;
+        this.start = start;
+        this.bitLimit = (long) length << 3;
+    }
+
+    boolean readBit() {
+        checkAvailable(1);
+        int current = buffer.get(start + (int) (bitPosition >>> 3)) & 0xff;
+        boolean bit = (current & (0x80 >>> (bitPosition & 7))) != 0;
+        bitPosition++;
+        return bit;
+    }
+
+    long readBits(int count) {
+        checkAvailable(count);
+        long value = 0;
+        int remaining = count;
+        while (remaining > 0) {
+            int current = buffer.get(start + (int) (bitPosition >>> 3)) & 0xff;
+            int availableInByte = 8 - (int) (bitPosition & 7);
+            int take = Math.min(availableInByte, remaining);
+            int chunk = (current >>> (availableInByte - take)) & ((1 << take) - 1);
+            value = (value << take) | chunk;
+            bitPosition += take;
+            remaining -= take;
+        }
+        return value;
+    }
+
+    private void checkAvailable(int count) {
+        if (bitPosition + count > bitLimit) {
+            throw new IllegalStateException("Corrupt block: read past the end of the payload");
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package pr.pulsesynapse.storage.embedded;
+
+import java.util.Arrays;
+
+/**
+ * Appends bits most-significant first into a growable byte array.
+ */
+final class BitWriter {
+
+    private byte[] bytes;
+    private long bitLength;
+
+    BitWriter(int initialCapacity) {
+        this.bytes = new byte[Math.max(16, initialCapacity)];
+    }
+
+    void writeBit(boolean bit) {
+        ensureCapacity(1);
+        if (bit) {
+            int index = (int) (bitLength >>> 3);
+            bytes[index] |= (byte) (0x80 >>> (bitLength & 7));
+        }
+        bitLength++;
+    }
+
+    /**
+     * Writes the lowest {@code count} bits of the value, most significant first.
+     */
+    void writeBits(long value, int count) {
+        ensureCapacity(count);
+        for (int shift = count - 1; shift >= 0; ) {
+            int index = (int) (bitLength >>> 3);
+            int freeInByte = 8 - (int) (bitLength & 7);
+            int take = Math.min(freeInByte, shift + 1);
+            int chunk = (int) ((value >>> (shift + 1 - take)) & ((1 << take) - 1));
+            bytes[index] |= (byte) (chunk << (freeInByte - take));
+            bitLength += take;
+            shift -= take;
+        }
+    }
+
+    int byteLength() {
+        return (int) ((bitLength + 7) >>> 3);
+    }
+
+    byte[] array() {
+        return bytes;
+    }
+
+    void reset() {
+        Arrays.fill(bytes, 0, byteLength(), (byte) 0);
+        bitLength = 0;
+    }
+
+    private void ensureCapacity(int extraBits) {
+        long needed = (bitLength + extraBits + 7) >>> 3;
+        if (needed > bytes.length) {
+            bytes = Arrays.copyOf(bytes, (int) Math.max(bytes.length * 2L, needed));
+        }
+    }
+}
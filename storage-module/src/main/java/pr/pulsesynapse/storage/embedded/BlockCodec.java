@@ -0,0 +1,210 @@
+package pr.pulsesynapse.storage.embedded;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * Encodes runs of samples into self-describing blocks.
+ * <p>
+ * A block is a 32-byte header ({@code magic, payloadLength, count, crc32, minTimestamp, maxTimestamp}) followed by
+ * a bit-packed payload in the style of Facebook's Gorilla: delta-of-delta timestamps, XOR-compressed latencies
+ * (as doubles, so small integers leave long runs of zero bits) and a one-bit "unchanged" flag for the status.
+ * The header alone is enough to skip a block that does not overlap the queried range.
+ */
+final class BlockCodec {
+
+    static final int MAGIC = 0x50534231;
+    static final int HEADER_BYTES = 32;
+
+    private static final int STATUS_BITS = 10;
+    private static final int MAX_STATUS = (1 << STATUS_BITS) - 1;
+
+    private BlockCodec() {
+    }
+
+    static byte[] encode(SampleBuffer samples, int from, int to) {
+        BitWriter bits = new BitWriter((to - from) * 3 + 16);
+        long minTimestamp = Long.MAX_VALUE;
+        long maxTimestamp = Long.MIN_VALUE;
+
+        long previousTimestamp = 0;
+        long previousDelta = 0;
+        long previousValue = 0;
+        int previousLeading = -1;
+        int previousTrailing = 0;
+        boolean previousUp = false;
+        int previousStatus = 0;
+
+        for (int i = from; i < to; i++) {
+            long timestamp = samples.timestamp(i);
+            minTimestamp = Math.min(minTimestamp, timestamp);
+            maxTimestamp = Math.max(maxTimestamp, timestamp);
+            long value = Double.doubleToRawLongBits(samples.latency(i));
+            boolean up = samples.up(i);
+            int status = Math.min(Math.max(samples.statusCode(i), 0), MAX_STATUS);
+
+            if (i == from) {
+                bits.writeBits(timestamp, 64);
+                bits.writeBits(value, 64);
+                bits.writeBit(up);
+                bits.writeBits(status, STATUS_BITS);
+            } else {
+                long delta = timestamp - previousTimestamp;
+                writeDeltaOfDelta(bits, delta - previousDelta);
+                previousDelta = delta;
+
+                long xor = value ^ previousValue;
+                if (xor == 0) {
+                    bits.writeBit(false);
+                } else {
+                    bits.writeBit(true);
+                    int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+                    int trailing = Long.numberOfTrailingZeros(xor);
+                    if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                        bits.writeBit(false);
+                        bits.writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+                    } else {
+                        int significant = 64 - leading - trailing;
+                        bits.writeBit(true);
+                        bits.writeBits(leading, 5);
+                        bits.writeBits(significant - 1, 6);
+                        bits.writeBits(xor >>> trailing, significant);
+                        previousLeading = leading;
+                        previousTrailing = trailing;
+                    }
+                }
+
+                if (up == previousUp && status == previousStatus) {
+                    bits.writeBit(false);
+                } else {
+                    bits.writeBit(true);
+                    bits.writeBit(up);
+                    bits.writeBits(status, STATUS_BITS);
+                }
+            }
+
+            previousTimestamp = timestamp;
+            previousValue = value;
+            previousUp = up;
+            previousStatus = status;
+        }
+
+        int payloadLength = bits.byteLength();
+        CRC32 crc = new CRC32();
+        crc.update(bits.array(), 0, payloadLength);
+
+        ByteBuffer block = ByteBuffer.allocate(HEADER_BYTES + payloadLength);
+        block.putInt(MAGIC)
+                .putInt(payloadLength)
+                .putInt(to - from)
+                .putInt((int) crc.getValue())
+                .putLong(minTimestamp)
+                .putLong(maxTimestamp)
+                .put(bits.array(), 0, payloadLength);
+        return block.array();
+    }
+
+    /**
+     * Decodes the block at {@code position}, adding the samples within {@code [start, end)} to {@code out}.
+     *
+     * @return the position of the next block, or {@code -1} if the block is truncated or corrupt
+     */
+    static int decode(ByteBuffer buffer, int position, long start, long end, SampleBuffer out) {
+        if (position + HEADER_BYTES > buffer.limit() || buffer.getInt(position) != MAGIC) {
+            return -1;
+        }
+        int payloadLength = buffer.getInt(position + 4);
+        int count = buffer.getInt(position + 8);
+        int checksum = buffer.getInt(position + 12);
+        long minTimestamp = buffer.getLong(position + 16);
+        long maxTimestamp = buffer.getLong(position + 24);
+        int payloadStart = position + HEADER_BYTES;
+        int next = payloadStart + payloadLength;
+        if (payloadLength < 0 || next > buffer.limit()) {
+            return -1;
+        }
+        if (maxTimestamp < start || minTimestamp >= end) {
+            return next;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(payloadStart, payloadLength));
+        if ((int) crc.getValue() != checksum) {
+            return -1;
+        }
+
+        BitReader bits = new BitReader(buffer, payloadStart, payloadLength);
+        long timestamp = 0;
+        long delta = 0;
+        long value = 0;
+        int leading = 0;
+        int trailing = 0;
+        boolean up = false;
+        int status = 0;
+
+        for (int i = 0; i < count; i++) {
+            if (i == 0) {
+                timestamp = bits.readBits(64);
+                value = bits.readBits(64);
+                up = bits.readBit();
+                status = (int) bits.readBits(STATUS_BITS);
+            } else {
+                delta += readDeltaOfDelta(bits);
+                timestamp += delta;
+
+                if (bits.readBit()) {
+                    if (bits.readBit()) {
+                        leading = (int) bits.readBits(5);
+                        int significant = (int) bits.readBits(6) + 1;
+                        trailing = 64 - leading - significant;
+                    }
+                    value ^= bits.readBits(64 - leading - trailing) << trailing;
+                }
+
+                if (bits.readBit()) {
+                    up = bits.readBit();
+                    status = (int) bits.readBits(STATUS_BITS);
+                }
+            }
+
+            if (timestamp >= start && timestamp < end) {
+                out.add(timestamp, up, status, (long) Double.longBitsToDouble(value));
+            }
+        }
+        return next;
+    }
+
+    private static void writeDeltaOfDelta(BitWriter bits, long deltaOfDelta) {
+        if (deltaOfDelta == 0) {
+            bits.writeBit(false);
+        } else if (deltaOfDelta >= -63 && deltaOfDelta <= 64) {
+            bits.writeBits(0b10, 2);
+            bits.writeBits(deltaOfDelta + 63, 7);
+        } else if (deltaOfDelta >= -255 && deltaOfDelta <= 256) {
+            bits.writeBits(0b110, 3);
+            bits.writeBits(deltaOfDelta + 255, 9);
+        } else if (deltaOfDelta >= -2047 && deltaOfDelta <= 2048) {
+            bits.writeBits(0b1110, 4);
+            bits.writeBits(deltaOfDelta + 2047, 12);
+        } else {
+            bits.writeBits(0b1111, 4);
+            bits.writeBits(deltaOfDelta, 64);
+        }
+    }
+
+    private static long readDeltaOfDelta(BitReader bits) {
+        if (!bits.readBit()) {
+            return 0;
+        }
+        if (!bits.readBit()) {
+            return bits.readBits(7) - 63;
+        }
+        if (!bits.readBit()) {
+            return bits.readBits(9) - 255;
+        }
+        if (!bits.readBit()) {
+            return bits.readBits(12) - 2047;
+        }
+        return bits.readBits(64);
+    }
+}
@@ -0,0 +1,363 @@
+package pr.pulsesynapse.storage.embedded;
+
+import lombok.extern.slf4j.Slf4j;
+import pr.pulsesynapse.storage.SampleVisitor;
+import pr.pulsesynapse.storage.TimeSeriesReader;
+import pr.pulsesynapse.storage.TimeSeriesWriter;
+import pr.pulsesynapse.storage.rollup.Rollup;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * File-based time-series store for {@code health_check} samples, usable instead of InfluxDB for local testing
+ * and small deployments.
+ * <p>
+ * Layout: one directory per UTC day ({@code yyyyMMdd}) holding one append-only segment file per target. Writes
+ * are buffered per target and appended as compressed blocks (see {@link BlockCodec}) when a buffer reaches
+ * {@code blockSize} samples or on {@link #flush()}. Reads memory-map the segment files of the days in range and
+ * skip blocks by their header. {@link #maintain(long)} drops days past retention and compacts closed days, whose
+ * many small flush-sized blocks are rewritten as a few full, time-ordered ones.
+ * <p>
+ * Rollups are not stored; readers derive them from the raw samples.
+ */
+@Slf4j
+public class EmbeddedTimeSeriesStore implements TimeSeriesWriter, TimeSeriesReader, Closeable {
+
+    private static final long PARTITION_MILLIS = 86_400_000L;
+    private static final DateTimeFormatter PARTITION_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String COMPACTED_MARKER = ".compacted";
+    private static final Pattern SAFE_FILE_NAME = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]{0,199}");
+
+    private final Path root;
+    private final int blockSize;
+    private final int retentionDays;
+    private final Map<String, PendingSamples> pending = new HashMap<>();
+
+    public EmbeddedTimeSeriesStore(Path root, int blockSize, int retentionDays) {
+        this.root = root;
+        this.blockSize = blockSize;
+        this.retentionDays = retentionDays;
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create embedded store directory " + root, e);
+        }
+    }
+
+    @Override
+    public synchronized void write(String targetId, long timestampMillis, boolean up, int statusCode, long latencyMs) {
+        long partition = partitionOf(timestampMillis);
+        PendingSamples samples = pending.computeIfAbsent(targetId, id -> new PendingSamples());
+        if (!samples.buffer.isEmpty() && samples.partition != partition) {
+            append(targetId, samples);
+        }
+        samples.partition = partition;
+        samples.buffer.add(timestampMillis, up, statusCode, latencyMs);
+        if (samples.buffer.size() >= blockSize) {
+            append(targetId, samples);
+        }
+    }
+
+    @Override
+    public void writeRollups(List<Rollup> rollups) {
+        // rollups are derived from the raw segments at read time
+    }
+
+    @Override
+    public synchronized void flush() {
+        Iterator<Map.Entry<String, PendingSamples>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, PendingSamples> entry = iterator.next();
+            try {
+                if (!entry.getValue().buffer.isEmpty()) {
+                    append(entry.getKey(), entry.getValue());
+                }
+                // idle targets should not pin their buffers
+                iterator.remove();
+            } catch (UncheckedIOException e) {
+                log.error("Failed to flush samples for target ID: {}. Error: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    @Override
+    public void scan(String targetId, long startMillis, long endMillis, SampleVisitor visitor) {
+        if (startMillis >= endMillis) {
+            return;
+        }
+        NavigableSet<Long> partitions = new TreeSet<>(listPartitions()
+                .subMap(partitionOf(startMillis), true, partitionOf(endMillis - 1), true)
+                .keySet());
+        synchronized (this) {
+            PendingSamples samples = pending.get(targetId);
+            if (samples != null && !samples.buffer.isEmpty()
+                    && samples.partition >= partitionOf(startMillis) && samples.partition <= partitionOf(endMillis - 1)) {
+                partitions.add(samples.partition);
+            }
+        }
+
+        SampleBuffer samples = new SampleBuffer(256);
+        for (long partition : partitions) {
+            long from = Math.max(startMillis, partition);
+            long to = Math.min(endMillis, partition + PARTITION_MILLIS);
+
+            samples.clear();
+            Path segment = segmentPath(partition, targetId);
+            FileChannel channel;
+            long size;
+            synchronized (this) {
+                // a flush moves samples from the pending buffer to the segment, so take both at the same instant;
+                // the open channel also keeps reading the old file if compaction replaces it meanwhile
+                channel = openForRead(segment);
+                size = sizeOf(channel, segment);
+                addPending(targetId, partition, from, to, samples);
+            }
+            if (channel != null) {
+                try (channel) {
+                    readBlocks(channel, size, segment, from, to, samples);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot read embedded store segment " + segment, e);
+                }
+            }
+            samples.sortByTimestamp(partition);
+
+            for (int i = 0; i < samples.size(); i++) {
+                if (!visitor.visit(samples.timestamp(i), samples.up(i), samples.statusCode(i), samples.latency(i))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes days older than the retention period and compacts closed days that have not been compacted yet.
+     */
+    public void maintain(long nowMillis) {
+        long currentPartition = partitionOf(nowMillis);
+        long oldestRetained = currentPartition - (long) retentionDays * PARTITION_MILLIS;
+
+        for (Map.Entry<Long, Path> partition : listPartitions().entrySet()) {
+            long partitionStart = partition.getKey();
+            Path directory = partition.getValue();
+            try {
+                if (partitionStart < oldestRetained) {
+                    deleteRecursively(directory);
+                    log.info("Dropped embedded store partition {} past retention", directory.getFileName());
+                } else if (partitionStart < currentPartition && !Files.exists(directory.resolve(COMPACTED_MARKER))) {
+                    compactPartition(directory, partitionStart);
+                }
+            } catch (IOException e) {
+                log.error("Maintenance of embedded store partition {} failed: {}", directory.getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    private void compactPartition(Path directory, long partitionStart) throws IOException {
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX)).toList();
+        }
+        for (Path segment : segments) {
+            // hold the write lock per segment only, so late writes into this day wait at most one file
+            synchronized (this) {
+                compactSegment(segment, partitionStart);
+            }
+        }
+        Files.createFile(directory.resolve(COMPACTED_MARKER));
+        log.info("Compacted {} segments in embedded store partition {}", segments.size(), directory.getFileName());
+    }
+
+    private void compactSegment(Path segment, long partitionStart) throws IOException {
+        SampleBuffer samples = new SampleBuffer(1024);
+        readSegment(segment, partitionStart, partitionStart + PARTITION_MILLIS, samples);
+        samples.sortByTimestamp(partitionStart);
+
+        Path temporary = segment.resolveSibling(segment.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (int from = 0; from < samples.size(); from += blockSize) {
+                channel.write(ByteBuffer.wrap(BlockCodec.encode(samples, from, Math.min(samples.size(), from + blockSize))));
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, segment, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void append(String targetId, PendingSamples samples) {
+        Path segment = segmentPath(samples.partition, targetId);
+        byte[] block = BlockCodec.encode(samples.buffer, 0, samples.buffer.size());
+        try {
+            Files.createDirectories(segment.getParent());
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(block);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        } catch (IOException e) {
+            // keep the samples buffered so the next append retries them
+            throw new UncheckedIOException("Cannot append to embedded store segment " + segment, e);
+        }
+        samples.buffer.clear();
+    }
+
+    private void readSegment(Path segment, long from, long to, SampleBuffer out) {
+        if (!Files.exists(segment)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            readBlocks(channel, channel.size(), segment, from, to, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read embedded store segment " + segment, e);
+        }
+    }
+
+    /**
+     * Reads the blocks within the first {@code size} bytes of the segment.
+     */
+    private static void readBlocks(FileChannel channel, long size, Path segment, long from, long to, SampleBuffer out)
+            throws IOException {
+        if (size == 0) {
+            return;
+        }
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        int position = 0;
+        while (position < size) {
+            position = BlockCodec.decode(mapped, position, from, to, out);
+            if (position < 0) {
+                // the tail of an interrupted write
+                log.debug("Stopped reading embedded store segment {} at a truncated block", segment);
+                break;
+            }
+        }
+    }
+
+    private static FileChannel openForRead(Path segment) {
+        try {
+            return FileChannel.open(segment, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open embedded store segment " + segment, e);
+        }
+    }
+
+    private static long sizeOf(FileChannel channel, Path segment) {
+        if (channel == null) {
+            return 0;
+        }
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new UncheckedIOException("Cannot read embedded store segment " + segment, e);
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Failed to close embedded store segment channel: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void addPending(String targetId, long partition, long from, long to, SampleBuffer out) {
+        PendingSamples samples = pending.get(targetId);
+        if (samples == null || samples.partition != partition) {
+            return;
+        }
+        SampleBuffer buffer = samples.buffer;
+        for (int i = 0; i < buffer.size(); i++) {
+            long timestamp = buffer.timestamp(i);
+            if (timestamp >= from && timestamp < to) {
+                out.add(timestamp, buffer.up(i), buffer.statusCode(i), buffer.latency(i));
+            }
+        }
+    }
+
+    private NavigableMap<Long, Path> listPartitions() {
+        NavigableMap<Long, Path> partitions = new TreeMap<>();
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path directory : directories) {
+                try {
+                    LocalDate day = LocalDate.parse(directory.getFileName().toString(), PARTITION_FORMAT);
+                    partitions.put(day.toEpochDay() * PARTITION_MILLIS, directory);
+                } catch (DateTimeParseException e) {
+                    log.debug("Ignoring unexpected directory {} in embedded store", directory);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list embedded store partitions in " + root, e);
+        }
+        return partitions;
+    }
+
+    private Path segmentPath(long partition, String targetId) {
+        String day = LocalDate.ofEpochDay(partition / PARTITION_MILLIS).format(PARTITION_FORMAT);
+        return root.resolve(day).resolve(fileName(targetId) + SEGMENT_SUFFIX);
+    }
+
+    static String fileName(String targetId) {
+        if (SAFE_FILE_NAME.matcher(targetId).matches()) {
+            return targetId;
+        }
+        // '~' never appears in safe names, so hex-encoded ids cannot collide with them
+        return "~" + HexFormat.of().formatHex(targetId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static long partitionOf(long timestampMillis) {
+        return Math.floorDiv(timestampMillis, PARTITION_MILLIS) * PARTITION_MILLIS;
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(directory)) {
+            walk.forEach(paths::add);
+        }
+        paths.sort(Comparator.reverseOrder());
+        for (Path path : paths) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static final class PendingSamples {
+        final SampleBuffer buffer = new SampleBuffer(16);
+        long partition;
+    }
+}
@@ -0,0 +1,102 @@
+package pr.pulsesynapse.storage.embedded;
+
+import java.util.Arrays;
+
+/**
+ * Column-oriented, growable buffer of samples. Used both for pending writes and for decoded reads.
+ */
+final class SampleBuffer {
+
+    private long[] timestamps;
+    private long[] latencies;
+    private int[] statusCodes;
+    private boolean[] ups;
+    private int size;
+
+    SampleBuffer(int initialCapacity) {
+        int capacity = Math.max(4, initialCapacity);
+        timestamps = new long[capacity];
+        latencies = new long[capacity];
+        statusCodes = new int[capacity];
+        ups = new boolean[capacity];
+    }
+
+    void add(long timestamp, boolean up, int statusCode, long latency) {
+        if (size == timestamps.length) {
+            int capacity = size * 2;
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            latencies = Arrays.copyOf(latencies, capacity);
+            statusCodes = Arrays.copyOf(statusCodes, capacity);
+            ups = Arrays.copyOf(ups, capacity);
+        }
+        timestamps[size] = timestamp;
+        ups[size] = up;
+        statusCodes[size] = statusCode;
+        latencies[size] = latency;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    long timestamp(int index) {
+        return timestamps[index];
+    }
+
+    boolean up(int index) {
+        return ups[index];
+    }
+
+    int statusCode(int index) {
+        return statusCodes[index];
+    }
+
+    long latency(int index) {
+        return latencies[index];
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Stable sort by timestamp. All timestamps must lie within {@code [base, base + 2^31)}.
+     */
+    void sortByTimestamp(long base) {
+        boolean sorted = true;
+        for (int i = 1; i < size && sorted; i++) {
+            sorted = timestamps[i - 1] <= timestamps[i];
+        }
+        if (sorted) {
+            return;
+        }
+
+        // (offset << 32 | index) sorts by time first and keeps insertion order for equal timestamps
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = ((timestamps[i] - base) << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        long[] sortedTimestamps = new long[timestamps.length];
+        long[] sortedLatencies = new long[latencies.length];
+        int[] sortedStatusCodes = new int[statusCodes.length];
+        boolean[] sortedUps = new boolean[ups.length];
+        for (int i = 0; i < size; i++) {
+            int from = (int) keys[i];
+            sortedTimestamps[i] = timestamps[from];
+            sortedLatencies[i] = latencies[from];
+            sortedStatusCodes[i] = statusCodes[from];
+            sortedUps[i] = ups[from];
+        }
+        timestamps = sortedTimestamps;
+        latencies = sortedLatencies;
+        statusCodes = sortedStatusCodes;
+        ups = sortedUps;
+    }
+}
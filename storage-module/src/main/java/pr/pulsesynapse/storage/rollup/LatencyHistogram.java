@@ -0,0 +1,167 @@
+package pr.pulsesynapse.storage.rollup;
+
+/**
+ * Mergeable latency histogram with logarithmic buckets (DDSketch style).
+ * <p>
+ * Every recorded value falls into the bucket {@code ceil(log_gamma(value))}, so quantiles are answered with a
+ * relative error of at most {@link #RELATIVE_ACCURACY}. Only the range of buckets between the smallest and the
+ * largest recorded value is kept, which for a single endpoint is usually a few dozen slots.
+ */
+public class LatencyHistogram {
+
+    public static final double RELATIVE_ACCURACY = 0.02;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final long[] EMPTY = new long[0];
+
+    private long zeroCount;
+    private long[] counts = EMPTY;
+    private int offset;
+    private long totalCount;
+
+    public void record(long latencyMs) {
+        if (latencyMs <= 0) {
+            zeroCount++;
+        } else {
+            int index = bucketIndex(latencyMs);
+            ensureCovered(index);
+            counts[index - offset]++;
+        }
+        totalCount++;
+    }
+
+    public void merge(LatencyHistogram other) {
+        zeroCount += other.zeroCount;
+        totalCount += other.totalCount;
+        for (int i = 0; i < other.counts.length; i++) {
+            long count = other.counts[i];
+            if (count != 0) {
+                int index = other.offset + i;
+                ensureCovered(index);
+                counts[index - offset] += count;
+            }
+        }
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Returns the latency at the given quantile ({@code 0.0} to {@code 1.0}), or {@code 0} for an empty histogram.
+     */
+    public long valueAtQuantile(double quantile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = (long) Math.floor(Math.min(Math.max(quantile, 0.0), 1.0) * (totalCount - 1));
+        long seen = zeroCount;
+        if (rank < seen) {
+            return 0;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (rank < seen) {
+                return bucketValue(offset + i);
+            }
+        }
+        return bucketValue(offset + counts.length - 1);
+    }
+
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        copy.zeroCount = zeroCount;
+        copy.counts = counts.length == 0 ? EMPTY : counts.clone();
+        copy.offset = offset;
+        copy.totalCount = totalCount;
+        return copy;
+    }
+
+    /**
+     * Encodes the histogram as {@code zeroCount;firstBucket;count,count,...}, trimmed to the non-empty range.
+     */
+    public String encode() {
+        int first = 0;
+        int last = counts.length - 1;
+        while (first <= last && counts[first] == 0) {
+            first++;
+        }
+        while (last >= first && counts[last] == 0) {
+            last--;
+        }
+
+        StringBuilder sb = new StringBuilder(16 + (last - first + 1) * 4);
+        sb.append(zeroCount).append(';').append(first <= last ? offset + first : 0).append(';');
+        for (int i = first; i <= last; i++) {
+            if (i > first) {
+                sb.append(',');
+            }
+            sb.append(counts[i]);
+        }
+        return sb.toString();
+    }
+
+    public static LatencyHistogram decode(String encoded) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        if (encoded == null || encoded.isEmpty()) {
+            return histogram;
+        }
+
+        int firstSeparator = encoded.indexOf(';');
+        int secondSeparator = encoded.indexOf(';', firstSeparator + 1);
+        if (firstSeparator < 0 || secondSeparator < 0) {
+            throw new IllegalArgumentException("Malformed latency histogram: " + encoded);
+        }
+
+        histogram.zeroCount = Long.parseLong(encoded, 0, firstSeparator, 10);
+        histogram.offset = Integer.parseInt(encoded, firstSeparator + 1, secondSeparator, 10);
+        histogram.totalCount = histogram.zeroCount;
+
+        if (secondSeparator + 1 < encoded.length()) {
+            String[] parts = encoded.substring(secondSeparator + 1).split(",");
+            histogram.counts = new long[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                histogram.counts[i] = Long.parseLong(parts[i]);
+                histogram.totalCount += histogram.counts[i];
+            }
+        }
+        return histogram;
+    }
+
+    static int bucketIndex(long value) {
+        return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+
+    static long bucketValue(int index) {
+        // midpoint of (gamma^(i-1), gamma^i] in the relative-error sense
+        return Math.round(2 * Math.pow(GAMMA, index) / (GAMMA + 1));
+    }
+
+    private void ensureCovered(int index) {
+        if (counts.length == 0) {
+            counts = new long[8];
+            offset = index - 4;
+            return;
+        }
+        int end = offset + counts.length;
+        if (index >= offset && index < end) {
+            return;
+        }
+
+        int newOffset = Math.min(offset, index);
+        int newEnd = Math.max(end, index + 1);
+        // leave some headroom on the side that grew so a drifting latency doesn't copy on every sample
+        int slack = Math.max(4, (newEnd - newOffset) / 4);
+        if (index < offset) {
+            newOffset -= slack;
+        } else {
+            newEnd += slack;
+        }
+
+        long[] grown = new long[newEnd - newOffset];
+        System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+        counts = grown;
+        offset = newOffset;
+    }
+}
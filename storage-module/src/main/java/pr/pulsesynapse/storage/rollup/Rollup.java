@@ -0,0 +1,27 @@
+package pr.pulsesynapse.storage.rollup;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Snapshot of one target's aggregate over a single rollup window, ready to be written.
+ * <p>
+ * Every ingestion process writes its own partial point per window, identified by {@code writer}, and only ever
+ * overwrites its own; the window's aggregate is the {@linkplain RollupAccumulator#merge sum} of all its points.
+ * Rollups handed to readers are already summed and carry no writer.
+ */
+@Data
+@Builder
+public class Rollup {
+    private String targetId;
+    private String writer;
+    private RollupResolution resolution;
+    private long windowStart;
+    private long count;
+    private long upCount;
+    private long latencyCount;
+    private long latencySum;
+    private long latencyMin;
+    private long latencyMax;
+    private LatencyHistogram histogram;
+}
@@ -0,0 +1,65 @@
+package pr.pulsesynapse.storage.rollup;
+
+/**
+ * Mutable aggregate of the samples falling into one rollup window; {@link #toRollup} takes a snapshot.
+ */
+public class RollupAccumulator {
+
+    private long count;
+    private long upCount;
+    private long latencyCount;
+    private long latencySum;
+    private long latencyMin = Long.MAX_VALUE;
+    private long latencyMax = Long.MIN_VALUE;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    public void add(boolean up, long latencyMs, boolean hasLatency) {
+        count++;
+        if (up) {
+            upCount++;
+        }
+        if (hasLatency) {
+            latencyCount++;
+            latencySum += latencyMs;
+            latencyMin = Math.min(latencyMin, latencyMs);
+            latencyMax = Math.max(latencyMax, latencyMs);
+            histogram.record(latencyMs);
+        }
+    }
+
+    /**
+     * Adds a stored rollup of the same window, e.g. one writer's partial point.
+     */
+    public void merge(Rollup rollup) {
+        count += rollup.getCount();
+        upCount += rollup.getUpCount();
+        if (rollup.getLatencyCount() > 0) {
+            latencyCount += rollup.getLatencyCount();
+            latencySum += rollup.getLatencySum();
+            latencyMin = Math.min(latencyMin, rollup.getLatencyMin());
+            latencyMax = Math.max(latencyMax, rollup.getLatencyMax());
+        }
+        if (rollup.getHistogram() != null) {
+            histogram.merge(rollup.getHistogram());
+        }
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public Rollup toRollup(String targetId, RollupResolution resolution, long windowStart) {
+        return Rollup.builder()
+                .targetId(targetId)
+                .resolution(resolution)
+                .windowStart(windowStart)
+                .count(count)
+                .upCount(upCount)
+                .latencyCount(latencyCount)
+                .latencySum(latencySum)
+                .latencyMin(latencyCount > 0 ? latencyMin : 0)
+                .latencyMax(latencyCount > 0 ? latencyMax : 0)
+                .histogram(histogram.copy())
+                .build();
+    }
+}
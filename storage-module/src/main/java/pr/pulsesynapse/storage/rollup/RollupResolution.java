@@ -0,0 +1,33 @@
+package pr.pulsesynapse.storage.rollup;
+
+/**
+ * Rollup window sizes, each stored as its own measurement.
+ */
+public enum RollupResolution {
+    MINUTE(60_000L, "health_check_1m"),
+    HOUR(3_600_000L, "health_check_1h"),
+    DAY(86_400_000L, "health_check_1d");
+
+    private final long windowMillis;
+    private final String measurement;
+
+    RollupResolution(long windowMillis, String measurement) {
+        this.windowMillis = windowMillis;
+        this.measurement = measurement;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    public String getMeasurement() {
+        return measurement;
+    }
+
+    /**
+     * Start of the UTC-aligned window containing the given epoch millisecond.
+     */
+    public long windowStart(long epochMillis) {
+        return Math.floorDiv(epochMillis, windowMillis) * windowMillis;
+    }
+}
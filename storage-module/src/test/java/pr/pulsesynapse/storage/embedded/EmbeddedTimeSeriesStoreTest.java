@@ -0,0 +1,99 @@
+package pr.pulsesynapse.storage.embedded;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pr.pulsesynapse.storage.TimeSeriesWriter;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmbeddedTimeSeriesStoreTest {
+
+    private static final long DAY = 86_400_000L;
+    private static final long START = 1_700_000_000_000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void scansFlushedAndPendingSamplesInOrder() {
+        EmbeddedTimeSeriesStore store = new EmbeddedTimeSeriesStore(directory, 4, 90);
+        for (int i = 0; i < 10; i++) {
+            store.write("target-1", START + i * 60_000L, i % 3 != 0, 200, i == 5 ? TimeSeriesWriter.NO_LATENCY : 40 + i);
+        }
+        store.write("target-2", START, false, 503, 900);
+
+        List<long[]> samples = scan(store, "target-1", START, START + DAY);
+
+        assertEquals(10, samples.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(START + i * 60_000L, samples.get(i)[0]);
+            assertEquals(i % 3 != 0 ? 1 : 0, samples.get(i)[1]);
+            assertEquals(i == 5 ? TimeSeriesWriter.NO_LATENCY : 40 + i, samples.get(i)[3]);
+        }
+    }
+
+    @Test
+    void compactionKeepsSamplesAndRetentionDropsOldDays() {
+        EmbeddedTimeSeriesStore store = new EmbeddedTimeSeriesStore(directory, 1024, 2);
+        // written out of order and flushed in small blocks, as with late results
+        for (int i = 9; i >= 0; i--) {
+            store.write("target-1", START + i * 1_000L, true, 200, i);
+            store.flush();
+        }
+        store.write("target-1", START - 3 * DAY, true, 200, 1);
+        store.flush();
+
+        store.maintain(START + DAY);
+
+        List<long[]> samples = scan(store, "target-1", START - 4 * DAY, START + DAY);
+        assertEquals(10, samples.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(START + i * 1_000L, samples.get(i)[0]);
+        }
+        assertTrue(Double.isNaN(store.uptime("target-1", START - 4 * DAY, START - 2 * DAY)));
+    }
+
+    @Test
+    void scansSeeEverySampleWrittenBeforeThemWhileFlushesRun() throws Exception {
+        EmbeddedTimeSeriesStore store = new EmbeddedTimeSeriesStore(directory, 1024, 90);
+        AtomicInteger written = new AtomicInteger();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 2_000; i++) {
+                store.write("target-1", START + i, true, 200, 10);
+                written.incrementAndGet();
+                if (i % 3 == 0) {
+                    store.flush();
+                }
+            }
+        });
+        writer.start();
+
+        while (writer.isAlive()) {
+            int before = written.get();
+            int scanned = scan(store, "target-1", START, START + DAY).size();
+            assertTrue(scanned >= before, scanned + " samples scanned after " + before + " were written");
+        }
+        writer.join();
+        assertEquals(2_000, scan(store, "target-1", START, START + DAY).size());
+    }
+
+    @Test
+    void uptimeIsNaNWithoutSamples() {
+        EmbeddedTimeSeriesStore store = new EmbeddedTimeSeriesStore(directory, 16, 90);
+
+        assertTrue(Double.isNaN(store.uptime("unknown", START, START + DAY)));
+    }
+
+    private static List<long[]> scan(EmbeddedTimeSeriesStore store, String targetId, long start, long end) {
+        List<long[]> samples = new ArrayList<>();
+        store.scan(targetId, start, end, (timestamp, up, statusCode, latencyMs) ->
+                samples.add(new long[]{timestamp, up ? 1 : 0, statusCode, latencyMs}));
+        return samples;
+    }
+}
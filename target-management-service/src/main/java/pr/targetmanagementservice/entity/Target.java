@@ -3,6 +3,7 @@ package pr.targetmanagementservice.entity;
 import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.data.jpa.repository.JpaRepository;
+import pr.pulsesynapse.proto.SloWindow;
 
 import java.time.Instant;
 import java.util.UUID;
@@ -33,4 +34,15 @@ public class Target {
 
     @Column(name = "next_check_time", nullable = false)
     private Instant nextCheckTime;
+
+    // all three are null when the target has no SLO
+    @Column(name = "slo_target_percentage")
+    private Double sloTargetPercentage;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "slo_window")
+    private SloWindow sloWindow;
+
+    @Column(name = "slo_window_days")
+    private Integer sloWindowDays;
 }
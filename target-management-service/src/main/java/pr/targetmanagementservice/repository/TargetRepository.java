@@ -9,12 +9,15 @@ import pr.targetmanagementservice.entity.Target;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface TargetRepository extends JpaRepository<Target, UUID> {
 
     List<Target> findAllByUserId(UUID userId);
 
+    Optional<Target> findByIdAndUserId(UUID id, UUID userId);
+
     @Modifying
     @Transactional
     @Query("DELETE FROM Target t WHERE t.id = :id AND t.userId = :userId")
@@ -1,15 +1,16 @@
 package pr.targetmanagementservice.service;
 
 import com.google.protobuf.Empty;
+import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.grpc.server.service.GrpcService;
 import org.springframework.transaction.annotation.Transactional;
+import pr.pulsesynapse.auth.AuthContext;
 import pr.pulsesynapse.proto.*;
 import pr.targetmanagementservice.entity.Target;
 import pr.targetmanagementservice.repository.TargetRepository;
-import pr.targetmanagementservice.security.JwtAuthInterceptor;
 
 import java.time.Instant;
 import java.util.ArrayList;
@@ -21,15 +22,26 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class TargetService extends TargetServiceGrpc.TargetServiceImplBase {
 
+    private static final int DEFAULT_SLO_WINDOW_DAYS = 30;
+    // the longest window data-ingestion-service keeps SLO counters for
+    private static final int MAX_SLO_WINDOW_DAYS = 35;
+    private static final String INVALID_SLO = "SLO target must be between 0 and 100 percent, exclusive, and the window at most "
+            + MAX_SLO_WINDOW_DAYS + " days";
+
     private final TargetRepository targetRepository;
 
     @Override
     public void addTarget(AddTargetRequest request, StreamObserver<TargetResponse> responseObserver ){
-        String userId = JwtAuthInterceptor.getCurrentUserId();
-        String username = JwtAuthInterceptor.getCurrentUsername();
+        String userId = AuthContext.currentUserId();
+        String username = AuthContext.currentUsername();
 
         log.info("Received AddTargetRequest from userId: {} (username: {})", userId, username);
 
+        if (request.hasSlo() && !isValid(request.getSlo())) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(INVALID_SLO).asRuntimeException());
+            return;
+        }
+
         Target target = Target.builder()
                 .userId(UUID.fromString(userId))
                 .name(request.getName())
@@ -37,37 +49,26 @@ public class TargetService extends TargetServiceGrpc.TargetServiceImplBase {
                 .checkIntervalSeconds(request.getCheckIntervalSeconds())
                 .nextCheckTime(Instant.now())
                 .build();
+        applySlo(target, request.hasSlo() ? request.getSlo() : null);
 
         Target savedTarget = targetRepository.save(target);
 
-        TargetResponse response = TargetResponse.newBuilder()
-                .setId(savedTarget.getId().toString())
-                .setName(savedTarget.getName())
-                .setUrl(savedTarget.getUrl())
-                .setCheckIntervalSeconds(savedTarget.getCheckIntervalSeconds())
-                .build();
-
-        responseObserver.onNext(response);
+        responseObserver.onNext(toResponse(savedTarget));
         responseObserver.onCompleted();
 
     }
 
     @Override
     public void listMyTargets(Empty request, StreamObserver<TargetListResponse> responseObserver) {
-        String userId = JwtAuthInterceptor.getCurrentUserId();
-        String username = JwtAuthInterceptor.getCurrentUsername();
+        String userId = AuthContext.currentUserId();
+        String username = AuthContext.currentUsername();
 
         log.info("Received ListMyTargets request from userId: {} (username: {})", userId, username);
 
         List<Target> targetList = targetRepository.findAllByUserId(UUID.fromString(userId));
 
         List<TargetResponse> responseList = targetList.stream()
-                .map(target -> TargetResponse.newBuilder()
-                        .setId(target.getId().toString())
-                        .setName(target.getName())
-                        .setUrl(target.getUrl())
-                        .setCheckIntervalSeconds(target.getCheckIntervalSeconds())
-                        .build())
+                .map(TargetService::toResponse)
                 .toList();
 
         TargetListResponse targetListResponse = TargetListResponse.newBuilder()
@@ -80,8 +81,8 @@ public class TargetService extends TargetServiceGrpc.TargetServiceImplBase {
 
     @Override
     public void deleteTarget(DeleteTargetRequest request, StreamObserver<Empty> responseObserver){
-        String userId = JwtAuthInterceptor.getCurrentUserId();
-        String username = JwtAuthInterceptor.getCurrentUsername();
+        String userId = AuthContext.currentUserId();
+        String username = AuthContext.currentUsername();
 
         log.info("Received deleteTarget request from userId: {} (username: {}) and targetId", userId, username, request.getId());
 
@@ -91,6 +92,28 @@ public class TargetService extends TargetServiceGrpc.TargetServiceImplBase {
         responseObserver.onCompleted();
     }
 
+    @Override
+    public void setTargetSlo(SetTargetSloRequest request, StreamObserver<TargetResponse> responseObserver) {
+        String userId = AuthContext.currentUserId();
+
+        log.info("Received setTargetSlo request from userId: {} for targetId: {}", userId, request.getId());
+
+        if (request.hasSlo() && !isValid(request.getSlo())) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(INVALID_SLO).asRuntimeException());
+            return;
+        }
+
+        Target target = targetRepository.findByIdAndUserId(UUID.fromString(request.getId()), UUID.fromString(userId)).orElse(null);
+        if (target == null) {
+            responseObserver.onError(Status.NOT_FOUND.withDescription("Target not found").asRuntimeException());
+            return;
+        }
+        applySlo(target, request.hasSlo() ? request.getSlo() : null);
+
+        responseObserver.onNext(toResponse(targetRepository.save(target)));
+        responseObserver.onCompleted();
+    }
+
     @Override
     @Transactional
     public void getDueTargets(Empty request, StreamObserver<TargetListResponse> responseObserver){
@@ -98,26 +121,54 @@ public class TargetService extends TargetServiceGrpc.TargetServiceImplBase {
 
         List<Target> dueTargets = targetRepository.findAllByNextCheckTimeBefore(now);
 
+        TargetListResponse.Builder response = TargetListResponse.newBuilder();
         for (Target target : dueTargets) {
+            // the scheduler measures its lag from the due time
+            long dueTimeMs = target.getNextCheckTime().toEpochMilli();
             long interval = target.getCheckIntervalSeconds();
             target.setNextCheckTime(now.plusSeconds(interval));
+            response.addTargets(toResponseBuilder(target).setDueTimeMs(dueTimeMs));
         }
         targetRepository.saveAll(dueTargets);
 
-        List<TargetResponse> responseList = dueTargets.stream()
-                .map(target -> TargetResponse.newBuilder()
-                        .setId(target.getId().toString())
-                        .setName(target.getName())
-                        .setUrl(target.getUrl())
-                        .setCheckIntervalSeconds(target.getCheckIntervalSeconds())
-                        .build())
-                .toList();
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+    }
 
-        TargetListResponse response = TargetListResponse.newBuilder()
-                .addAllTargets(responseList)
-                .build();
+    private static boolean isValid(SloDefinition slo) {
+        return slo.getTargetPercentage() > 0 && slo.getTargetPercentage() < 100
+                && slo.getWindowDays() >= 0 && slo.getWindowDays() <= MAX_SLO_WINDOW_DAYS;
+    }
 
-        responseObserver.onNext(response);
-        responseObserver.onCompleted();
+    private static void applySlo(Target target, SloDefinition slo) {
+        if (slo == null) {
+            target.setSloTargetPercentage(null);
+            target.setSloWindow(null);
+            target.setSloWindowDays(null);
+            return;
+        }
+        boolean calendarMonth = slo.getWindow() == SloWindow.SLO_WINDOW_CALENDAR_MONTH;
+        target.setSloTargetPercentage(slo.getTargetPercentage());
+        target.setSloWindow(calendarMonth ? SloWindow.SLO_WINDOW_CALENDAR_MONTH : SloWindow.SLO_WINDOW_ROLLING);
+        target.setSloWindowDays(calendarMonth ? 0 : slo.getWindowDays() > 0 ? slo.getWindowDays() : DEFAULT_SLO_WINDOW_DAYS);
+    }
+
+    private static TargetResponse toResponse(Target target) {
+        return toResponseBuilder(target).build();
+    }
+
+    private static TargetResponse.Builder toResponseBuilder(Target target) {
+        TargetResponse.Builder builder = TargetResponse.newBuilder()
+                .setId(target.getId().toString())
+                .setName(target.getName())
+                .setUrl(target.getUrl())
+                .setCheckIntervalSeconds(target.getCheckIntervalSeconds());
+        if (target.getSloTargetPercentage() != null) {
+            builder.setSlo(SloDefinition.newBuilder()
+                    .setTargetPercentage(target.getSloTargetPercentage())
+                    .setWindow(target.getSloWindow())
+                    .setWindowDays(target.getSloWindowDays()));
+        }
+        return builder;
     }
 }
@@ -12,19 +12,28 @@ import java.util.UUID;
 @Getter
 @Setter
 @Builder
-@Table(name = "app_users")
+@Table(name = "app_users", uniqueConstraints = {
+        @UniqueConstraint(name = User.USERNAME_CONSTRAINT, columnNames = "username"),
+        @UniqueConstraint(name = User.EMAIL_CONSTRAINT, columnNames = "email")
+})
 public class User {
 
+    /**
+     * Named so that a violation on registration can tell a taken username from a taken email.
+     */
+    public static final String USERNAME_CONSTRAINT = "uk_app_users_username";
+    public static final String EMAIL_CONSTRAINT = "uk_app_users_email";
+
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String username;
 
     @Column(nullable = false)
     private String password;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String email;
 }
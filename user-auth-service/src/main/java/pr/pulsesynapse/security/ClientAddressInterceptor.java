@@ -0,0 +1,52 @@
+package pr.pulsesynapse.security;
+
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Grpc;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import org.springframework.grpc.server.GlobalServerInterceptor;
+import org.springframework.stereotype.Component;
+import pr.pulsesynapse.proto.AuthServiceGrpc;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+/**
+ * Makes the peer address of login and registration calls available to {@link LoginRateLimiter}. Other calls are
+ * passed through untouched.
+ */
+@Component
+@GlobalServerInterceptor
+public class ClientAddressInterceptor implements ServerInterceptor {
+
+    private static final Context.Key<String> CLIENT_ADDRESS_KEY = Context.key("clientAddress");
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        String methodName = call.getMethodDescriptor().getFullMethodName();
+        if (!methodName.equals(AuthServiceGrpc.getLoginUserMethod().getFullMethodName())
+                && !methodName.equals(AuthServiceGrpc.getRegisterUserMethod().getFullMethodName())) {
+            return next.startCall(call, headers);
+        }
+
+        SocketAddress remote = call.getAttributes().get(Grpc.TRANSPORT_ATTR_REMOTE_ADDR);
+        if (remote == null) {
+            return next.startCall(call, headers);
+        }
+        String address = remote instanceof InetSocketAddress inet && inet.getAddress() != null
+                ? inet.getAddress().getHostAddress()
+                : remote.toString();
+        return Contexts.interceptCall(Context.current().withValue(CLIENT_ADDRESS_KEY, address), call, headers, next);
+    }
+
+    /**
+     * Returns the peer address of the current login or registration call, or {@code null} if unknown.
+     */
+    public static String getCurrentClientAddress() {
+        return CLIENT_ADDRESS_KEY.get();
+    }
+}
@@ -0,0 +1,118 @@
+package pr.pulsesynapse.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets per username and per client address for the password-checking calls.
+ * <p>
+ * Each attempt takes one token from the bucket of its client address and, if it names an account, one from that
+ * account's bucket; buckets refill continuously up to their burst size. Buckets are spread over lock stripes, and
+ * each stripe forgets its least recently used buckets beyond its share of {@code max-keys}, so a spray of
+ * addresses cannot grow memory without bound.
+ */
+@Component
+public class LoginRateLimiter {
+
+    private final TokenBuckets usernames;
+    private final TokenBuckets addresses;
+    private final LongSupplier clock;
+
+    @Autowired
+    public LoginRateLimiter(@Value("${auth.rate-limit.username.burst:5}") int usernameBurst,
+                            @Value("${auth.rate-limit.username.per-minute:5}") double usernamePerMinute,
+                            @Value("${auth.rate-limit.address.burst:20}") int addressBurst,
+                            @Value("${auth.rate-limit.address.per-minute:30}") double addressPerMinute,
+                            @Value("${auth.rate-limit.max-keys:100000}") int maxKeys) {
+        this(usernameBurst, usernamePerMinute, addressBurst, addressPerMinute, maxKeys, System::currentTimeMillis);
+    }
+
+    LoginRateLimiter(int usernameBurst, double usernamePerMinute, int addressBurst, double addressPerMinute,
+                     int maxKeys, LongSupplier clock) {
+        this.usernames = new TokenBuckets(usernameBurst, usernamePerMinute, maxKeys);
+        this.addresses = new TokenBuckets(addressBurst, addressPerMinute, maxKeys);
+        this.clock = clock;
+    }
+
+    /**
+     * Takes a token for the attempt; returns {@code false} when the address or the username has none left.
+     * Either may be {@code null} and is then not limited.
+     */
+    public boolean tryAcquire(String username, String clientAddress) {
+        long now = clock.getAsLong();
+        if (clientAddress != null && !addresses.tryTake(clientAddress, now)) {
+            return false;
+        }
+        return username == null || usernames.tryTake(username, now);
+    }
+
+    private static final class TokenBuckets {
+        private static final int STRIPES = 64;
+
+        private final double burst;
+        private final double tokensPerMilli;
+        private final Stripe[] stripes = new Stripe[STRIPES];
+
+        TokenBuckets(int burst, double perMinute, int maxKeys) {
+            this.burst = burst;
+            this.tokensPerMilli = perMinute / 60_000.0;
+            int keysPerStripe = Math.max(1, maxKeys / STRIPES);
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new Stripe(keysPerStripe);
+            }
+        }
+
+        boolean tryTake(String key, long now) {
+            Stripe stripe = stripeOf(key);
+            synchronized (stripe) {
+                Bucket bucket = stripe.buckets.get(key);
+                if (bucket == null) {
+                    bucket = new Bucket(burst, now);
+                    stripe.buckets.put(key, bucket);
+                } else {
+                    bucket.tokens = Math.min(burst, bucket.tokens + Math.max(0L, now - bucket.updatedAt) * tokensPerMilli);
+                    bucket.updatedAt = now;
+                }
+                if (bucket.tokens < 1.0) {
+                    return false;
+                }
+                bucket.tokens -= 1.0;
+                return true;
+            }
+        }
+
+        private Stripe stripeOf(String key) {
+            int hash = Objects.hashCode(key) * 0x9e3779b9;
+            return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+        }
+    }
+
+    private static final class Stripe {
+        final Map<String, Bucket> buckets;
+
+        Stripe(int maxKeys) {
+            this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                    return size() > maxKeys;
+                }
+            };
+        }
+    }
+
+    private static final class Bucket {
+        double tokens;
+        long updatedAt;
+
+        Bucket(double tokens, long updatedAt) {
+            this.tokens = tokens;
+            this.updatedAt = updatedAt;
+        }
+    }
+}
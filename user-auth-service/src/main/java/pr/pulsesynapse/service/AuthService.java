@@ -4,18 +4,22 @@ import com.google.protobuf.Empty;
 import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.grpc.server.service.GrpcService;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import pr.pulsesynapse.auth.AuthContext;
 import pr.pulsesynapse.entity.User;
 import pr.pulsesynapse.proto.*;
 import pr.pulsesynapse.repository.UserRepository;
+import pr.pulsesynapse.security.ClientAddressInterceptor;
+import pr.pulsesynapse.security.LoginRateLimiter;
+import pr.pulsesynapse.security.PasswordHasher;
 import pr.pulsesynapse.utils.JwtUtil;
 
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @GrpcService
 @RequiredArgsConstructor
@@ -23,8 +27,19 @@ public class AuthService extends AuthServiceGrpc.AuthServiceImplBase {
 
     private static final Logger log = LoggerFactory.getLogger(AuthService.class);
 
+    private static final Status TOO_MANY_ATTEMPTS =
+            Status.RESOURCE_EXHAUSTED.withDescription("Too many attempts, try again later");
+    private static final Status HASHING_SATURATED =
+            Status.RESOURCE_EXHAUSTED.withDescription("Server is busy, try again later");
+    private static final Status USERNAME_TAKEN = Status.ALREADY_EXISTS.withDescription("Username is already in use");
+    private static final Status EMAIL_TAKEN = Status.ALREADY_EXISTS.withDescription("Email is already in use");
+    private static final Status ACCOUNT_TAKEN =
+            Status.ALREADY_EXISTS.withDescription("Username or email is already in use");
+
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final LoginRateLimiter loginRateLimiter;
+    private final UserProfileCache userProfileCache;
     private final JwtUtil jwtUtil;
 
     @Override
@@ -57,25 +72,13 @@ public class AuthService extends AuthServiceGrpc.AuthServiceImplBase {
                 return;
             }
 
-            Optional<User> existingUserByUsername = userRepository.findByUsername(request.getUsername());
-            if (existingUserByUsername.isPresent()) {
-                log.warn("Username '{}' is already taken", request.getUsername());
-                responseObserver.onError(Status.ALREADY_EXISTS
-                        .withDescription("Username is already in use")
-                        .asRuntimeException());
-                return;
-            }
-
-            Optional<User> existingUserByEmail = userRepository.findByEmail(request.getEmail());
-            if (existingUserByEmail.isPresent()) {
-                log.warn("Email '{}' is already taken", request.getEmail());
-                responseObserver.onError(Status.ALREADY_EXISTS
-                        .withDescription("Email is already in use")
-                        .asRuntimeException());
+            if (!loginRateLimiter.tryAcquire(null, ClientAddressInterceptor.getCurrentClientAddress())) {
+                log.warn("Too many registration attempts from {}", ClientAddressInterceptor.getCurrentClientAddress());
+                responseObserver.onError(TOO_MANY_ATTEMPTS.asRuntimeException());
                 return;
             }
 
-            String encodedPassword = passwordEncoder.encode(request.getPassword());
+            String encodedPassword = passwordHasher.encode(request.getPassword());
 
             User newUser = User.builder()
                     .username(request.getUsername())
@@ -83,7 +86,20 @@ public class AuthService extends AuthServiceGrpc.AuthServiceImplBase {
                     .email(request.getEmail())
                     .build();
 
-            User savedUser = userRepository.save(newUser);
+            // one insert: the unique constraints on username and email catch duplicates, concurrent ones included
+            User savedUser;
+            try {
+                savedUser = userRepository.save(newUser);
+            } catch (DataIntegrityViolationException e) {
+                Status status = alreadyExists(e);
+                if (status == null) {
+                    throw e;
+                }
+                log.warn("Registration rejected for username '{}': {}", request.getUsername(), status.getDescription());
+                responseObserver.onError(status.asRuntimeException());
+                return;
+            }
+
             RegisterResponse response = RegisterResponse.newBuilder()
                     .setUserId(savedUser.getId().toString())
                     .build();
@@ -92,6 +108,9 @@ public class AuthService extends AuthServiceGrpc.AuthServiceImplBase {
             responseObserver.onNext(response);
             responseObserver.onCompleted();
 
+        } catch (RejectedExecutionException e) {
+            log.warn("Password hashing is saturated; rejecting registration");
+            responseObserver.onError(HASHING_SATURATED.asRuntimeException());
         } catch (Exception e) {
             log.error("Error during user registration: ", e);
             responseObserver.onError(Status.INTERNAL
@@ -122,6 +141,12 @@ public class AuthService extends AuthServiceGrpc.AuthServiceImplBase {
                 return;
             }
 
+            if (!loginRateLimiter.tryAcquire(request.getUsername(), ClientAddressInterceptor.getCurrentClientAddress())) {
+                log.warn("Too many login attempts for username: {}", request.getUsername());
+                responseObserver.onError(TOO_MANY_ATTEMPTS.asRuntimeException());
+                return;
+            }
+
             Optional<User> userOptional = userRepository.findByUsername(request.getUsername());
 
             if (userOptional.isEmpty()) {
@@ -134,7 +159,7 @@ public class AuthService extends AuthServiceGrpc.AuthServiceImplBase {
 
             User user = userOptional.get();
 
-            boolean passwordMatches = passwordEncoder.matches(request.getPassword(), user.getPassword());
+            boolean passwordMatches = passwordHasher.matches(request.getPassword(), user.getPassword());
 
             if (!passwordMatches) {
                 log.warn("Password verification failed for username: {}", request.getUsername());
@@ -144,6 +169,7 @@ public class AuthService extends AuthServiceGrpc.AuthServiceImplBase {
                 return;
             }
 
+            userProfileCache.put(user);
             String token = jwtUtil.generateToken(user);
             log.info("JWT token generated successfully for user: {}", user.getUsername());
 
@@ -155,6 +181,9 @@ public class AuthService extends AuthServiceGrpc.AuthServiceImplBase {
             responseObserver.onNext(response);
             responseObserver.onCompleted();
 
+        } catch (RejectedExecutionException e) {
+            log.warn("Password hashing is saturated; rejecting login");
+            responseObserver.onError(HASHING_SATURATED.asRuntimeException());
         } catch (Exception e) {
             log.error("Error during user login: ", e);
             responseObserver.onError(Status.INTERNAL
@@ -167,11 +196,9 @@ public class AuthService extends AuthServiceGrpc.AuthServiceImplBase {
     @Override
     public void getProfile(Empty request, StreamObserver<UserProfile> responseObserver) {
         try {
+            String username = AuthContext.currentUsername();
 
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            log.info("Authentication object: {}", authentication);
-
-            if (authentication == null || !authentication.isAuthenticated()) {
+            if (username == null) {
                 log.warn("User not authenticated");
                 responseObserver.onError(Status.UNAUTHENTICATED
                         .withDescription("Not authenticated")
@@ -179,11 +206,12 @@ public class AuthService extends AuthServiceGrpc.AuthServiceImplBase {
                 return;
             }
 
-            String username = authentication.getName();
-
-            Optional<User> userOptional = userRepository.findByUsername(username);
+            String userId = AuthContext.currentUserId();
+            UserProfile profile = userId != null
+                    ? userProfileCache.get(userId)
+                    : userRepository.findByUsername(username).map(UserProfileCache::toProfile).orElse(null);
 
-            if (userOptional.isEmpty()) {
+            if (profile == null) {
                 log.warn("User profile not found for username: {}", username);
                 responseObserver.onError(Status.NOT_FOUND
                         .withDescription("User profile not found")
@@ -191,16 +219,6 @@ public class AuthService extends AuthServiceGrpc.AuthServiceImplBase {
                 return;
             }
 
-            User user = userOptional.get();
-            log.info("User profile found: ID={}, username={}, email={}",
-                    user.getId(), user.getUsername(), user.getEmail());
-
-            UserProfile profile = UserProfile.newBuilder()
-                    .setId(user.getId().toString())
-                    .setUsername(user.getUsername())
-                    .setEmail(user.getEmail())
-                    .build();
-
             log.info("Sending user profile response");
             responseObserver.onNext(profile);
             responseObserver.onCompleted();
@@ -213,4 +231,25 @@ public class AuthService extends AuthServiceGrpc.AuthServiceImplBase {
                     .asRuntimeException());
         }
     }
+
+    /**
+     * Maps a violated constraint on {@code app_users} to its response, or returns {@code null} if the violation
+     * names no constraint. Schemas created before the constraints were named still carry generated names; those
+     * get the combined message.
+     */
+    private static Status alreadyExists(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                String constraint = violation.getConstraintName();
+                if (constraint.equalsIgnoreCase(User.USERNAME_CONSTRAINT)) {
+                    return USERNAME_TAKEN;
+                }
+                if (constraint.equalsIgnoreCase(User.EMAIL_CONSTRAINT)) {
+                    return EMAIL_TAKEN;
+                }
+                return ACCOUNT_TAKEN;
+            }
+        }
+        return null;
+    }
 }
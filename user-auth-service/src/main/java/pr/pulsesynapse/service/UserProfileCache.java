@@ -0,0 +1,80 @@
+package pr.pulsesynapse.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pr.pulsesynapse.entity.User;
+import pr.pulsesynapse.proto.UserProfile;
+import pr.pulsesynapse.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Profiles for {@code GetProfile}, keyed by user id.
+ * <p>
+ * Profiles are loaded from the database on a miss and kept for at most {@code ttl-seconds}, up to
+ * {@code max-size} of them per instance. Code that changes a user's username or email must {@link #invalidate}
+ * the user afterwards; the TTL bounds how long another instance can keep serving the old profile.
+ */
+@Component
+public class UserProfileCache {
+
+    private final UserRepository userRepository;
+    private final Cache<String, UserProfile> cache;
+
+    @Autowired
+    public UserProfileCache(UserRepository userRepository,
+                            @Value("${auth.profile-cache.max-size:10000}") long maxSize,
+                            @Value("${auth.profile-cache.ttl-seconds:300}") long ttlSeconds) {
+        this(userRepository, maxSize, ttlSeconds, Ticker.systemTicker());
+    }
+
+    UserProfileCache(UserRepository userRepository, long maxSize, long ttlSeconds, Ticker ticker) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Returns the profile of the user, or {@code null} if there is no such user. Misses are not cached.
+     */
+    public UserProfile get(String userId) {
+        return cache.get(userId, this::load);
+    }
+
+    /**
+     * Caches the profile of a user that was just read from the database anyway.
+     */
+    public void put(User user) {
+        cache.put(user.getId().toString(), toProfile(user));
+    }
+
+    public void invalidate(String userId) {
+        cache.invalidate(userId);
+    }
+
+    private UserProfile load(String userId) {
+        UUID id;
+        try {
+            id = UUID.fromString(userId);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return userRepository.findById(id).map(UserProfileCache::toProfile).orElse(null);
+    }
+
+    static UserProfile toProfile(User user) {
+        return UserProfile.newBuilder()
+                .setId(user.getId().toString())
+                .setUsername(user.getUsername())
+                .setEmail(user.getEmail())
+                .build();
+    }
+}
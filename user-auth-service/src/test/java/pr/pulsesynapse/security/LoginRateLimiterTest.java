@@ -0,0 +1,51 @@
+package pr.pulsesynapse.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoginRateLimiterTest {
+
+    private long now = 1_000_000L;
+    private final LoginRateLimiter limiter = new LoginRateLimiter(3, 6, 5, 60, 1000, () -> now);
+
+    @Test
+    void refillsAUsernameBucketOverTime() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire("alice", null));
+        }
+        assertFalse(limiter.tryAcquire("alice", null));
+        assertTrue(limiter.tryAcquire("bob", null));
+
+        // six per minute: one token every ten seconds
+        now += 9_999L;
+        assertFalse(limiter.tryAcquire("alice", null));
+        now += 1_001L;
+        assertTrue(limiter.tryAcquire("alice", null));
+        assertFalse(limiter.tryAcquire("alice", null));
+    }
+
+    @Test
+    void limitsAnAddressAcrossUsernames() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire("user-" + i, "10.0.0.1"));
+        }
+        assertFalse(limiter.tryAcquire("user-5", "10.0.0.1"));
+        assertTrue(limiter.tryAcquire("user-5", "10.0.0.2"));
+        assertTrue(limiter.tryAcquire(null, "10.0.0.3"));
+    }
+
+    @Test
+    void forgetsLeastRecentlyUsedBuckets() {
+        LoginRateLimiter small = new LoginRateLimiter(1, 1, 1, 1, 64, () -> now);
+        assertTrue(small.tryAcquire("alice", null));
+        assertFalse(small.tryAcquire("alice", null));
+
+        // one bucket per stripe: enough other usernames push alice's out
+        for (int i = 0; i < 10_000; i++) {
+            small.tryAcquire("user-" + i, null);
+        }
+        assertTrue(small.tryAcquire("alice", null));
+    }
+}
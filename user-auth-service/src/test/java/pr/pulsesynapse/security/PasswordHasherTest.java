@@ -0,0 +1,76 @@
+package pr.pulsesynapse.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHasherTest {
+
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PasswordHasher hasher = new PasswordHasher(new BlockingEncoder(), meterRegistry, 1, 1);
+    private final ExecutorService callers = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        hasher.shutdown();
+    }
+
+    @Test
+    void rejectsRightAwayWhenThePoolAndQueueAreFull() throws Exception {
+        Future<String> running = callers.submit(() -> hasher.encode("first"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<Boolean> queued = callers.submit(() -> hasher.matches("second", "hash:second"));
+        waitForQueueDepth(1);
+
+        assertThrows(RejectedExecutionException.class, () -> hasher.encode("third"));
+        assertEquals(1.0, meterRegistry.get("auth.password.hashing.rejected").counter().count());
+
+        release.countDown();
+        assertEquals("hash:first", running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+        assertEquals(1, meterRegistry.get("auth.password.hashing").tag("operation", "encode").timer().count());
+        assertEquals(1, meterRegistry.get("auth.password.hashing").tag("operation", "matches").timer().count());
+    }
+
+    private void waitForQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("auth.password.hashing.queue").gauge().value() < depth) {
+            assertTrue(System.nanoTime() < deadline, "queue never reached " + depth);
+            Thread.sleep(1);
+        }
+    }
+
+    private final class BlockingEncoder implements PasswordEncoder {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "hash:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encodedPassword.equals(encode(rawPassword));
+        }
+    }
+}
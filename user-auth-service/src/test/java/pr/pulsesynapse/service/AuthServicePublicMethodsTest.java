@@ -0,0 +1,114 @@
+package pr.pulsesynapse.service;
+
+import com.google.protobuf.Empty;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import pr.pulsesynapse.auth.AuthAutoConfiguration;
+import pr.pulsesynapse.auth.JwtAuthInterceptor;
+import pr.pulsesynapse.proto.AuthServiceGrpc;
+import pr.pulsesynapse.proto.LoginRequest;
+import pr.pulsesynapse.proto.LoginResponse;
+import pr.pulsesynapse.proto.RegisterRequest;
+import pr.pulsesynapse.proto.RegisterResponse;
+import pr.pulsesynapse.proto.UserProfile;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Loads the service's own {@code application.properties} with the shared auth interceptor, so a missing or
+ * misspelled {@code auth.public-methods} entry shows up as a login that needs a token.
+ */
+@SpringBootTest(classes = AuthServicePublicMethodsTest.Config.class,
+        properties = "jwt.secret=MDEyMzQ1Njc4OTAxMjM0NTY3ODkwMTIzNDU2Nzg5MDE=")
+class AuthServicePublicMethodsTest {
+
+    @Autowired
+    private AuthServiceGrpc.AuthServiceImplBase authService;
+
+    @Autowired
+    private JwtAuthInterceptor jwtAuthInterceptor;
+
+    private Server server;
+    private ManagedChannel channel;
+    private AuthServiceGrpc.AuthServiceBlockingStub stub;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .directExecutor()
+                .addService(ServerInterceptors.intercept(authService, jwtAuthInterceptor))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+        stub = AuthServiceGrpc.newBlockingStub(channel);
+    }
+
+    @AfterEach
+    void stopServer() {
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    @Test
+    void loginAndRegisterNeedNoToken() {
+        LoginResponse login = stub.loginUser(LoginRequest.newBuilder().setUsername("alice").build());
+        RegisterResponse register = stub.registerUser(RegisterRequest.newBuilder().setUsername("alice").build());
+
+        assertEquals("token", login.getAccessToken());
+        assertEquals("user-1", register.getUserId());
+    }
+
+    @Test
+    void profileStillNeedsAToken() {
+        StatusRuntimeException e = assertThrows(StatusRuntimeException.class,
+                () -> stub.getProfile(Empty.getDefaultInstance()));
+
+        assertEquals(Status.Code.UNAUTHENTICATED, e.getStatus().getCode());
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @Import(AuthAutoConfiguration.class)
+    static class Config {
+
+        @Bean
+        AuthServiceGrpc.AuthServiceImplBase authService() {
+            return new AuthServiceGrpc.AuthServiceImplBase() {
+                @Override
+                public void loginUser(LoginRequest request, StreamObserver<LoginResponse> responseObserver) {
+                    responseObserver.onNext(LoginResponse.newBuilder().setAccessToken("token").build());
+                    responseObserver.onCompleted();
+                }
+
+                @Override
+                public void registerUser(RegisterRequest request, StreamObserver<RegisterResponse> responseObserver) {
+                    responseObserver.onNext(RegisterResponse.newBuilder().setUserId("user-1").build());
+                    responseObserver.onCompleted();
+                }
+
+                @Override
+                public void getProfile(Empty request, StreamObserver<UserProfile> responseObserver) {
+                    responseObserver.onNext(UserProfile.getDefaultInstance());
+                    responseObserver.onCompleted();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package pr.pulsesynapse.service;
+
+import org.junit.jupiter.api.Test;
+import pr.pulsesynapse.entity.User;
+import pr.pulsesynapse.proto.UserProfile;
+import pr.pulsesynapse.repository.UserRepository;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserProfileCacheTest {
+
+    private final UUID id = UUID.randomUUID();
+    private final User user = User.builder().id(id).username("alice").email("alice@example.com").password("x").build();
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private long nanos;
+    private final UserProfileCache cache = new UserProfileCache(userRepository, 100, 60, () -> nanos);
+
+    @Test
+    void loadsOnceUntilTheTtlRunsOut() {
+        when(userRepository.findById(id)).thenReturn(Optional.of(user));
+
+        assertEquals("alice@example.com", cache.get(id.toString()).getEmail());
+        assertEquals("alice", cache.get(id.toString()).getUsername());
+        verify(userRepository, times(1)).findById(id);
+
+        nanos += TimeUnit.SECONDS.toNanos(61);
+        cache.get(id.toString());
+        verify(userRepository, times(2)).findById(id);
+    }
+
+    @Test
+    void reloadsAfterInvalidation() {
+        when(userRepository.findById(id)).thenReturn(Optional.of(user));
+        cache.get(id.toString());
+
+        user.setEmail("alice@example.org");
+        cache.invalidate(id.toString());
+        assertEquals("alice@example.org", cache.get(id.toString()).getEmail());
+        verify(userRepository, times(2)).findById(id);
+    }
+
+    @Test
+    void servesProfilesPutAtLogin() {
+        cache.put(user);
+
+        UserProfile profile = cache.get(id.toString());
+        assertEquals(id.toString(), profile.getId());
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    void doesNotCacheMissingUsers() {
+        when(userRepository.findById(id)).thenReturn(Optional.empty());
+
+        assertNull(cache.get(id.toString()));
+        assertNull(cache.get(id.toString()));
+        assertNull(cache.get("not-a-uuid"));
+        verify(userRepository, times(2)).findById(id);
+    }
+}